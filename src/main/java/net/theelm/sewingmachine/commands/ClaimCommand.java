@@ -57,6 +57,7 @@ import net.theelm.sewingmachine.interfaces.PlayerData;
 import net.theelm.sewingmachine.interfaces.PlayerMovement;
 import net.theelm.sewingmachine.interfaces.VillagerTownie;
 import net.theelm.sewingmachine.interfaces.WhitelistedPlayer;
+import net.theelm.sewingmachine.objects.WhitelistGraph;
 import net.theelm.sewingmachine.objects.ticking.ChunkOwnerUpdate;
 import net.theelm.sewingmachine.objects.ticking.ClaimCache;
 import net.theelm.sewingmachine.protections.BlockRange;
@@ -66,7 +67,6 @@ import net.theelm.sewingmachine.protections.claiming.ClaimantTown;
 import net.theelm.sewingmachine.utilities.CasingUtils;
 import net.theelm.sewingmachine.utilities.ChunkUtils;
 import net.theelm.sewingmachine.utilities.CommandUtils;
-import net.theelm.sewingmachine.utilities.EffectUtils;
 import net.theelm.sewingmachine.utilities.FormattingUtils;
 import net.theelm.sewingmachine.utilities.MoneyUtils;
 import net.theelm.sewingmachine.utilities.TranslatableServerSide;
@@ -78,11 +78,9 @@ import net.minecraft.command.argument.BlockPosArgumentType;
 import net.minecraft.command.argument.EntityArgumentType;
 import net.minecraft.command.argument.GameProfileArgumentType;
 import net.minecraft.entity.Entity;
-import net.minecraft.entity.ai.pathing.Path;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.network.MessageType;
-import net.minecraft.particle.ParticleTypes;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.PlayerManager;
 import net.minecraft.server.Whitelist;
@@ -100,7 +98,6 @@ import net.minecraft.text.Text;
 import net.minecraft.text.Texts;
 import net.minecraft.text.TranslatableText;
 import net.minecraft.util.Formatting;
-import net.minecraft.util.UserCache;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
@@ -1236,18 +1233,12 @@ public final class ClaimCommand {
         return ClaimCommand.pathPlayerToTarget(player, player);
     }
     private static int pathPlayerToTarget(@NotNull ServerPlayerEntity player, @NotNull Entity target) {
-        Path navigator = ((PlayerData)player).findPathTo(target, 3);
-        if (navigator != null)
-            EffectUtils.summonBreadcrumbs(ParticleTypes.FALLING_OBSIDIAN_TEAR, player, navigator);
-        else CoreMod.logInfo("Could not find path.");
-        return navigator == null ? 0 : 1;
+        return ClaimCommand.pathPlayerToTarget(player, target.getBlockPos());
     }
     private static int pathPlayerToTarget(@NotNull ServerPlayerEntity player, @NotNull BlockPos position) {
-        Path navigator = ((PlayerData)player).findPathTo(position, 3);
-        if (navigator != null)
-            EffectUtils.summonBreadcrumbs(ParticleTypes.FALLING_OBSIDIAN_TEAR, player, navigator);
-        else CoreMod.logInfo("Could not find path.");
-        return navigator == null ? 0 : 1;
+        // The path is searched for on the next tick, away from the server thread
+        ((PlayerData)player).setTrailTarget(position);
+        return Command.SINGLE_SUCCESS;
     }
     
     private static @NotNull CompletableFuture<Suggestions> playerHomeNamesOfFriend(@NotNull CommandContext<ServerCommandSource> context, @NotNull SuggestionsBuilder builder) throws CommandSyntaxException {
@@ -1331,44 +1322,45 @@ public final class ClaimCommand {
         // Get information about the server
         MinecraftServer server = source.getServer();
         ClaimCache claimCache = ((ClaimsAccessor)server).getClaimManager();
-        UserCache cache = server.getUserCache();
-        Whitelist whitelist = server.getPlayerManager().getWhitelist();
-        
-        // Store information about invites
-        GameProfile invitedBy = null;
-        List<WhitelistEntry> invited = new ArrayList<>();
         
-        ClaimantPlayer claim = claimCache.getPlayerClaim(player.getId());
+        // Get information about invites
+        List<WhitelistedPlayer> invited = WhitelistGraph.getInvited(player.getId());
         
-        // Loop the whitelist
-        for (WhitelistEntry entry : whitelist.values()) {
-            if (entry == null)
-                continue;
-            UUID invitedById = ((WhitelistedPlayer)entry).getInvitedBy();
-            if (invitedById != null) {
-                if (player.getId().equals(((WhitelistedPlayer)entry).getUUID()))
-                    invitedBy = cache.getByUuid(invitedById).orElse(null);
-                else if (player.getId().equals(invitedById))
-                    invited.add(entry);
+        // The inviter may have since left the whitelist, in which case their name is looked up from the stored invite
+        UUID invitedById = null;
+        String invitedByName = null;
+        WhitelistedPlayer inviter = WhitelistGraph.getInviter(player.getId());
+        if (inviter != null && inviter.getName() != null) {
+            invitedById = inviter.getUUID();
+            invitedByName = inviter.getName();
+        } else {
+            WhitelistedPlayer entry = WhitelistGraph.get(player.getId());
+            if (entry != null && entry.getInvitedBy() != null && !player.getId().equals(entry.getInvitedBy())) {
+                invitedById = entry.getInvitedBy();
+                invitedByName = server.getUserCache().getByUuid(invitedById)
+                    .map(GameProfile::getName)
+                    .orElse(invitedById.toString());
             }
         }
         
+        ClaimantPlayer claim = claimCache.getPlayerClaim(player.getId());
+        
         Entity entity = source.getEntity();
         boolean isPlayer = (entity instanceof PlayerEntity && player.getId().equals(entity.getUuid()));
         
         // Output as text
         MutableText out = null;
-        if (invitedBy != null)
+        if (invitedById != null)
             out = new LiteralText("").append(new LiteralText(isPlayer ? "You" : player.getName()).formatted(Formatting.GRAY))
                 .append(" " + ( isPlayer ? "were" : "was" ) + " invited to the server by ").formatted(Formatting.WHITE)
-                .append(ClaimCommand.inviteeFormattedName(source, claim, invitedBy.getName(), invitedBy.getId()));
+                .append(ClaimCommand.inviteeFormattedName(source, claim, invitedByName, invitedById));
         
         MutableText inv = new LiteralText("").formatted(Formatting.WHITE)
             .append(new LiteralText(isPlayer ? "You" : player.getName()).formatted(Formatting.GRAY))
             .append(" invited the following players [")
             .append(MessageUtils.formatNumber(invited.size()))
             .append("]: ")
-            .append(MessageUtils.listToTextComponent(invited, (entry) -> ClaimCommand.inviteeFormattedName(source, claim, ((WhitelistedPlayer)entry).getName(), ((WhitelistedPlayer)entry).getUUID())));
+            .append(MessageUtils.listToTextComponent(invited, (entry) -> ClaimCommand.inviteeFormattedName(source, claim, entry.getName(), entry.getUUID())));
         
         if (out == null) out = inv;
         else out.append("\n").append(inv);
@@ -34,9 +34,11 @@ import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import net.theelm.sewingmachine.ServerCore;
 import net.theelm.sewingmachine.enums.DragonLoot;
 import net.theelm.sewingmachine.mixins.Server.ServerWorldAccessor;
+import net.theelm.sewingmachine.objects.WanderingTraderPresence;
 import net.theelm.sewingmachine.objects.rewards.WeightedReward;
 import net.theelm.sewingmachine.utilities.BossLootRewards;
 import net.theelm.sewingmachine.utilities.EffectUtils;
+import net.theelm.sewingmachine.utilities.text.MessageUtils;
 import net.minecraft.command.argument.EntityArgumentType;
 import net.minecraft.command.argument.ParticleEffectArgumentType;
 import net.minecraft.entity.Entity;
@@ -74,6 +76,9 @@ public class DebugCommands {
         );
         
         ServerCore.register(dispatcher, "Tick Wandering Trader", builder -> builder
+            .then(CommandManager.literal("presence")
+                .executes(DebugCommands::traderPresence)
+            )
             .then(CommandManager.argument("force", BoolArgumentType.bool())
                 .executes(DebugCommands::forceTraderSpawn)
             )
@@ -153,6 +158,16 @@ public class DebugCommands {
         
         return spawn;
     }
+    private static int traderPresence(@NotNull CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        source.sendFeedback(new LiteralText("Wandering trader player list: ")
+            .append(MessageUtils.formatNumber(WanderingTraderPresence.getPacketsSent(), " packets sent"))
+            .append(", ")
+            .append(MessageUtils.formatNumber(WanderingTraderPresence.getRenders(), " renders"))
+            .append(", ")
+            .append(MessageUtils.formatNumber(WanderingTraderPresence.getViewers(), " viewers")), false);
+        return Command.SINGLE_SUCCESS;
+    }
     private static int forceTraderSpawn(@NotNull CommandContext<ServerCommandSource> context, boolean force) {
         ServerCommandSource source = context.getSource();
         MinecraftServer server = source.getServer();
@@ -28,6 +28,7 @@ package net.theelm.sewingmachine.commands;
 import com.mojang.authlib.GameProfile;
 import com.mojang.brigadier.Command;
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
@@ -39,9 +40,14 @@ import net.theelm.sewingmachine.config.SewConfig;
 import net.theelm.sewingmachine.enums.OpLevels;
 import net.theelm.sewingmachine.enums.Permissions;
 import net.theelm.sewingmachine.interfaces.CommandPredicate;
+import net.theelm.sewingmachine.interfaces.LogicalWorld;
 import net.theelm.sewingmachine.interfaces.ShopSignData;
+import net.theelm.sewingmachine.objects.DeathArchive;
+import net.theelm.sewingmachine.objects.PlayerListNames;
+import net.theelm.sewingmachine.objects.ShopRegistry;
 import net.theelm.sewingmachine.utilities.BlockUtils;
 import net.theelm.sewingmachine.utilities.CommandUtils;
+import net.theelm.sewingmachine.utilities.DeathChestUtils;
 import net.theelm.sewingmachine.utilities.GuideUtils;
 import net.theelm.sewingmachine.utilities.InventoryUtils;
 import net.theelm.sewingmachine.utilities.RankUtils;
@@ -58,6 +64,7 @@ import net.minecraft.entity.Entity;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
+import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.PlayerManager;
 import net.minecraft.server.command.CommandManager;
@@ -68,16 +75,24 @@ import net.minecraft.text.LiteralText;
 import net.minecraft.text.MutableText;
 import net.minecraft.text.TranslatableText;
 import net.minecraft.util.Formatting;
+import net.minecraft.util.Identifier;
 import net.minecraft.util.hit.BlockHitResult;
 import net.minecraft.util.hit.HitResult;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.registry.Registry;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public final class ModCommands {
     private ModCommands() {
@@ -124,6 +139,31 @@ public final class ModCommands {
                         )
                     )
                 )
+                .then(CommandManager.literal("list")
+                    .then(CommandManager.literal("owner")
+                        .then(CommandManager.argument("owner", GameProfileArgumentType.gameProfile())
+                            .suggests(CommandUtils::getAllPlayerNames)
+                            .executes(ModCommands::shopSignListByOwner)
+                        )
+                    )
+                    .then(CommandManager.literal("item")
+                        .then(CommandManager.argument("item", ItemStackArgumentType.itemStack())
+                            .executes(ModCommands::shopSignListByItem)
+                        )
+                    )
+                )
+            )
+            .then(CommandManager.literal("deaths")
+                .requires(CommandPredicate.opLevel(OpLevels.CHEATING))
+                .then(CommandManager.argument("player", GameProfileArgumentType.gameProfile())
+                    .suggests(CommandUtils::getAllPlayerNames)
+                    .then(CommandManager.literal("restore")
+                        .then(CommandManager.argument("death", IntegerArgumentType.integer(1))
+                            .executes(ModCommands::restoreDeath)
+                        )
+                    )
+                    .executes(ModCommands::listDeaths)
+                )
             )
             .then(CommandManager.literal("guides")
                 .requires(CommandPredicate.opLevel(OpLevels.CHEATING))
@@ -185,8 +225,42 @@ public final class ModCommands {
         // Resend the player the command tree
         for (ServerPlayerEntity player : playerManager.getPlayerList())
             playerManager.sendCommandTree(player);
+        
+        // Update the rank shown in the player list
+        if (reloadPermissions)
+            PlayerListNames.sendChanged(server);
     }
     
+    private static int shopSignListByOwner(@NotNull CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        Set<UUID> owners = GameProfileArgumentType.getProfileArgument(context, "owner").stream()
+            .map(GameProfile::getId)
+            .collect(Collectors.toSet());
+        return ModCommands.shopSignList(context.getSource(), shop -> owners.contains(shop.getOwner()));
+    }
+    private static int shopSignListByItem(@NotNull CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        Identifier item = Registry.ITEM.getId(ItemStackArgumentType.getItemStackArgument(context, "item").getItem());
+        return ModCommands.shopSignList(context.getSource(), shop -> item.equals(shop.getItem()));
+    }
+    private static int shopSignList(@NotNull ServerCommandSource source, @NotNull Predicate<ShopRegistry.Entry> predicate) {
+        int count = 0;
+        
+        // Read from the registry of each world, so chunks don't need to be loaded
+        for (ServerWorld world : source.getServer().getWorlds()) {
+            for (ShopRegistry.Entry shop : ((LogicalWorld) world).getShopRegistry().getShops()) {
+                if (!predicate.test(shop))
+                    continue;
+                BlockPos signPos = shop.getSignPos();
+                source.sendFeedback(new LiteralText(shop.getType().name() + " ").formatted(Formatting.AQUA)
+                    .append(new LiteralText(shop.getCount() + " " + shop.getItem() + " for $" + shop.getPrice()).formatted(Formatting.WHITE))
+                    .append(new LiteralText(" at " + signPos.getX() + ", " + signPos.getY() + ", " + signPos.getZ() + " in " + world.getRegistryKey().getValue()).formatted(Formatting.GRAY)), false);
+                count++;
+            }
+        }
+        
+        if (count == 0)
+            source.sendError(new LiteralText("No shops found."));
+        return count;
+    }
     private static int shopSignChangeOwner(@NotNull CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
         ServerCommandSource source = context.getSource();
         Entity entity = source.getEntityOrThrow();
@@ -326,6 +400,78 @@ public final class ModCommands {
         return Command.SINGLE_SUCCESS;
     }
     
+    private static int listDeaths(@NotNull CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        ServerCommandSource source = context.getSource();
+        GameProfile profile = GameProfileArgumentType.getProfileArgument(context, "player").stream()
+            .findAny()
+            .orElseThrow(GameProfileArgumentType.UNKNOWN_PLAYER_EXCEPTION::create);
+        
+        List<DeathArchive.Entry> deaths;
+        try {
+            deaths = DeathArchive.getDeaths(profile.getId());
+        } catch (IOException e) {
+            CoreMod.logError(e);
+            source.sendError(new LiteralText("Failed to read the death archive, see console for errors."));
+            return 0;
+        }
+        
+        if (deaths.isEmpty()) {
+            source.sendError(new LiteralText("No deaths have been archived for " + profile.getName() + "."));
+            return 0;
+        }
+        
+        // List the most recent deaths first
+        for (int i = deaths.size() - 1; i >= 0; i--) {
+            DeathArchive.Entry death = deaths.get(i);
+            source.sendFeedback(new LiteralText("#" + (deaths.size() - i) + " ").formatted(Formatting.AQUA)
+                .append(new LiteralText(Instant.ofEpochMilli(death.getTime()) + " ").formatted(Formatting.GRAY))
+                .append(new LiteralText(MessageUtils.xyzToString(death.getPos()) + " in " + death.getWorld()).formatted(Formatting.WHITE))
+                .append(new LiteralText(" - " + death.getCause()).formatted(Formatting.GRAY))
+                .append(new LiteralText(death.isRestored() ? " (Restored)" : "").formatted(Formatting.GREEN)), false);
+        }
+        
+        return deaths.size();
+    }
+    private static int restoreDeath(@NotNull CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        ServerCommandSource source = context.getSource();
+        GameProfile profile = GameProfileArgumentType.getProfileArgument(context, "player").stream()
+            .findAny()
+            .orElseThrow(GameProfileArgumentType.UNKNOWN_PLAYER_EXCEPTION::create);
+        int number = IntegerArgumentType.getInteger(context, "death");
+        
+        // The items are given back to the player, so they need to be online
+        ServerPlayerEntity player = ServerCore.getPlayer(source.getServer(), profile.getId());
+        if (player == null) {
+            source.sendError(new LiteralText(profile.getName() + " must be online to restore their items."));
+            return 0;
+        }
+        
+        int restored;
+        try {
+            List<DeathArchive.Entry> deaths = DeathArchive.getDeaths(profile.getId());
+            if (number > deaths.size()) {
+                source.sendError(new LiteralText("Death #" + number + " was not found, " + profile.getName() + " has " + deaths.size() + " archived deaths."));
+                return 0;
+            }
+            
+            // Numbered from the most recent, each death can only be restored once
+            NbtCompound snapshot = DeathArchive.restore(profile.getId(), deaths.get(deaths.size() - number));
+            if (snapshot == null) {
+                source.sendError(new LiteralText("Death #" + number + " of " + profile.getName() + " has already been restored."));
+                return 0;
+            }
+            
+            restored = DeathChestUtils.restoreDeathSnapshot(player, snapshot);
+        } catch (IOException e) {
+            CoreMod.logError(e);
+            source.sendError(new LiteralText("Failed to read the death archive, see console for errors."));
+            return 0;
+        }
+        
+        source.sendFeedback(new LiteralText("Restored " + restored + " item stacks to " + profile.getName() + ".").formatted(Formatting.GREEN), true);
+        return Command.SINGLE_SUCCESS;
+    }
+    
     private static int givePlayersGuideBook(@NotNull CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
         ServerCommandSource source = context.getSource();
         
@@ -35,6 +35,8 @@ import com.mojang.brigadier.tree.CommandNode;
 import net.theelm.sewingmachine.CoreMod;
 import net.theelm.sewingmachine.enums.OpLevels;
 import net.theelm.sewingmachine.interfaces.CommandPredicate;
+import net.theelm.sewingmachine.interfaces.LeaderboardHolder;
+import net.theelm.sewingmachine.objects.Leaderboards;
 import net.theelm.sewingmachine.utilities.FormattingUtils;
 import net.theelm.sewingmachine.utilities.text.MessageUtils;
 import net.minecraft.command.argument.ScoreboardObjectiveArgumentType;
@@ -43,24 +45,21 @@ import net.minecraft.entity.EntityType;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtList;
 import net.minecraft.scoreboard.ScoreboardObjective;
-import net.minecraft.scoreboard.ScoreboardPlayerScore;
 import net.minecraft.scoreboard.ServerScoreboard;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.LiteralText;
-import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.util.registry.Registry;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Created on Jun 27 2021 at 2:48 PM.
@@ -97,6 +96,13 @@ public class ScoreboardCommand {
                 .executes(ScoreboardCommand::generateStands)
             );
         objectives.addChild(armorStands.build());
+        
+        LiteralArgumentBuilder<ServerCommandSource> removeStands = CommandManager.literal("removedisplays")
+            .requires(CommandPredicate.opLevel(OpLevels.CHEATING))
+            .then(CommandManager.argument("objective", ScoreboardObjectiveArgumentType.scoreboardObjective())
+                .executes(ScoreboardCommand::removeStands)
+            );
+        objectives.addChild(removeStands.build());
     }
     
     private static int generateStands(@NotNull CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
@@ -120,12 +126,12 @@ public class ScoreboardCommand {
         ServerScoreboard scoreboard = source.getServer()
             .getScoreboard();
         
-        List<ScoreboardPlayerScore> scores = new ArrayList<>(scoreboard.getAllPlayerScores(objective));
-        Collections.reverse(scores);
+        Leaderboards leaderboards = ((LeaderboardHolder)scoreboard).getLeaderboards();
+        List<Leaderboards.Score> scores = leaderboards.getTop(objective, places);
         
         NbtCompound bottom = null, previous = null;
         for (int i = places; i >= 0; i--) {
-            NbtCompound rider = i == 0 ? ScoreboardCommand.generateTitle(objective) : ScoreboardCommand.generateRider(i, scores.size() < i ? null : scores.get(i - 1));
+            NbtCompound rider = i == 0 ? ScoreboardCommand.generateTitle(objective) : ScoreboardCommand.generateRider(Leaderboards.formatPlace(i, scores.size() < i ? null : scores.get(i - 1)));
             NbtList passengers = new NbtList();
             passengers.add(rider);
             
@@ -147,28 +153,34 @@ public class ScoreboardCommand {
         });
         
         // Create the entity and its passengers
-        return e != null && world.spawnNewEntityAndPassengers(e) ? Command.SINGLE_SUCCESS : 0;
+        if (e == null || !world.spawnNewEntityAndPassengers(e))
+            return 0;
+        
+        // Collect the riders from the top down, so the display can be kept up to date
+        List<UUID> riders = new ArrayList<>(places + 1);
+        for (Entity rider = e; rider != null; rider = rider.getFirstPassenger())
+            riders.add(0, rider.getUuid());
+        leaderboards.register(world, objective, riders);
+        
+        return Command.SINGLE_SUCCESS;
+    }
+    private static int removeStands(@NotNull CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        ServerCommandSource source = context.getSource();
+        ScoreboardObjective objective = ScoreboardObjectiveArgumentType.getObjective(context, "objective");
+        Leaderboards leaderboards = ((LeaderboardHolder)source.getServer().getScoreboard()).getLeaderboards();
+        
+        int removed = leaderboards.unregister(objective.getName());
+        source.sendFeedback(new LiteralText("Stopped updating ")
+            .append(MessageUtils.formatNumber(removed, Formatting.AQUA))
+            .append(" displays of ")
+            .append(objective.toHoverableText())
+            .append("."), true);
+        return removed;
     }
     private static @NotNull NbtCompound generateTitle(@NotNull ScoreboardObjective objective) {
         return ScoreboardCommand.generateRider(FormattingUtils.deepCopy(objective.getDisplayName())
             .formatted(Formatting.AQUA));
     }
-    private static @NotNull NbtCompound generateRider(int count, @Nullable ScoreboardPlayerScore score) {
-        final MutableText right = new LiteralText(": ").formatted(Formatting.WHITE);
-        if (score == null) {
-            right.append(new LiteralText("Nobody")
-                .formatted(Formatting.GRAY));
-        } else {
-            right.append(new LiteralText(score.getPlayerName())
-                .formatted(Formatting.AQUA))
-                .append(" (")
-                .append(MessageUtils.formatNumber(score.getScore(), Formatting.GOLD))
-                .append(")");
-        }
-        
-        return ScoreboardCommand.generateRider(new LiteralText(count + ScoreboardCommand.ending(count)).formatted(Formatting.GOLD)
-            .append(right));
-    }
     private static @NotNull NbtCompound generateRider(@NotNull Text display) {
         NbtCompound tag = new NbtCompound();
         tag.putBoolean("NoAI", true);
@@ -189,18 +201,4 @@ public class ScoreboardCommand {
     private static @NotNull Identifier entityId() {
         return Registry.ENTITY_TYPE.getId(ENTITY_TYPE);
     }
-    private static @NotNull String ending(int pos) {
-        final String th = "th";
-        String val = String.valueOf(pos);
-        int length = val.length();
-        if (length < 2 || val.charAt(length - 2) != '1') {
-            switch (val.charAt(length - 1)) {
-                case '1': return "st";
-                case '2': return "nd";
-                case '3': return "rd";
-                default: break;
-            }
-        }
-        return th;
-    }
 }
@@ -27,28 +27,28 @@ package net.theelm.sewingmachine.commands;
 
 import com.mojang.brigadier.Command;
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
 import net.theelm.sewingmachine.ServerCore;
 import net.theelm.sewingmachine.config.SewConfig;
 import net.theelm.sewingmachine.enums.OpLevels;
 import net.theelm.sewingmachine.interfaces.CommandPredicate;
-import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
+import net.theelm.sewingmachine.objects.SpawnerData;
 import net.minecraft.command.argument.EntitySummonArgumentType;
 import net.minecraft.command.suggestion.SuggestionProviders;
+import net.minecraft.entity.EntityType;
 import net.minecraft.item.ItemStack;
-import net.minecraft.item.Items;
-import net.minecraft.nbt.NbtCompound;
-import net.minecraft.nbt.NbtElement;
-import net.minecraft.nbt.NbtList;
-import net.minecraft.nbt.NbtString;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.LiteralText;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.registry.Registry;
 import org.jetbrains.annotations.NotNull;
 
 public final class SpawnerCommand {
     
+    private static final @NotNull SimpleCommandExceptionType NOT_ALLOWED = new SimpleCommandExceptionType(new LiteralText("That mob can not be put into a spawner."));
+    
     private SpawnerCommand() {}
     
     public static void register(@NotNull CommandDispatcher<ServerCommandSource> dispatcher) {
@@ -60,25 +60,16 @@ public final class SpawnerCommand {
                     // Get command information
                     ServerCommandSource source = context.getSource();
                     ServerPlayerEntity player = source.getPlayer();
-                    ServerWorld world = player.getWorld();
                     
-                    // Get item information
-                    ItemStack spawner = new ItemStack(Items.SPAWNER);
+                    // Get the mob to put into the spawner
                     Identifier mobIdentifier = EntitySummonArgumentType.getEntitySummon(context, "type");
-                    NbtString mob = NbtString.of(mobIdentifier.toString());
-                    
-                    // Add mob to the list
-                    NbtCompound tag = spawner.getOrCreateNbt();
-                    NbtList list;
-                    if (tag.contains("EntityIds", NbtElement.LIST_TYPE))
-                        list = tag.getList("EntityIds", NbtElement.STRING_TYPE);
-                    else {
-                        list = new NbtList();
-                        tag.put("EntityIds", list);
-                    }
+                    EntityType<?> type = Registry.ENTITY_TYPE.get(mobIdentifier);
+                    if (!SpawnerData.isAllowed(type))
+                        throw SpawnerCommand.NOT_ALLOWED.create();
                     
-                    list.add(mob);
-                    tag.put("display", NbtUtils.getSpawnerDisplay(list));
+                    // Create the spawner item
+                    ItemStack spawner = SpawnerData.of(type)
+                        .toItemStack();
                     
                     // Give the spawner
                     player.getInventory()
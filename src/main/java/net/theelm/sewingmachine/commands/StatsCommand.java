@@ -30,21 +30,27 @@ import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
+import net.theelm.sewingmachine.CoreMod;
 import net.theelm.sewingmachine.ServerCore;
 import net.theelm.sewingmachine.enums.ChatRooms;
 import net.theelm.sewingmachine.enums.OpLevels;
 import net.theelm.sewingmachine.interfaces.CommandPredicate;
 import net.theelm.sewingmachine.interfaces.PlayerChat;
+import net.theelm.sewingmachine.objects.StatisticsIndex;
+import net.theelm.sewingmachine.utilities.PlayerNameUtils;
 import net.theelm.sewingmachine.utilities.text.MessageUtils;
 import net.minecraft.command.CommandSource;
 import net.minecraft.command.argument.EntityArgumentType;
 import net.minecraft.command.argument.EntitySummonArgumentType;
+import net.minecraft.command.argument.IdentifierArgumentType;
 import net.minecraft.command.argument.ItemStackArgumentType;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.SpawnGroup;
 import net.minecraft.item.BlockItem;
 import net.minecraft.item.Item;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
@@ -52,6 +58,7 @@ import net.minecraft.stat.Stat;
 import net.minecraft.stat.StatType;
 import net.minecraft.stat.Stats;
 import net.minecraft.text.LiteralText;
+import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
 import net.minecraft.text.TranslatableText;
 import net.minecraft.util.Formatting;
@@ -61,6 +68,8 @@ import net.minecraft.util.registry.Registry;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Created on Mar 08 2021 at 7:51 PM.
  * By greg in SewingMachineMod
@@ -81,8 +90,36 @@ public final class StatsCommand {
         return new TranslatableText(Util.createTranslationKey("entity", Registry.BLOCK.getId(block)));
     });
     
+    private static final @NotNull SuggestionProvider<ServerCommandSource> INDEXED_TYPES = (context, builder) -> CommandSource.suggestIdentifiers(StatisticsIndex.getTypes().stream().map(Registry.STAT_TYPE::getId), builder);
+    private static final @NotNull SuggestionProvider<ServerCommandSource> INDEXED_STATS = (context, builder) -> {
+        StatType<?> type = Registry.STAT_TYPE.get(IdentifierArgumentType.getIdentifier(context, "type"));
+        if (type == null || !StatisticsIndex.isIndexed(type))
+            return builder.buildFuture();
+        return CommandSource.suggestIdentifiers(type.getRegistry().getIds(), builder);
+    };
+    
+    private static final int PAGE_SIZE = 10;
+    private static final @NotNull SimpleCommandExceptionType UNKNOWN_STAT = new SimpleCommandExceptionType(new LiteralText("That statistic is not indexed."));
+    private static final @NotNull SimpleCommandExceptionType ALREADY_INDEXING = new SimpleCommandExceptionType(new LiteralText("The statistics index is already being rebuilt."));
+    
     public static void register(@NotNull CommandDispatcher<ServerCommandSource> dispatcher) {
         ServerCore.register(dispatcher, "Stat", builder -> builder
+            .then(CommandManager.literal("top")
+                .then(CommandManager.argument("type", IdentifierArgumentType.identifier())
+                    .suggests(StatsCommand.INDEXED_TYPES)
+                    .then(CommandManager.argument("stat", IdentifierArgumentType.identifier())
+                        .suggests(StatsCommand.INDEXED_STATS)
+                        .then(CommandManager.argument("page", IntegerArgumentType.integer(1))
+                            .executes(context -> StatsCommand.getTopStat(context, IntegerArgumentType.getInteger(context, "page")))
+                        )
+                        .executes(context -> StatsCommand.getTopStat(context, 1))
+                    )
+                )
+            )
+            .then(CommandManager.literal("reindex")
+                .requires(CommandPredicate.opLevel(OpLevels.KICK_BAN_OP))
+                .executes(StatsCommand::reindexStats)
+            )
             .then(CommandManager.literal("killed")
                 .then(CommandManager.argument("entity", EntitySummonArgumentType.entitySummon())
                     .suggests(StatsCommand.KILLABLE_ENTITIES)
@@ -205,6 +242,72 @@ public final class StatsCommand {
         );
     }
     
+    private static int getTopStat(@NotNull CommandContext<ServerCommandSource> context, int page) throws CommandSyntaxException {
+        ServerCommandSource source = context.getSource();
+        MinecraftServer server = source.getServer();
+        Identifier typeId = IdentifierArgumentType.getIdentifier(context, "type");
+        Identifier statId = IdentifierArgumentType.getIdentifier(context, "stat");
+        
+        StatType<?> type = Registry.STAT_TYPE.get(typeId);
+        if (type == null || !StatisticsIndex.isIndexed(type) || !type.getRegistry().containsId(statId))
+            throw StatsCommand.UNKNOWN_STAT.create();
+        
+        // Rank the players off of the server thread, and only look up the names of the players on the page
+        StatisticsIndex.query(server, StatisticsIndex.getKey(typeId, statId), (page - 1) * StatsCommand.PAGE_SIZE, StatsCommand.PAGE_SIZE)
+            .thenAcceptAsync(result -> {
+                MutableText text = new LiteralText("Top players for ")
+                    .append(new LiteralText(statId.toString()).formatted(Formatting.AQUA))
+                    .append(" (" + typeId.getPath() + ")");
+                
+                if (result.players.isEmpty())
+                    text.append(": ").append(new LiteralText("Nobody").formatted(Formatting.GRAY));
+                else {
+                    text.append(", page ")
+                        .append(MessageUtils.formatNumber(page))
+                        .append(" of ")
+                        .append(MessageUtils.formatNumber((result.total + StatsCommand.PAGE_SIZE - 1) / StatsCommand.PAGE_SIZE))
+                        .append(":");
+                    
+                    for (int i = 0; i < result.players.size(); i++) {
+                        text.append("\n")
+                            .append(MessageUtils.formatNumber(result.offset + i + 1, Formatting.GOLD))
+                            .append(". ")
+                            .append(PlayerNameUtils.fetchPlayerNick(server, result.players.get(i)))
+                            .append(": ")
+                            .append(MessageUtils.formatNumber(result.values[i], Formatting.AQUA));
+                    }
+                }
+                
+                source.sendFeedback(text, false);
+            }, server)
+            .exceptionally(throwable -> {
+                CoreMod.logError("Failed to rank players by " + statId, throwable);
+                return null;
+            });
+        
+        return Command.SINGLE_SUCCESS;
+    }
+    private static int reindexStats(@NotNull CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        ServerCommandSource source = context.getSource();
+        MinecraftServer server = source.getServer();
+        
+        CompletableFuture<Integer> rebuild = StatisticsIndex.rebuild(server);
+        if (rebuild == null)
+            throw StatsCommand.ALREADY_INDEXING.create();
+        
+        source.sendFeedback(new LiteralText("Rebuilding the statistics index in the background.").formatted(Formatting.YELLOW), true);
+        rebuild.thenAcceptAsync(count -> source.sendFeedback(new LiteralText("Indexed the statistics of ")
+            .formatted(Formatting.YELLOW)
+            .append(MessageUtils.formatNumber(count))
+            .append(" players."), true), server)
+            .exceptionally(throwable -> {
+                server.execute(() -> source.sendError(new LiteralText("Failed to rebuild the statistics index, see console for errors.")));
+                return null;
+            });
+        
+        return Command.SINGLE_SUCCESS;
+    }
+    
     private static int getStatKilled(@NotNull CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
         EntityType<?> entity = StatsCommand.getEntityType(context, "entity");
         int count = StatsCommand.getStatOf(context.getSource(), Stats.KILLED, entity);
@@ -25,216 +25,200 @@
 
 package net.theelm.sewingmachine.commands;
 
+import com.mojang.authlib.GameProfile;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.BoolArgumentType;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import com.mojang.brigadier.tree.CommandNode;
+import net.theelm.sewingmachine.interfaces.BulkConfigList;
 import net.theelm.sewingmachine.interfaces.WhitelistedPlayer;
+import net.theelm.sewingmachine.mixins.Interfaces.WhitelistAccessor;
+import net.theelm.sewingmachine.objects.WhitelistGraph;
 import net.theelm.sewingmachine.utilities.PlayerNameUtils;
 import net.theelm.sewingmachine.utilities.text.MessageUtils;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.argument.GameProfileArgumentType;
 import net.minecraft.server.MinecraftServer;
-import net.minecraft.server.WhitelistEntry;
+import net.minecraft.server.Whitelist;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.text.LiteralText;
 import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
+import net.minecraft.text.TranslatableText;
 import net.minecraft.util.Formatting;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created on Apr 27 2022 at 12:32 AM.
  * By greg in SewingMachineMod
  */
-public final class WhitelistTree implements Comparable<WhitelistTree> {
-    private final @NotNull List<WhitelistTree> invited = new ArrayList<>();
-    private final @NotNull WhitelistedPlayer player;
-    private UUID invitedBy;
+public final class WhitelistTree {
+    private static final int PAGE_SIZE = 20;
+    private static final SimpleCommandExceptionType NOT_WHITELISTED = new SimpleCommandExceptionType(new TranslatableText("commands.whitelist.remove.failed"));
     
-    private WhitelistTree(@NotNull WhitelistedPlayer player) {
-        this.player = player;
-        this.invitedBy = player.getInvitedBy();
-    }
-    
-    public @NotNull UUID getUUID() {
-        return this.player.getUUID();
-    }
-    public @NotNull Text getName() {
-        return new LiteralText(this.player.getName());
-    }
-    public @NotNull Text getName(@NotNull MinecraftServer server) {
-        return this.getName(server, false);
-    }
-    public @NotNull Text getName(@NotNull MinecraftServer server, boolean pretty) {
-        Text name = pretty ? PlayerNameUtils.fetchPlayerNick(server, this.getUUID()) : this.getName();
-        if (name instanceof MutableText mutable && name.getStyle().isEmpty())
-            return mutable.formatted(Formatting.GOLD);
-        return name;
-    }
-    public @Nullable UUID getInvitedBy() {
-        return this.invitedBy;
-    }
-    public void resetInvited() {
-        this.invitedBy = null;
-    }
-    public boolean hasInvited() {
-        return !this.invited.isEmpty();
-    }
-    
-    public boolean addInvited(@NotNull WhitelistTree tree) {
-        return this.invited.add(tree);
-    }
+    private WhitelistTree() {}
     
-    public int count() {
-        return this.invited.size();
-    }
-    public int totalCount() {
-        int total = this.count();
-        for (WhitelistTree tree : this.invited)
-            total += tree.totalCount();
-        return total;
+    public static void register(@NotNull CommandDispatcher<ServerCommandSource> dispatcher) {
+        CommandNode<ServerCommandSource> whitelist = dispatcher.getRoot()
+            .getChild("whitelist");
+        if (whitelist == null)
+            return;
+        
+        whitelist.addChild(CommandManager.literal("tree")
+            .then(CommandManager.literal("of")
+                .then(CommandManager.argument("player", GameProfileArgumentType.gameProfile())
+                    .suggests(WhitelistTree::suggestWhitelisted)
+                    .then(CommandManager.argument("page", IntegerArgumentType.integer(1))
+                        .executes(context -> WhitelistTree.printSubtree(context, IntegerArgumentType.getInteger(context, "page")))
+                    )
+                    .executes(context -> WhitelistTree.printSubtree(context, 1))
+                )
+            )
+            .then(CommandManager.argument("pretty", BoolArgumentType.bool())
+                .then(CommandManager.argument("page", IntegerArgumentType.integer(1))
+                    .executes(context -> WhitelistTree.printTree(context, BoolArgumentType.getBool(context, "pretty"), IntegerArgumentType.getInteger(context, "page")))
+                )
+                .executes(context -> WhitelistTree.printTree(context, BoolArgumentType.getBool(context, "pretty"), 1))
+            )
+            .executes(context -> WhitelistTree.printTree(context, false, 1))
+            .build()
+        );
+        whitelist.addChild(CommandManager.literal("revoke")
+            .then(CommandManager.argument("player", GameProfileArgumentType.gameProfile())
+                .suggests(WhitelistTree::suggestWhitelisted)
+                .executes(WhitelistTree::revokeSubtree)
+            )
+            .build()
+        );
+    }
+    private static @NotNull CompletableFuture<Suggestions> suggestWhitelisted(@NotNull CommandContext<ServerCommandSource> context, @NotNull SuggestionsBuilder builder) {
+        return CommandSource.suggestMatching(context.getSource().getServer().getPlayerManager().getWhitelistedNames(), builder);
     }
     
-    public MutableText print(@NotNull ServerCommandSource source, boolean pretty) {
-        return this.print(source, pretty, 0);
+    private static int printTree(@NotNull CommandContext<ServerCommandSource> context, boolean pretty, int page) {
+        ServerCommandSource source = context.getSource();
+        
+        List<WhitelistGraph.Line> lines = WhitelistGraph.flatten(WhitelistGraph.getRoots());
+        WhitelistTree.printPage(source, new LiteralText("Whitelist: "), lines, pretty, page);
+        
+        return WhitelistGraph.size();
     }
-    public MutableText print(@NotNull ServerCommandSource source, boolean pretty, int depth) {
-        String prefix = StringUtils.repeat(' ', depth);
+    private static int printSubtree(@NotNull CommandContext<ServerCommandSource> context, int page) throws CommandSyntaxException {
+        ServerCommandSource source = context.getSource();
         
-        MutableText text = new LiteralText("\n" + prefix)
-            .append(MessageUtils.formatNumber(depth, Formatting.GRAY))
-            .append("|  ")
-            .append(this.getName(source.getServer(), pretty));
+        int count = 0;
+        for (GameProfile profile : GameProfileArgumentType.getProfileArgument(context, "player")) {
+            WhitelistedPlayer player = WhitelistGraph.get(profile.getId());
+            if (player == null)
+                throw WhitelistTree.NOT_WHITELISTED.create();
+            
+            // The player is already named in the title, so only the players beneath them are listed
+            List<WhitelistGraph.Line> lines = WhitelistGraph.flatten(Collections.singletonList(profile.getId()));
+            lines = lines.subList(1, lines.size());
+            WhitelistTree.printPage(source, new LiteralText("Invited by ").append(WhitelistTree.getName(source.getServer(), player, true)).append(": "), lines, true, page);
+            count += lines.size();
+        }
         
-        if (this.hasInvited())
-            text.append(" invited [")
-                .append(MessageUtils.formatNumber(this.count(), Formatting.AQUA))
-                .append("]..");
+        return count;
+    }
+    
+    /**
+     * Print a single page of the tree, only looking up the names of the players that are shown
+     * @param source The source to send the page to
+     * @param title The title shown before the tree
+     * @param lines All lines of the tree
+     * @param pretty If the nicknames of players should be shown
+     * @param page The page to show, starting at 1
+     */
+    private static void printPage(@NotNull ServerCommandSource source, @NotNull MutableText title, @NotNull List<WhitelistGraph.Line> lines, boolean pretty, int page) {
+        MinecraftServer server = source.getServer();
+        int pages = Math.max(1, (lines.size() + WhitelistTree.PAGE_SIZE - 1) / WhitelistTree.PAGE_SIZE);
+        page = Math.min(page, pages);
         
-        // Sort the list of invites
-        Collections.sort(this.invited);
+        int start = (page - 1) * WhitelistTree.PAGE_SIZE;
+        int end = Math.min(lines.size(), start + WhitelistTree.PAGE_SIZE);
         
-        Iterator<WhitelistTree> iterator = this.invited.listIterator();
-        for (int i = 0; iterator.hasNext(); i++) {
-            WhitelistTree tree = iterator.next();
+        MutableText text = title;
+        for (WhitelistGraph.Line line : lines.subList(start, end)) {
+            WhitelistedPlayer player = WhitelistGraph.get(line.uuid);
+            if (player == null)
+                continue;
             
-            if (tree.hasInvited() || i == 0)
-                text.append(tree.print(source, pretty, depth + 1));
-            else {
-                text.append(" ")
-                    .append(tree.getName(source.getServer(), pretty));
-            }
+            text.append("\n" + StringUtils.repeat(' ', line.depth))
+                .append(MessageUtils.formatNumber(line.depth, Formatting.GRAY))
+                .append("|  ")
+                .append(WhitelistTree.getName(server, player, pretty));
             
-            if (iterator.hasNext() && !tree.hasInvited())
-                text.append(",");
+            if (line.invited > 0)
+                text.append(" invited [")
+                    .append(MessageUtils.formatNumber(line.invited, Formatting.AQUA))
+                    .append("]..");
         }
         
-        return text;
-    }
-    
-    @Override
-    public boolean equals(Object obj) {
-        return obj instanceof WhitelistTree tree && Objects.equals(tree.getUUID(), this.getUUID());
-    }
-    
-    @Override
-    public int hashCode() {
-        return this.player.getUUID()
-            .hashCode();
+        if (pages > 1)
+            text.append("\nPage ")
+                .append(MessageUtils.formatNumber(page, Formatting.AQUA))
+                .append(" of ")
+                .append(MessageUtils.formatNumber(pages, Formatting.AQUA));
+        
+        source.sendFeedback(text, false);
     }
-    
-    @Override
-    public int compareTo(@NotNull WhitelistTree tree) {
-        return Integer.compare(this.totalCount(), tree.totalCount());
+    private static @NotNull Text getName(@NotNull MinecraftServer server, @NotNull WhitelistedPlayer player, boolean pretty) {
+        Text name;
+        if (pretty)
+            name = PlayerNameUtils.fetchPlayerNick(server, player.getUUID());
+        else name = new LiteralText(player.getName() == null ? player.getUUID().toString() : player.getName());
+        
+        if (name instanceof MutableText mutable && name.getStyle().isEmpty())
+            return mutable.formatted(Formatting.GOLD);
+        return name;
     }
     
-    public static void register(@NotNull CommandDispatcher<ServerCommandSource> dispatcher) {
-        CommandNode<ServerCommandSource> whitelist = dispatcher.getRoot()
-            .getChild("whitelist");
-        if (whitelist != null)
-            whitelist.addChild(CommandManager.literal("tree")
-                .then(CommandManager.argument("pretty", BoolArgumentType.bool())
-                    .executes(WhitelistTree::prettyPrintTree)
-                )
-                .executes(WhitelistTree::printTree)
-                .build()
-            );
-    }
-    private static int prettyPrintTree(@NotNull CommandContext<ServerCommandSource> context) {
-        return WhitelistTree.printTree(context, BoolArgumentType.getBool(context, "pretty"));
-    }
-    private static int printTree(@NotNull CommandContext<ServerCommandSource> context) {
-        return WhitelistTree.printTree(context, false);
-    }
-    private static int printTree(@NotNull CommandContext<ServerCommandSource> context, boolean pretty) {
+    /**
+     * Remove a player from the whitelist, along with everyone that they invited
+     */
+    @SuppressWarnings("unchecked")
+    private static int revokeSubtree(@NotNull CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
         ServerCommandSource source = context.getSource();
         MinecraftServer server = source.getServer();
-        Collection<WhitelistEntry> whitelist = server.getPlayerManager()
-            .getWhitelist()
-            .values();
-        
-        List<WhitelistTree> main = new ArrayList<>();
-        Map<UUID, WhitelistTree> all = whitelist.stream()
-            .map(entry -> (WhitelistedPlayer)entry)
-            .collect(Collectors.toMap(WhitelistedPlayer::getUUID, WhitelistTree::new));
+        Whitelist whitelist = server.getPlayerManager()
+            .getWhitelist();
         
-        // Clean up circular invites
-        cleanup:
-        for (Map.Entry<UUID, WhitelistTree> entry : all.entrySet()) {
-            final WhitelistTree self = entry.getValue();
-            WhitelistTree tree = self;
+        List<GameProfile> revoke = new ArrayList<>();
+        for (GameProfile profile : GameProfileArgumentType.getProfileArgument(context, "player")) {
+            if (!WhitelistGraph.contains(profile.getId()))
+                throw WhitelistTree.NOT_WHITELISTED.create();
             
-            int i = 0;
-            do {
-                UUID inviteeId = tree.getInvitedBy();
-                if (inviteeId == null)
-                    continue cleanup;
-                
-                tree = all.get(inviteeId);
-                if (tree == null || tree.getInvitedBy() == null)
-                    continue cleanup;
-                
-                if (Objects.equals(self.getUUID(), tree.getInvitedBy())) {
-                    self.resetInvited();
-                    tree.resetInvited();
-                }
-            } while(i++ < 20);
+            revoke.add(profile);
+            for (UUID uuid : WhitelistGraph.getSubtree(profile.getId()))
+                revoke.add(WhitelistTree.getProfile(WhitelistGraph.get(uuid)));
         }
         
-        // Add each entry into the output
-        for (Map.Entry<UUID, WhitelistTree> entry : all.entrySet()) {
-            WhitelistTree tree = entry.getValue();
-            WhitelistTree invitee;
-
-            UUID inviteeId = tree.getInvitedBy();
-            if (inviteeId == null || ((invitee = all.get(inviteeId)) == null))
-                main.add(tree);
-            else
-                invitee.addInvited(tree);
-        }
+        // Removed all at once, so the whitelist is only saved once
+        int removed = ((BulkConfigList<GameProfile>)whitelist).removeAll(revoke);
         
-        MutableText text = new LiteralText("Whitelist: ");
-        if (!main.isEmpty()) {
-            Collections.sort(main);
-            
-            for (WhitelistTree tree : main) {
-                text.append(tree.print(source, pretty));
-            }
-        }
+        source.sendFeedback(new LiteralText("Removed ")
+            .append(MessageUtils.formatNumber(removed, Formatting.AQUA))
+            .append(" players from the whitelist."), true);
+        server.kickNonWhitelistedPlayers(source);
         
-        source.sendFeedback(text, false);
-        return whitelist.size();
+        return removed;
+    }
+    @SuppressWarnings("unchecked")
+    private static @NotNull GameProfile getProfile(@NotNull WhitelistedPlayer player) {
+        return ((WhitelistAccessor<GameProfile>)player).getObject();
     }
 }
@@ -28,18 +28,16 @@ package net.theelm.sewingmachine.config;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import com.google.gson.JsonPrimitive;
 import net.theelm.sewingmachine.CoreMod;
 import net.theelm.sewingmachine.config.addons.SewBluemapConfig;
+import net.theelm.sewingmachine.objects.BlockLocks;
 import net.theelm.sewingmachine.objects.ChatFormat;
+import net.theelm.sewingmachine.objects.ItemDespawnTimes;
 import net.theelm.sewingmachine.protections.logging.EventLogger.LoggingIntervals;
 import net.theelm.sewingmachine.utilities.DevUtils;
-import net.theelm.sewingmachine.utilities.EntityUtils;
 import net.theelm.sewingmachine.utilities.FormattingUtils;
-import net.theelm.sewingmachine.utilities.IntUtils;
 import net.minecraft.entity.EntityType;
 import net.minecraft.item.Item;
 import net.minecraft.util.Identifier;
@@ -66,8 +64,6 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public final class SewConfig extends SewConfigContainer {
     private static final SewConfig INSTANCE = new SewConfig();
@@ -122,6 +118,7 @@ public final class SewConfig extends SewConfigContainer {
     public static final ConfigOption<Integer> MAX_DEATH_SCAN = SewConfig.addConfig(ConfigOption.json("death_chest.max_distance", 4));
     public static final ConfigOption<Integer> MAX_DEATH_ELEVATION = SewConfig.addConfig(ConfigOption.json("death_chest.max_elevation", -1));
     public static final ConfigOption<Boolean> PRINT_DEATH_CHEST_LOC = SewConfig.addConfig(ConfigOption.json("death_chest.print_coordinates", true));
+    public static final ConfigOption<Integer> DEATH_ARCHIVE_LIMIT = SewConfig.addConfig(ConfigOption.json("death_chest.archive_limit", 20));
     
     // Player Combat
     public static final ConfigOption<Boolean> PVP_DISABLE_DEATH_CHEST = SewConfig.addConfig(ConfigOption.json("player.pvp.no_death_chest", true));
@@ -173,6 +170,8 @@ public final class SewConfig extends SewConfigContainer {
     public static final ConfigOption<Integer> CLAIM_OP_LEVEL_SPAWN = SewConfig.addConfig(ConfigOption.json("claims.op_level.spawn", 1));
     public static final ConfigOption<Integer> CLAIM_OP_LEVEL_OTHER = SewConfig.addConfig(ConfigOption.json("claims.op_level.other_player", 1));
     
+    public static final ConfigOption<BlockLocks> CLAIM_BLOCK_LOCKS = SewConfig.addConfig(new ConfigOption<>("claims.locks", new BlockLocks(), BlockLocks::parse, BlockLocks::serializer));
+    
     // Claim Regions
     public static final ConfigOption<Integer> MAXIMUM_REGION_WIDTH = SewConfig.addConfig(ConfigOption.json("claims.regions.max_width", 32));
     public static final ConfigOption<Integer> MINIMUM_REGION_WIDTH = SewConfig.addConfig(ConfigOption.json("claims.regions.min_width", 3));
@@ -304,7 +303,13 @@ public final class SewConfig extends SewConfigContainer {
      * Miscellaneous
      */
     
-    public static final ConfigOption<Map<Item, Integer>> ITEM_DESPAWN_TIMES = SewConfig.addConfig(new ConfigOption<>("server.items.despawn", new HashMap<>(), SewConfig::getItemDespawnMap));
+    public static final ConfigOption<ItemDespawnTimes> ITEM_DESPAWN_TIMES = SewConfig.addConfig(new ConfigOption<>("server.items.despawn", new ItemDespawnTimes(), ItemDespawnTimes::parse, ItemDespawnTimes::serializer));
+    public static final ConfigOption<Integer> EXPERIENCE_CLUMP_INTERVAL = SewConfig.addConfig(ConfigOption.json("server.experience.clump_interval", 4, 1, 1200));
+    public static final ConfigOption<Integer> EXPERIENCE_CLUMP_LIMIT = SewConfig.addConfig(ConfigOption.json("server.experience.clump_limit", 2048, 0, Integer.MAX_VALUE));
+    
+    public static final ConfigOption<Integer> VEIN_MINER_LIMIT = SewConfig.addConfig(ConfigOption.json("server.chain_breaking.vein_miner_limit", 64, 1, 4096));
+    public static final ConfigOption<Integer> TREE_CAPACITATOR_LIMIT = SewConfig.addConfig(ConfigOption.json("server.chain_breaking.tree_capacitator_limit", 256, 1, 4096));
+    public static final ConfigOption<Integer> CHAIN_BREAKS_PER_TICK = SewConfig.addConfig(ConfigOption.json("server.chain_breaking.blocks_per_tick", 4, 1, 256));
     
     public static final ConfigOption<Boolean> OVERWORLD_PORTAL_LOC = SewConfig.addConfig(ConfigOption.json("fun.world.portal_fix.overworld", false));
     public static final ConfigOption<Boolean> NETHER_PORTAL_LOC = SewConfig.addConfig(ConfigOption.json("fun.world.portal_fix.nether", true));
@@ -564,44 +569,6 @@ public final class SewConfig extends SewConfigContainer {
         return out;
     }
     
-    private static Map<Item, Integer> getItemDespawnMap(JsonElement root) {
-        Map<Item, Integer> out = new HashMap<>();
-        Pattern pattern = Pattern.compile("^([0-9]+)([smhd])$");
-        
-        // Parse each object in the array
-        JsonObject list = root.getAsJsonObject();
-        for ( Map.Entry<String, JsonElement> row : list.entrySet() ) {
-            String token = row.getKey();
-            Optional<Item> optional = Registry.ITEM.getOrEmpty(new Identifier(token));
-            
-            JsonElement element = row.getValue();
-            
-            optional.ifPresentOrElse(item -> {
-                Integer ticks = EntityUtils.DEFAULT_DESPAWN_TICKS;
-                if (element instanceof JsonNull)
-                    ticks = null;
-                else if (element instanceof JsonPrimitive primitive) {
-                    if (primitive.isNumber())
-                        ticks = primitive.getAsInt();
-                    else if (primitive.isString()) {
-                        String string = primitive.getAsString();
-                        Matcher matcher = pattern.matcher(string);
-                        if (!matcher.matches())
-                            ticks = primitive.getAsInt();
-                        else {
-                            int duration = Integer.parseInt(matcher.group(1));
-                            ticks = IntUtils.convertToTicks(duration, IntUtils.getTimeUnit(matcher.group(2)));
-                        }
-                    }
-                }
-                
-                out.put(item, ticks);
-            }, () -> CoreMod.logError(""));
-        }
-        
-        return out;
-    }
-    
     private static LoggingIntervals getAsTimeInterval(JsonElement element) {
         if (!LoggingIntervals.contains(element.getAsString()))
             throw new RuntimeException( "Unacceptable time interval \"" + element.getAsString() + "\"" );
@@ -29,7 +29,6 @@ import com.google.gson.JsonSyntaxException;
 import com.mojang.datafixers.util.Either;
 import net.theelm.sewingmachine.CoreMod;
 import net.theelm.sewingmachine.config.SewConfig;
-import net.theelm.sewingmachine.exceptions.NbtNotFoundException;
 import net.theelm.sewingmachine.exceptions.NotEnoughMoneyException;
 import net.theelm.sewingmachine.exceptions.ShopBuilderException;
 import net.theelm.sewingmachine.interfaces.BackpackCarrier;
@@ -39,8 +38,8 @@ import net.theelm.sewingmachine.interfaces.LogicalWorld;
 import net.theelm.sewingmachine.interfaces.PlayerData;
 import net.theelm.sewingmachine.interfaces.ShopSignData;
 import net.theelm.sewingmachine.objects.PlayerBackpack;
-import net.theelm.sewingmachine.objects.ShopCraftAction;
 import net.theelm.sewingmachine.objects.ShopStats;
+import net.theelm.sewingmachine.objects.ShopTransaction;
 import net.theelm.sewingmachine.objects.ticking.ClaimCache;
 import net.theelm.sewingmachine.objects.ticking.WaystoneSearch;
 import net.theelm.sewingmachine.protections.BlockRange;
@@ -66,7 +65,6 @@ import net.minecraft.block.entity.LootableContainerBlockEntity;
 import net.minecraft.block.entity.SignBlockEntity;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.network.MessageType;
-import net.minecraft.recipe.Recipe;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
@@ -86,7 +84,6 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.text.NumberFormat;
-import java.util.List;
 import java.util.Objects;
 
 public enum ShopSigns {
@@ -162,70 +159,33 @@ public enum ShopSigns {
                 }
                 
                 /*
-                 * Transfer the items from chest to player
+                 * Transfer the items from player to chest
                  */
-                try {
-                    // Take shop keepers money
-                    if (!(sign.isInfinite() || MoneyUtils.takePlayerMoney(sign.getShopOwner(), sign.getShopItemPrice())))
-                        return Either.left(TranslatableServerSide.text(player, "shop.error.money_chest"));
-                    
-                    // Put players item into chest
-                    if (!InventoryUtils.playerToChest(player, signPos, player.getInventory(), chestInventory, sign::itemMatchPredicate, sign.getShopItemCount(), true)) {
-                        boolean crafted = false;
-                        
-                        List<? extends Recipe<?>> recipes = sign.getShopItemRecipes();
-                        if (sign.isInfinite() && recipes != null) {
-                            for (Recipe<?> recipe : recipes) {
-                                ShopCraftAction craft = new ShopCraftAction(recipe, sign, signPos, chestInventory);
-                                
-                                if (craft.craft(player)) {
-                                    crafted = true;
-                                    break;
-                                }
-                            }
-                        }
-                        
-                        if (!crafted) {
-                            // Refund the shopkeeper
-                            if (!sign.isInfinite())
-                                MoneyUtils.givePlayerMoney(sign.getShopOwner(), sign.getShopItemPrice());
-                            
-                            // Error message
-                            return Either.left(TranslatableServerSide.text(player, "shop.error.stock_player", sign.getShopItemDisplay()));
-                        }
-                    }
-                    
-                    // Give player money for item
-                    MoneyUtils.givePlayerMoney(player, sign.getShopItemPrice());
-                    
-                    // Get shop owner
-                    ClaimCache claimCache = ((ClaimsAccessor)server).getClaimManager();
-                    ClaimantPlayer permissions = claimCache.getPlayerClaim(sign.getShopOwner());
-                    
-                    // Tell the player
-                    TitleUtils.showPlayerAlert(
-                        player,
-                        Formatting.YELLOW,
-                        new LiteralText("You sold "),
-                        new LiteralText(FormattingUtils.format( sign.getShopItemCount() ) + " ").formatted(Formatting.AQUA),
-                        new TranslatableText(sign.getShopItemTranslationKey()).formatted(Formatting.AQUA),
-                        new LiteralText(" to "),
-                        permissions.getName().formatted(Formatting.AQUA)
-                    );
-                    
-                    // Log the event
-                    CoreMod.logInfo(player.getName().getString() + " sold " + FormattingUtils.format(sign.getShopItemCount()) + " " + sign.getShopItemIdentifier() + " for $" + FormattingUtils.format(sign.getShopItemPrice()) + " to " + permissions.getName().getString());
-                    player.increaseStat(ShopStats.SHOP_TYPE_SOLD.getOrCreateStat(sign.getShopItem()), sign.getShopItemCount());
-                    
-                    return Either.right(true);
-                    
-                } catch ( NbtNotFoundException e ) {
-                    CoreMod.logError("Failed to give " + sign.getShopItemPrice() + " money to \"" + sign.getShopOwner() + "\" (Maybe they haven't joined the server?).");
-                    // If a database problem occurs
-                    return Either.left(TranslatableServerSide.text(player, "shop.error.database"));
-                } catch ( NotEnoughMoneyException e ) {
-                    return Either.left(TranslatableServerSide.text(player, "shop.error.money_chest"));
-                }
+                Text error = ShopTransaction.sell(player, signPos, sign, chestInventory)
+                    .apply();
+                if (error != null)
+                    return Either.left(error);
+                
+                // Get shop owner
+                ClaimCache claimCache = ((ClaimsAccessor)server).getClaimManager();
+                ClaimantPlayer permissions = claimCache.getPlayerClaim(sign.getShopOwner());
+                
+                // Tell the player
+                TitleUtils.showPlayerAlert(
+                    player,
+                    Formatting.YELLOW,
+                    new LiteralText("You sold "),
+                    new LiteralText(FormattingUtils.format( sign.getShopItemCount() ) + " ").formatted(Formatting.AQUA),
+                    new TranslatableText(sign.getShopItemTranslationKey()).formatted(Formatting.AQUA),
+                    new LiteralText(" to "),
+                    permissions.getName().formatted(Formatting.AQUA)
+                );
+                
+                // Log the event
+                CoreMod.logInfo(player.getName().getString() + " sold " + FormattingUtils.format(sign.getShopItemCount()) + " " + sign.getShopItemIdentifier() + " for $" + FormattingUtils.format(sign.getShopItemPrice()) + " to " + permissions.getName().getString());
+                player.increaseStat(ShopStats.SHOP_TYPE_SOLD.getOrCreateStat(sign.getShopItem()), sign.getShopItemCount());
+                
+                return Either.right(true);
             }
             return Either.right(false);
         }
@@ -311,55 +271,36 @@ public enum ShopSigns {
                         return Either.left(TranslatableServerSide.text(player, "shop.error.stock_chest", sign.getShopItemDisplay()));
                 }
                 
-                try {
-                    // Take the players money
-                    if (!MoneyUtils.takePlayerMoney(player, sign.getShopItemPrice()))
-                        return Either.left(TranslatableServerSide.text(player, "shop.error.money_player"));
-                    
-                    // Give item to player from chest
-                    if (!InventoryUtils.chestToPlayer(player, signPos, chestInventory, player.getInventory(), sign::itemMatchPredicate, sign.getShopItemCount(), true, sign::createItemStack)) {
-                        // Refund the player
-                        MoneyUtils.givePlayerMoney(player, sign.getShopItemPrice());
-                        
-                        // Error message
-                        return Either.left(TranslatableServerSide.text(player, "shop.error.stock_chest", sign.getShopItemDisplay()));
-                    }
-                    
-                    player.playSound( SoundEvents.ENTITY_ITEM_PICKUP, SoundCategory.BLOCKS, 1.0f, 1.0f );
-                    
-                    // Give the shop keeper money
-                    if (!sign.isInfinite()) {
-                        try {
-                            MoneyUtils.givePlayerMoney(sign.getShopOwner(), sign.getShopItemPrice());
-                        } catch (NbtNotFoundException e) {
-                            CoreMod.logError("Failed to give " + sign.getShopItemPrice() + " money to \"" + sign.getShopOwner() + "\" (Maybe they haven't joined the server?).");
-                        }
-                    }
-                    
-                    // Get the shop owner
-                    ClaimCache claimCache = ((ClaimsAccessor)server).getClaimManager();
-                    ClaimantPlayer permissions = claimCache.getPlayerClaim(sign.getShopOwner());
-                    
-                    // Tell the player
-                    TitleUtils.showPlayerAlert(
-                        player,
-                        Formatting.YELLOW,
-                        new LiteralText("You bought "),
-                        new LiteralText(FormattingUtils.format( sign.getShopItemCount() ) + " ").formatted(Formatting.AQUA),
-                        new TranslatableText(sign.getShopItemTranslationKey()).formatted(Formatting.AQUA),
-                        new LiteralText(" from "),
-                        permissions.getName().formatted(Formatting.AQUA)
-                    );
-                    
-                    // Log the event
-                    CoreMod.logInfo(player.getName().getString() + " bought " + FormattingUtils.format( sign.getShopItemCount() ) + " " + sign.getShopItemIdentifier() + " for $" + FormattingUtils.format( sign.getShopItemPrice() ) + " from " + permissions.getName().getString() );
-                    player.increaseStat(ShopStats.SHOP_TYPE_BOUGHT.getOrCreateStat(sign.getShopItem()), sign.getShopItemCount());
-                    
-                    return Either.right(true);
-                    
-                } catch (NotEnoughMoneyException e) {
-                    return Either.left(TranslatableServerSide.text(player, "shop.error.money_player"));
-                }
+                /*
+                 * Transfer the items from chest to player
+                 */
+                Text error = ShopTransaction.buy(player, signPos, sign, chestInventory)
+                    .apply();
+                if (error != null)
+                    return Either.left(error);
+                
+                player.playSound( SoundEvents.ENTITY_ITEM_PICKUP, SoundCategory.BLOCKS, 1.0f, 1.0f );
+                
+                // Get the shop owner
+                ClaimCache claimCache = ((ClaimsAccessor)server).getClaimManager();
+                ClaimantPlayer permissions = claimCache.getPlayerClaim(sign.getShopOwner());
+                
+                // Tell the player
+                TitleUtils.showPlayerAlert(
+                    player,
+                    Formatting.YELLOW,
+                    new LiteralText("You bought "),
+                    new LiteralText(FormattingUtils.format( sign.getShopItemCount() ) + " ").formatted(Formatting.AQUA),
+                    new TranslatableText(sign.getShopItemTranslationKey()).formatted(Formatting.AQUA),
+                    new LiteralText(" from "),
+                    permissions.getName().formatted(Formatting.AQUA)
+                );
+                
+                // Log the event
+                CoreMod.logInfo(player.getName().getString() + " bought " + FormattingUtils.format( sign.getShopItemCount() ) + " " + sign.getShopItemIdentifier() + " for $" + FormattingUtils.format( sign.getShopItemPrice() ) + " from " + permissions.getName().getString() );
+                player.increaseStat(ShopStats.SHOP_TYPE_BOUGHT.getOrCreateStat(sign.getShopItem()), sign.getShopItemCount());
+                
+                return Either.right(true);
             }
             return Either.right( false );
         }
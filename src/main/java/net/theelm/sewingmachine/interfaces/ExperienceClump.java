@@ -0,0 +1,51 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.interfaces;
+
+import net.minecraft.entity.ExperienceOrbEntity;
+import org.jetbrains.annotations.NotNull;
+
+public interface ExperienceClump {
+    
+    /**
+     * Get the total experience held by the orb, including any orbs that vanilla has already stacked into it
+     * @return The experience amount
+     */
+    int getTotalExperience();
+    
+    /**
+     * Get how many ticks the orb has existed for
+     * @return The age of the orb
+     */
+    int getOrbAge();
+    
+    /**
+     * Merge the experience of another orb into this orb, the other orb is discarded
+     * @param orb The orb to absorb
+     */
+    void absorb(@NotNull ExperienceOrbEntity orb);
+    
+}
@@ -101,6 +101,7 @@ public interface IClaimedChunk {
         return chunkPlayer.getName(zonePlayer);
     }
     
+    @NotNull Claim getClaim(@NotNull BlockPos blockPos);
     boolean canPlayerDo(@NotNull BlockPos blockPos, @Nullable UUID player, @Nullable ClaimPermissions perm);
     boolean isSetting(@NotNull BlockPos pos, @NotNull ClaimSettings setting);
     
@@ -25,7 +25,12 @@
 
 package net.theelm.sewingmachine.interfaces;
 
+import net.theelm.sewingmachine.objects.AnimalCensus;
+import net.theelm.sewingmachine.objects.CampfireRegistry;
 import net.theelm.sewingmachine.objects.DetachedTickableContext;
+import net.theelm.sewingmachine.objects.ExperienceClumps;
+import net.theelm.sewingmachine.objects.PlayerSpatialIndex;
+import net.theelm.sewingmachine.objects.ShopRegistry;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.function.Predicate;
@@ -34,4 +39,14 @@ public interface LogicalWorld {
     
     @NotNull DetachedTickableContext addTickableEvent(@NotNull Predicate<TickableContext> predicate);
     
+    @NotNull PlayerSpatialIndex getPlayerIndex();
+    
+    @NotNull ShopRegistry getShopRegistry();
+    
+    @NotNull AnimalCensus getAnimalCensus();
+    
+    @NotNull ExperienceClumps getExperienceClumps();
+    
+    @NotNull CampfireRegistry getCampfires();
+    
 }
@@ -112,4 +112,5 @@ public interface PlayerData {
         return this.findPathToAny(ImmutableSet.of(pos), 16, true, distance);
     }
     @Nullable Path findPathToAny(Set<BlockPos> positions, int range, boolean bl, int distance);
+    void setTrailTarget(@Nullable BlockPos pos);
 }
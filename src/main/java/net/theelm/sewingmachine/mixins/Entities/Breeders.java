@@ -25,76 +25,67 @@
 
 package net.theelm.sewingmachine.mixins.Entities;
 
-import net.theelm.sewingmachine.utilities.EntityUtils;
-import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
+import net.theelm.sewingmachine.interfaces.AutoBreeder;
+import net.theelm.sewingmachine.interfaces.LogicalWorld;
+import net.theelm.sewingmachine.objects.AnimalCensus;
 import net.minecraft.entity.EntityType;
+import net.minecraft.entity.damage.DamageSource;
 import net.minecraft.entity.passive.AnimalEntity;
 import net.minecraft.entity.passive.PassiveEntity;
-import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
-import net.minecraft.util.math.Box;
 import net.minecraft.world.World;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
-import java.util.List;
-import java.util.Objects;
-
 /**
  * Created on Apr 24 2022 at 11:53 PM.
  * By greg in SewingMachineMod
  */
 @Mixin(AnimalEntity.class)
-public abstract class Breeders extends PassiveEntity {
+public abstract class Breeders extends PassiveEntity implements AutoBreeder {
+    private static final int CENSUS_INTERVAL = 20;
+    
     private boolean autoBreed = false;
-    private int breedAttemptTick = 0;
     
     @Shadow public abstract boolean canEat();
-    @Shadow public abstract void lovePlayer(@Nullable PlayerEntity player);
-    @Shadow public abstract boolean canBreedWith(AnimalEntity other);
     
     protected Breeders(EntityType<? extends PassiveEntity> entityType, World world) {
         super(entityType, world);
     }
     
     /**
-     * During the mob tick check if this animal can breed automatically (Keep pens stocked!)
+     * During the mob tick keep this animal counted in its pen, and let breeders start the pens cycle (Keep pens stocked!)
      * @param callback The Mixin Callback
      */
     @Inject(at = @At("TAIL"), method = "mobTick")
     private void onMobTick(CallbackInfo callback) {
-        if (!this.world.isClient && this.autoBreed && this.getBreedingAge() == 0 && this.canEat()) {
-            if (this.breedAttemptTick++ >= 1100) {
-                if (this.random.nextBoolean()) {
-                    AnimalEntity mate = this.getNearbyMate();
-                    if (mate != null) {
-                        mate.lovePlayer(null);
-                        this.lovePlayer(null);
-                    }
-                }
-                this.breedAttemptTick = 0;
-            }
+        // Staggered by the entity id so the animals in a pen don't all update on the same tick
+        if (!this.world.isClient && (this.age + this.getId()) % Breeders.CENSUS_INTERVAL == 0) {
+            AnimalCensus census = ((LogicalWorld) this.world).getAnimalCensus();
+            AnimalCensus.Pen pen = census.update((AnimalEntity)(Object) this);
+            
+            // The pen pairs up every breeder at once when it is due
+            if (this.autoBreed && this.getBreedingAge() == 0 && this.canEat())
+                census.breed(pen, this.world.getTime(), this.random);
         }
     }
     
-    /**
-     * Find a compatible mob nearby that can be mated with
-     * @return The mate
-     */
-    private @Nullable AnimalEntity getNearbyMate() {
-        Box box = Box.of(this.getPos(), 8, 2, 8);
-        List<AnimalEntity> entities = this.world.getEntitiesByClass(AnimalEntity.class, box, animal -> Objects.equals(animal.getClass(), this.getClass()));
-        if (entities.isEmpty() || entities.size() > 20)
-            return null;
-        return entities.stream()
-            .filter(mate -> EntityUtils.areBreedable(this, mate))
-            .findAny().orElse(null);
+    @Override
+    public void onDeath(DamageSource source) {
+        super.onDeath(source);
+        if (!this.world.isClient)
+            ((LogicalWorld) this.world).getAnimalCensus()
+                .remove((AnimalEntity)(Object) this);
+    }
+    
+    @Override
+    public boolean isAutoBreeding() {
+        return this.autoBreed;
     }
     
     @Inject(at = @At("TAIL"), method = "writeCustomDataToNbt")
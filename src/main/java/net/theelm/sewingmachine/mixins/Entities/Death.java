@@ -27,9 +27,9 @@ package net.theelm.sewingmachine.mixins.Entities;
 
 import net.theelm.sewingmachine.ServerCore;
 import net.theelm.sewingmachine.config.SewConfig;
+import net.theelm.sewingmachine.objects.SpawnerData;
 import net.theelm.sewingmachine.utilities.EntityUtils;
 import net.theelm.sewingmachine.utilities.WarpUtils;
-import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
 import net.minecraft.advancement.criterion.Criteria;
 import net.minecraft.enchantment.EnchantmentHelper;
 import net.minecraft.enchantment.Enchantments;
@@ -44,9 +44,6 @@ import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.nbt.NbtCompound;
-import net.minecraft.nbt.NbtElement;
-import net.minecraft.nbt.NbtList;
-import net.minecraft.nbt.NbtString;
 import net.minecraft.particle.ParticleTypes;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
@@ -95,23 +92,18 @@ public abstract class Death extends Entity {
         if (!(damageSource.getAttacker() instanceof ServerPlayerEntity player))
             return;
         
-        NbtCompound spawnerTag;
-        
-        // Get the attacker
+        // Get the spawner in the attackers offhand
         ItemStack itemStack = player.getStackInHand(Hand.OFF_HAND);
-        if ((!(itemStack.getItem().equals(Items.SPAWNER))) || ((spawnerTag = itemStack.getNbt()) == null) || ((spawnerTag = spawnerTag.copy()) == null) || (!spawnerTag.contains("EntityIds", NbtElement.LIST_TYPE)))
+        SpawnerData spawnerData = SpawnerData.fromItem(itemStack);
+        if (spawnerData == null)
             return;
         
         // Check if mob type is allowed to be spawned
         if (!EntityUtils.canBeSpawnered(this))
             return;
         
-        // Get the identifier of the mob we killed
+        // Get the type of the mob we killed
         EntityType<?> type = this.getType();
-        NbtString mobId = NbtString.of(EntityType.getId(type).toString());
-        
-        // Get current entity IDs
-        NbtList entityIds = spawnerTag.getList("EntityIds", NbtElement.STRING_TYPE);
         int rolls = 1 + EnchantmentHelper.getLevel(Enchantments.LOOTING, player.getMainHandStack());
         
         // Spawn particles
@@ -128,13 +120,12 @@ public abstract class Death extends Entity {
         
         for (int roll = 0; roll < rolls; ++roll) {
             // Test the odds
-            if ((!entityIds.contains(mobId)) && (player.world.getRandom().nextInt(800) == 0)) {
+            if ((!spawnerData.contains(type)) && (player.world.getRandom().nextInt(800) == 0)) {
                 // Add mob to the list
-                entityIds.add(mobId);
-                
-                // Update the dropped items tag
-                spawnerTag.put("EntityIds", entityIds);
-                spawnerTag.put("display", NbtUtils.getSpawnerDisplay(entityIds));
+                NbtCompound spawnerTag = itemStack.getOrCreateNbt()
+                    .copy();
+                spawnerData.with(type)
+                    .writeItem(spawnerTag);
                 
                 // Play sound
                 player.playSound(SoundEvents.UI_TOAST_CHALLENGE_COMPLETE, SoundCategory.MASTER, 1.0f, 1.0f);
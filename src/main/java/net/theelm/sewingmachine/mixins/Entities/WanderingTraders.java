@@ -29,7 +29,7 @@ import com.google.common.collect.ImmutableMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import net.theelm.sewingmachine.config.SewConfig;
-import net.theelm.sewingmachine.objects.WanderingTraderProfileCollection;
+import net.theelm.sewingmachine.objects.WanderingTraderPresence;
 import net.theelm.sewingmachine.utilities.EntityUtils;
 import net.theelm.sewingmachine.utilities.IntUtils;
 import net.theelm.sewingmachine.utilities.TradeUtils;
@@ -38,7 +38,6 @@ import net.minecraft.entity.EntityType;
 import net.minecraft.entity.passive.MerchantEntity;
 import net.minecraft.entity.passive.WanderingTraderEntity;
 import net.minecraft.item.Items;
-import net.minecraft.network.packet.s2c.play.PlayerListS2CPacket;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.village.TradeOffer;
@@ -66,6 +65,9 @@ public abstract class WanderingTraders extends MerchantEntity {
     @Shadow
     private native int getDespawnDelay();
     
+    // If the trader has been checked for being shown since it was loaded
+    private boolean sewPresenceChecked = false;
+    
     /*
      * Created customized traders for the trader
      */
@@ -98,30 +100,25 @@ public abstract class WanderingTraders extends MerchantEntity {
      */
     @Inject(at = @At("RETURN"), method = "tickDespawnDelay")
     private void onTickDespawning(CallbackInfo callback) {
-        boolean sendPacket = false;
         int despawn = this.getDespawnDelay();
-        if (despawn >= 0) {
-            // If despawn time remaining is over a minute, run every 1m
-            if (despawn >= 1200 && despawn % 1200 == 0) {
-                // If this entity is THE wandering trader
-                if ((sendPacket = EntityUtils.isEntityWanderingTrader(this)) && despawn % 12000 == 0)
-                    EntityUtils.wanderingTraderTimeRemaining((WanderingTraderEntity) (Entity) this);
-            }
-            // If despawn time remaining is less than a minute, run every 2s
-            else if (despawn < 1200 && despawn % 20 == 0) {
-                // If this entity is THE wandering trader
-                sendPacket = EntityUtils.isEntityWanderingTrader(this);
-            }
-        }
+        MinecraftServer server = this.getServer();
+        if (despawn < 0 || server == null)
+            return;
         
-        if (sendPacket) {
-            // Update the player list time
-            MinecraftServer server = this.getServer();
-            if (server != null) {
-                server.getPlayerManager()
-                    .sendToAll(new WanderingTraderProfileCollection(this).getPacket(PlayerListS2CPacket.Action.UPDATE_DISPLAY_NAME));
-            }
+        WanderingTraderEntity trader = (WanderingTraderEntity) (Entity) this;
+        if (WanderingTraderPresence.isShowing(this)) {
+            // Update the player list time (Only sent when the time shown changes)
+            WanderingTraderPresence.update(server, trader);
+            
+            // If despawn time remaining is over a minute, announce every 10m
+            if (despawn >= 1200 && despawn % 12000 == 0)
+                EntityUtils.wanderingTraderTimeRemaining(trader);
         }
+        // If this entity is THE wandering trader but isn't shown (Reloaded from the chunk), check on the first tick after loading and then every 1m
+        else if ((!this.sewPresenceChecked || despawn % 1200 == 0) && EntityUtils.isEntityWanderingTrader(this))
+            WanderingTraderPresence.show(server, trader);
+        
+        this.sewPresenceChecked = true;
     }
     
     /*
@@ -142,10 +139,8 @@ public abstract class WanderingTraders extends MerchantEntity {
             
             // Remove wandering trader from player list
             MinecraftServer server = this.getServer();
-            if (server != null) {
-                server.getPlayerManager()
-                    .sendToAll(new WanderingTraderProfileCollection().getPacket(PlayerListS2CPacket.Action.REMOVE_PLAYER));
-            }
+            if (server != null)
+                WanderingTraderPresence.hide(server);
         }
         super.remove(removalReason);
     }
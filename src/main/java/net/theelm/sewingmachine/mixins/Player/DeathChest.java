@@ -93,6 +93,8 @@ public abstract class DeathChest extends LivingEntity implements MoneyHolder, Ba
         if (!SewConfig.get(SewConfig.DO_DEATH_CHESTS)) {
             // Drop the backpack if we're not using death chests (And keep inventory is off)
             if (!keepInventory) {
+                // Items with the curse of vanishing are never archived
+                this.vanishCursedItems();
                 DeathChestUtils.createDeathSnapshotFor((PlayerEntity)(LivingEntity) this);
                 
                 // Drop the contents of the backpack (Only if the player HAS one)
@@ -104,6 +106,8 @@ public abstract class DeathChest extends LivingEntity implements MoneyHolder, Ba
         
         // Only do if we're not keeping the inventory, and the player is actually dead! (Death Chest!)
         if (!keepInventory && !this.isAlive()) {
+            // Vanish cursed items, before they are archived or put into the chest
+            this.vanishCursedItems();
             DeathChestUtils.createDeathSnapshotFor((PlayerEntity)(LivingEntity) this);
             BlockPos chestPos;
             
@@ -126,9 +130,6 @@ public abstract class DeathChest extends LivingEntity implements MoneyHolder, Ba
             
             // If the inventory is NOT empty, and we found a valid position for the death chest
             if ((!(InventoryUtils.isInvEmpty(this.inventory) && InventoryUtils.isInvEmpty(this.backpack))) && ((chestPos = DeathChestUtils.getChestPosition(this.getEntityWorld(), this.getBlockPos() )) != null)) {
-                // Vanish cursed items
-                this.vanishCursedItems();
-                
                 // If a death chest was successfully spawned
                 if (DeathChestUtils.createDeathChestFor((PlayerEntity)(LivingEntity) this, chestPos))
                     callback.cancel();
@@ -26,6 +26,7 @@
 package net.theelm.sewingmachine.mixins.Player.Interaction;
 
 import net.theelm.sewingmachine.config.SewConfig;
+import net.theelm.sewingmachine.objects.ItemDespawnTimes;
 import net.theelm.sewingmachine.utilities.ChunkUtils;
 import net.theelm.sewingmachine.utilities.EntityUtils;
 import net.minecraft.entity.Entity;
@@ -40,6 +41,7 @@ import net.minecraft.sound.SoundCategory;
 import net.minecraft.sound.SoundEvents;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
@@ -49,7 +51,6 @@ import org.spongepowered.asm.mixin.injection.ModifyConstant;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
-import java.util.Map;
 import java.util.UUID;
 
 @Mixin(ItemEntity.class)
@@ -59,7 +60,8 @@ public abstract class ItemPickup extends Entity {
     @Shadow private UUID thrower;
     @Shadow private UUID owner;
     
-    private Integer overriddenSewingDespawnTime = null;
+    private int overriddenSewingDespawnTime = ItemDespawnTimes.NONE;
+    private @Nullable Item overriddenSewingDespawnItem = null;
     
     public ItemPickup(EntityType<?> entityType_1, World world_1) {
         super(entityType_1, world_1);
@@ -67,8 +69,14 @@ public abstract class ItemPickup extends Entity {
     
     @Inject(at = @At("HEAD"), method = "setStack")
     private void OnConstruct(ItemStack stack, CallbackInfo callback) {
-        Map<Item, Integer> items = SewConfig.get(SewConfig.ITEM_DESPAWN_TIMES);
-        this.overriddenSewingDespawnTime = items.get(stack.getItem());
+        ItemDespawnTimes times = SewConfig.get(SewConfig.ITEM_DESPAWN_TIMES);
+        Item item = stack.getItem();
+        
+        // The stack is set again whenever items merge, only look up the time again if it could have changed
+        if (item == this.overriddenSewingDespawnItem && !times.hasEnchantmentOverrides())
+            return;
+        this.overriddenSewingDespawnItem = item;
+        this.overriddenSewingDespawnTime = times.getDespawnTicks(stack);
     }
     
     @Inject(at = @At("HEAD"), method = "onPlayerCollision", cancellable = true)
@@ -79,7 +87,8 @@ public abstract class ItemPickup extends Entity {
                 if (player.getUuid().equals(this.thrower) || player.getUuid().equals(this.owner) || (player.isCreative() && SewConfig.get(SewConfig.CLAIM_CREATIVE_BYPASS)))
                     return;
                 
-                // Check if the player can pickup items in the chunk
+                // Check if the player can pickup items in the chunk, shared by every item in the chunk for this tick
+                //   (Not kept on each item, so that changes to the claim are seen on the next tick)
                 BlockPos itemPos = this.getBlockPos();
                 if (!ChunkUtils.canPlayerLootDropsInChunk(player, itemPos))
                     callback.cancel();
@@ -100,7 +109,7 @@ public abstract class ItemPickup extends Entity {
     
     @ModifyConstant(method = "tick", constant = @Constant(intValue = 6000))
     private int anvilMaxLevelOverride(int oldValue) {
-        if (this.overriddenSewingDespawnTime != null)
+        if (this.overriddenSewingDespawnTime != ItemDespawnTimes.NONE)
             return this.overriddenSewingDespawnTime;
         return oldValue;
     }
@@ -28,6 +28,8 @@ package net.theelm.sewingmachine.mixins.Player.Interaction;
 import com.google.common.collect.Maps;
 import net.theelm.sewingmachine.CoreMod;
 import net.theelm.sewingmachine.enums.ShopSigns;
+import net.theelm.sewingmachine.interfaces.LogicalWorld;
+import net.theelm.sewingmachine.interfaces.RecipeIndex;
 import net.theelm.sewingmachine.interfaces.ShopSignData;
 import net.theelm.sewingmachine.utilities.InventoryUtils;
 import net.theelm.sewingmachine.utilities.ShopSignBuilder;
@@ -50,7 +52,6 @@ import net.minecraft.nbt.NbtElement;
 import net.minecraft.recipe.CraftingRecipe;
 import net.minecraft.recipe.Recipe;
 import net.minecraft.recipe.RecipeManager;
-import net.minecraft.recipe.RecipeType;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
@@ -58,6 +59,7 @@ import net.minecraft.util.Identifier;
 import net.minecraft.util.InvalidIdentifierException;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.registry.Registry;
+import net.minecraft.world.World;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
@@ -66,10 +68,8 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
 
 @Mixin(SignBlockEntity.class)
@@ -88,7 +88,6 @@ public abstract class ShopSign extends BlockEntity implements ShopSignData {
     
     // Item being traded
     private @Nullable Identifier shopSign_item = null;
-    private @Nullable List<Identifier> shopSign_itemRecipes = null;
     private final @NotNull Map<Enchantment, Integer> shopSign_itemEnchants = Maps.newLinkedHashMap();
     
     // Price / Count of item transactioning
@@ -123,6 +122,7 @@ public abstract class ShopSign extends BlockEntity implements ShopSignData {
     @Override
     public void setShopOwner(@Nullable UUID uuid) {
         this.shopSign_Owner = uuid;
+        this.updateShopRegistry();
     }
     @Override
     public @Nullable UUID getShopOwner() {
@@ -141,9 +141,9 @@ public abstract class ShopSign extends BlockEntity implements ShopSignData {
     @Override
     public boolean setItem(@NotNull ItemStack stack) {
         this.shopSign_item = Registry.ITEM.getId(stack.getItem());
-        this.shopSign_itemRecipes = null;
         this.shopSign_itemEnchants.clear();
         this.shopSign_itemEnchants.putAll(EnchantmentHelper.get(stack));
+        this.updateShopRegistry();
         return !Items.AIR.equals(stack.getItem());
     }
     @Override
@@ -160,28 +160,12 @@ public abstract class ShopSign extends BlockEntity implements ShopSignData {
     
     @Override
     public @Nullable List<? extends Recipe<?>> getShopItemRecipes() {
-        if (this.shopSign_itemRecipes == null)
-            this.shopSign_itemRecipes = this.findValidShopItemRecipes();
-        if (this.shopSign_itemRecipes.isEmpty())
-            return null;
         RecipeManager recipeManager = this.getRecipeManager();
-        if (recipeManager == null)
+        Item item = this.getShopItem();
+        if (recipeManager == null || item == null)
             return null;
-        return this.shopSign_itemRecipes.stream()
-            .map(recipeManager::get)
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .toList();
-    }
-    private @NotNull List<Identifier> findValidShopItemRecipes() {
-        RecipeManager recipeManager = this.getRecipeManager();
-        if (recipeManager == null || this.shopSign_item == null)
-            return Collections.emptyList();
-        return recipeManager.listAllOfType(RecipeType.CRAFTING).stream()
-            .filter(recipe -> this.shopSign_item.equals(Registry.ITEM.getId(recipe.getOutput().getItem())))
-            .filter(recipe -> recipe.getIngredients().size() == 1)
-            .map(CraftingRecipe::getId)
-            .toList();
+        List<CraftingRecipe> recipes = ((RecipeIndex)recipeManager).getSingleIngredientRecipes(item);
+        return recipes.isEmpty() ? null : recipes;
     }
     private @Nullable RecipeManager getRecipeManager() {
         if (this.world == null)
@@ -271,7 +255,6 @@ public abstract class ShopSign extends BlockEntity implements ShopSignData {
                 // Update the parameters here from the builder
                 this.shopSign_Owner = builder.getShopOwner();
                 this.shopSign_item = builder.getShopItemIdentifier();
-                this.shopSign_itemRecipes = null;
                 
                 // Copy the enchantments to the sign from the builder
                 this.shopSign_itemEnchants.clear();
@@ -286,6 +269,8 @@ public abstract class ShopSign extends BlockEntity implements ShopSignData {
                     this.shopSign_posA = builder.getFirstPos();
                     this.shopSign_posB = builder.getSecondPos();
                 }
+                
+                this.updateShopRegistry();
             }
         }
     }
@@ -337,7 +322,6 @@ public abstract class ShopSign extends BlockEntity implements ShopSignData {
                         this.shopSign_item = new Identifier(signItem = (tag.getString("shop_item_mod") + ":" + tag.getString("shop_item_name")));
                     } else if (tag.contains("shop_item", NbtElement.STRING_TYPE))
                         this.shopSign_item = new Identifier(signItem = tag.getString("shop_item"));
-                    this.shopSign_itemRecipes = null;
                 } catch (InvalidIdentifierException e) {
                     CoreMod.logError("Invalid item identifier \"" + signItem + "\" for shop sign.", e);
                 }
@@ -372,6 +356,24 @@ public abstract class ShopSign extends BlockEntity implements ShopSignData {
                 this.renderSign();
             });
         }
+        
+        // Signs read while chunks load don't have a world yet, and are registered when the world is set
+        this.updateShopRegistry();
+    }
+    
+    /*
+     * Shop registry
+     */
+    
+    @Override
+    public void setWorld(World world) {
+        super.setWorld(world);
+        this.updateShopRegistry();
+    }
+    
+    private void updateShopRegistry() {
+        if (this.world instanceof LogicalWorld logicalWorld)
+            logicalWorld.getShopRegistry().register(this);
     }
     
 }
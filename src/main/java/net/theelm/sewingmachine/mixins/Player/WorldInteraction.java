@@ -25,6 +25,7 @@
 
 package net.theelm.sewingmachine.mixins.Player;
 
+import com.google.common.collect.ImmutableSet;
 import com.mojang.authlib.GameProfile;
 import com.mojang.datafixers.util.Either;
 import net.theelm.sewingmachine.CoreMod;
@@ -36,12 +37,16 @@ import net.theelm.sewingmachine.enums.CompassDirections;
 import net.theelm.sewingmachine.enums.Permissions;
 import net.theelm.sewingmachine.interfaces.BackpackCarrier;
 import net.theelm.sewingmachine.interfaces.IClaimedChunk;
+import net.theelm.sewingmachine.interfaces.LogicalWorld;
 import net.theelm.sewingmachine.interfaces.MoneyHolder;
 import net.theelm.sewingmachine.interfaces.Nicknamable;
 import net.theelm.sewingmachine.interfaces.PlayerChat;
 import net.theelm.sewingmachine.interfaces.PlayerData;
 import net.theelm.sewingmachine.interfaces.PlayerPermissions;
 import net.theelm.sewingmachine.interfaces.PlayerServerLanguage;
+import net.theelm.sewingmachine.objects.ChunkCacheSnapshot;
+import net.theelm.sewingmachine.objects.PlayerListNames;
+import net.theelm.sewingmachine.objects.TrailPathfinder;
 import net.theelm.sewingmachine.protections.claiming.ClaimantPlayer;
 import net.theelm.sewingmachine.protections.ranks.PlayerRank;
 import net.theelm.sewingmachine.utilities.EffectUtils;
@@ -69,6 +74,7 @@ import net.minecraft.network.MessageType;
 import net.minecraft.network.packet.c2s.play.ClientSettingsC2SPacket;
 import net.minecraft.network.packet.s2c.play.PlayerSpawnPositionS2CPacket;
 import net.minecraft.particle.ParticleTypes;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayNetworkHandler;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.network.ServerPlayerInteractionManager;
@@ -100,7 +106,9 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Mixin(ServerPlayerEntity.class)
@@ -160,6 +168,11 @@ public abstract class WorldInteraction extends PlayerEntity implements PlayerDat
     
     @Inject(at = @At("TAIL"), method = "tick")
     public void onTick(CallbackInfo callback) {
+        // Keep the players position in the world index up-to-date
+        if (!this.notInAnyWorld && !this.isRemoved())
+            ((LogicalWorld) this.world).getPlayerIndex()
+                .update((ServerPlayerEntity)(Entity) this);
+        
         // Handle Health Bar
         if ((this.healthBar != null) && (!this.notInAnyWorld)) {
             // Get players from the health bar
@@ -174,7 +187,8 @@ public abstract class WorldInteraction extends PlayerEntity implements PlayerDat
                         new BlockPos(this.getX() + 20, this.getY() + 10, this.getZ() + 20),
                         new BlockPos(this.getX() - 20, this.getY() - 10, this.getZ() - 20)
                     );
-                    List<ServerPlayerEntity> players = this.world.getEntitiesByClass(ServerPlayerEntity.class, searchRegion, (nearby) -> (!nearby.getUuid().equals(this.getUuid())));
+                    List<ServerPlayerEntity> players = ((LogicalWorld) this.world).getPlayerIndex()
+                        .getPlayers(searchRegion, (nearby) -> (!nearby.getUuid().equals(this.getUuid())));
                     
                     // Remove all locale players
                     List<ServerPlayerEntity> enemies = new ArrayList<>(cache);
@@ -200,12 +214,17 @@ public abstract class WorldInteraction extends PlayerEntity implements PlayerDat
             if (this.sewTrailTicks > 0)
                 this.sewTrailTicks--;
             else {
+                int ticks = WorldInteraction.NODE_TICKS;
                 if (this.sewTrailTargetPos.getSquaredDistance(this.getBlockPos()) > 100) {
-                    Path path = this.findPathTo(this.sewTrailTargetPos, 3);
-                    if (path != null)
+                    Path path = this.sewTrailPath;
+                    
+                    // Reuse the previous path while the player is still following it
+                    if (path != null && Objects.equals(path.getTarget(), this.sewTrailTargetPos) && TrailPathfinder.advance(path, this.getBlockPos()))
                         EffectUtils.summonBreadcrumbs(ParticleTypes.FALLING_OBSIDIAN_TEAR, (ServerPlayerEntity)(Entity)this, path);
-                } else this.sewTrailTargetPos = null;
-                this.sewTrailTicks = WorldInteraction.NODE_TICKS;
+                    else if (!this.sewTrailSearching && !this.searchTrail(this.sewTrailTargetPos))
+                        ticks = WorldInteraction.NODE_TICKS / 6; // Retry shortly if too many searches are already running
+                } else this.setTrailTarget(null);
+                this.sewTrailTicks = ticks;
             }
         }
     }
@@ -503,6 +522,7 @@ public abstract class WorldInteraction extends PlayerEntity implements PlayerDat
     @Override
     public void setPlayerNickname(@Nullable Text nickname) {
         this.playerNickname = nickname;
+        PlayerListNames.invalidate(this.getUuid());
         if (this.healthBar != null)
             this.healthBar.setName(new LiteralText("Player ").append(this.getDisplayName()).formatted(Formatting.WHITE));
     }
@@ -514,7 +534,8 @@ public abstract class WorldInteraction extends PlayerEntity implements PlayerDat
     }
     @Inject(at = @At("HEAD"), method = "getPlayerListName", cancellable = true)
     public void getServerlistDisplayName(@NotNull CallbackInfoReturnable<Text> callback) {
-        callback.setReturnValue(((Nicknamable) this).getPlayerNickname());
+        // The player list never modifies the name, so it doesn't need a copy
+        callback.setReturnValue(this.playerNickname);
     }
     
     /*
@@ -607,9 +628,14 @@ public abstract class WorldInteraction extends PlayerEntity implements PlayerDat
     private static final int NODE_TICKS = 30;
     private static final int NAV_DISTANCE = 30;
     
+    private static final int SNAPSHOT_TICKS = 200;
+    
     private int sewTrailTicks = WorldInteraction.NODE_TICKS;
     private BlockPos sewTrailTargetPos = null;
     private MobEntity sewTrailInnerDemon = null;
+    private @Nullable Path sewTrailPath = null;
+    private @Nullable ChunkCacheSnapshot sewTrailSnapshot = null;
+    private boolean sewTrailSearching = false;
     
     private final PathNodeMaker nodeMaker = new LandPathNodeMaker();
     private final PathNodeNavigator nodeNavigator = this.createPathNodeNavigator(WorldInteraction.NAV_DISTANCE);
@@ -658,4 +684,57 @@ public abstract class WorldInteraction extends PlayerEntity implements PlayerDat
             this.sewTrailTargetPos = path.getTarget();
         return path;
     }
+    @Override
+    public void setTrailTarget(@Nullable BlockPos pos) {
+        this.sewTrailTargetPos = pos;
+        this.sewTrailPath = null;
+        this.sewTrailTicks = 0;
+        if (pos == null)
+            this.sewTrailSnapshot = null;
+    }
+    
+    /**
+     * Search for a path to the trail target on the worker threads, against a snapshot of the blocks around the player
+     * @param target The target of the trail
+     * @return If the search was started
+     */
+    private boolean searchTrail(@NotNull BlockPos target) {
+        // If the player is not within the world height
+        if (this.world.isOutOfHeightLimit(this.getBlockY()))
+            return true;
+        
+        // Each search gets its own mob, positioned here on the server thread, as the search reads it from a worker thread
+        MobEntity demon = new ZombieEntity(this.world);
+        demon.setPos(this.getX(), this.getY(), this.getZ());
+        
+        float followRange = (float)demon.getAttributeValue(EntityAttributes.GENERIC_FOLLOW_RANGE);
+        BlockPos selfPos = this.getBlockPos().up();
+        int i = (int)(followRange + 16);
+        BlockPos min = selfPos.add(-i, -i, -i);
+        BlockPos max = selfPos.add(i, i, i);
+        
+        // Reuse the block snapshot if the player hasn't left it, it's taken a chunk larger than needed so it can be reused while walking
+        ChunkCacheSnapshot snapshot = this.sewTrailSnapshot;
+        if (snapshot == null || !snapshot.covers(min, max, this.world.getTime(), WorldInteraction.SNAPSHOT_TICKS))
+            snapshot = new ChunkCacheSnapshot(this.world, min.add(-16, -16, -16), max.add(16, 16, 16));
+        
+        CompletableFuture<Path> search = TrailPathfinder.find(this.getPathNodeNavigator(), snapshot, demon, ImmutableSet.of(target), followRange, 3);
+        if (search == null)
+            return false;
+        
+        MinecraftServer server = this.getServer();
+        this.sewTrailSnapshot = snapshot;
+        this.sewTrailSearching = true;
+        search.whenComplete((path, exception) -> server.execute(() -> {
+            this.sewTrailSearching = false;
+            
+            // Only use the path if the target hasn't changed while searching
+            if (path != null && Objects.equals(target, this.sewTrailTargetPos) && !this.isRemoved()) {
+                this.sewTrailPath = path;
+                EffectUtils.summonBreadcrumbs(ParticleTypes.FALLING_OBSIDIAN_TEAR, (ServerPlayerEntity)(Entity) this, path);
+            } else if (path == null)
+                CoreMod.logInfo("Could not find path.");
+        }));
+        return true;
+    }
 }
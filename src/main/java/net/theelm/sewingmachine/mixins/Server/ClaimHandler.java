@@ -27,9 +27,15 @@ package net.theelm.sewingmachine.mixins.Server;
 
 import net.theelm.sewingmachine.interfaces.ClaimsAccessor;
 import net.theelm.sewingmachine.objects.ticking.ClaimCache;
+import net.theelm.sewingmachine.utilities.ChunkUtils;
 import net.minecraft.server.MinecraftServer;
 import org.jetbrains.annotations.NotNull;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.function.BooleanSupplier;
 
 /**
  * Created on Apr 14 2022 at 3:05 PM.
@@ -47,4 +53,10 @@ public class ClaimHandler implements ClaimsAccessor {
         }
         return this.sewingMachineClaimManager;
     }
+    
+    @Inject(at = @At("TAIL"), method = "tick")
+    public void onTickEnd(BooleanSupplier shouldKeepTicking, CallbackInfo callback) {
+        // Pickup decisions are only shared within a single tick
+        ChunkUtils.clearPickupDecisions();
+    }
 }
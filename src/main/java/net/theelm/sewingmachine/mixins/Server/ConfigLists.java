@@ -0,0 +1,103 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.mixins.Server;
+
+import com.mojang.authlib.GameProfile;
+import net.theelm.sewingmachine.CoreMod;
+import net.theelm.sewingmachine.interfaces.BulkConfigList;
+import net.theelm.sewingmachine.interfaces.WhitelistedPlayer;
+import net.theelm.sewingmachine.objects.WhitelistGraph;
+import net.minecraft.server.ServerConfigEntry;
+import net.minecraft.server.ServerConfigList;
+import net.minecraft.server.Whitelist;
+import org.jetbrains.annotations.NotNull;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Keeps the whitelist invitation graph up to date as entries are added to and removed from the whitelist
+ */
+@Mixin(ServerConfigList.class)
+public abstract class ConfigLists<K, V extends ServerConfigEntry<K>> implements BulkConfigList<K> {
+    @Shadow @Final
+    private Map<String, V> map;
+    
+    @Shadow
+    protected abstract String toString(K key);
+    @Shadow
+    public abstract Collection<V> values();
+    @Shadow
+    public abstract void save() throws IOException;
+    
+    @Inject(at = @At("TAIL"), method = "add")
+    public void onAdd(V entry, CallbackInfo callback) {
+        if (((Object)this) instanceof Whitelist && entry instanceof WhitelistedPlayer player)
+            WhitelistGraph.insert(player);
+    }
+    
+    @Inject(at = @At("HEAD"), method = "remove(Ljava/lang/Object;)V")
+    public void onRemove(K key, CallbackInfo callback) {
+        if (((Object)this) instanceof Whitelist && key instanceof GameProfile profile && profile.getId() != null)
+            WhitelistGraph.remove(profile.getId());
+    }
+    
+    @Inject(at = @At("TAIL"), method = "load")
+    public void onLoad(CallbackInfo callback) {
+        if (((Object)this) instanceof Whitelist)
+            WhitelistGraph.rebuild(this.values());
+    }
+    
+    @Override
+    public int removeAll(@NotNull Collection<K> keys) {
+        int removed = 0;
+        for (K key : keys) {
+            if (this.map.remove(this.toString(key)) == null)
+                continue;
+            removed++;
+            
+            if (((Object)this) instanceof Whitelist && key instanceof GameProfile profile)
+                WhitelistGraph.remove(profile.getId());
+        }
+        
+        if (removed > 0) {
+            try {
+                this.save();
+            } catch (IOException e) {
+                CoreMod.logError("Could not save the " + this.getClass().getSimpleName(), e);
+            }
+        }
+        
+        return removed;
+    }
+}
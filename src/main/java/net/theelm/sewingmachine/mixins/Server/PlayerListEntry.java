@@ -26,23 +26,14 @@
 package net.theelm.sewingmachine.mixins.Server;
 
 import com.mojang.authlib.GameProfile;
-import net.theelm.sewingmachine.CoreMod;
-import net.theelm.sewingmachine.config.SewConfig;
-import net.theelm.sewingmachine.protections.ranks.PlayerRank;
-import net.theelm.sewingmachine.utilities.FormattingUtils;
-import net.theelm.sewingmachine.utilities.RankUtils;
+import net.theelm.sewingmachine.objects.PlayerListNames;
 import net.minecraft.network.packet.s2c.play.PlayerListS2CPacket;
-import net.minecraft.text.LiteralText;
-import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
-import net.minecraft.util.Formatting;
-import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
-import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(PlayerListS2CPacket.Entry.class)
@@ -53,23 +44,7 @@ public abstract class PlayerListEntry {
     
     @Inject(at = @At("RETURN"), method = "getDisplayName", cancellable = true)
     public void getDisplayName(CallbackInfoReturnable<Text> callback) {
-        MutableText displayName = (this.displayName == null ?
-            new LiteralText(this.profile.getName()).formatted(Formatting.YELLOW)
-            : FormattingUtils.deepCopy(this.displayName)
-        );
-        
-        for (PlayerRank rank : RankUtils.getPlayerRanks(this.profile)) {
-            Text display;
-            if ((display = rank.getDisplay()) != null) {
-                // Open bracket
-                displayName.append(new LiteralText(" [").formatted(Formatting.WHITE)
-                    .append(display)
-                    .append("]"));
-                break; // Only append one
-            }
-        }
-        
-        // Set the return value
-        callback.setReturnValue(displayName);
+        // Set the return value (Rendered once per nickname and rank change)
+        callback.setReturnValue(PlayerListNames.get(this.profile, this.displayName));
     }
 }
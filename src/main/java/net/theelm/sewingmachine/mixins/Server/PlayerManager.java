@@ -27,14 +27,18 @@ package net.theelm.sewingmachine.mixins.Server;
 
 import com.mojang.authlib.GameProfile;
 import net.theelm.sewingmachine.config.SewConfig;
-import net.theelm.sewingmachine.objects.WanderingTraderProfileCollection;
+import net.theelm.sewingmachine.objects.OfflinePlayerData;
+import net.theelm.sewingmachine.objects.PlayerListNames;
+import net.theelm.sewingmachine.objects.StatisticsIndex;
+import net.theelm.sewingmachine.objects.WanderingTraderPresence;
 import net.theelm.sewingmachine.utilities.DimensionUtils;
 import net.theelm.sewingmachine.utilities.EntityUtils;
 import net.theelm.sewingmachine.utilities.TeamUtils;
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.passive.WanderingTraderEntity;
+import net.minecraft.nbt.NbtCompound;
 import net.minecraft.network.ClientConnection;
 import net.minecraft.network.packet.s2c.play.ExperienceBarUpdateS2CPacket;
-import net.minecraft.network.packet.s2c.play.PlayerListS2CPacket;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
@@ -49,6 +53,7 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import java.util.UUID;
 
@@ -71,11 +76,41 @@ public abstract class PlayerManager {
             // Check if the wandering trader is still in the world
             UUID uuid = EntityUtils.getWanderingTraderId(this.server);
             Entity entity = world.getEntity(uuid);
-            if (entity != null)
-                player.networkHandler.sendPacket(new WanderingTraderProfileCollection(entity).getPacket(PlayerListS2CPacket.Action.ADD_PLAYER));
+            if (entity instanceof WanderingTraderEntity trader)
+                WanderingTraderPresence.showTo(player, trader);
         }
     }
     
+    /**
+     * Write any offline changes to the player before their file is loaded
+     */
+    @Inject(at = @At("HEAD"), method = "loadPlayerData")
+    public void onLoadPlayerData(@NotNull ServerPlayerEntity player, @NotNull CallbackInfoReturnable<NbtCompound> callback) {
+        OfflinePlayerData.onJoin(player.getUuid());
+    }
+    
+    /**
+     * Forget the offline data and player list name of the player once they have been saved after leaving
+     */
+    @Inject(at = @At("TAIL"), method = "remove")
+    public void onRemovePlayer(@NotNull ServerPlayerEntity player, @NotNull CallbackInfo callback) {
+        OfflinePlayerData.onQuit(player.getUuid());
+        PlayerListNames.invalidate(player.getUuid());
+    }
+    
+    /**
+     * Copy the statistics of the player into the index after they're saved
+     */
+    @Inject(at = @At("TAIL"), method = "savePlayerData")
+    public void onSavePlayerData(@NotNull ServerPlayerEntity player, @NotNull CallbackInfo callback) {
+        StatisticsIndex.ingest(this.server, player);
+    }
+    
+    @Inject(at = @At("TAIL"), method = "saveAllPlayerData")
+    public void onSaveAllPlayerData(@NotNull CallbackInfo callback) {
+        OfflinePlayerData.flush();
+    }
+    
     @Inject(at = @At("HEAD"), method = "setMainWorld", cancellable = true)
     public void onSetMainWorld(ServerWorld world, CallbackInfo callback) {
         if (!SewConfig.get(SewConfig.WORLD_SPECIFIC_WORLD_BORDER))
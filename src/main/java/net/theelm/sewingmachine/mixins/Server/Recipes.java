@@ -0,0 +1,88 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.mixins.Server;
+
+import com.google.gson.JsonElement;
+import net.theelm.sewingmachine.interfaces.RecipeIndex;
+import net.minecraft.item.Item;
+import net.minecraft.recipe.CraftingRecipe;
+import net.minecraft.recipe.Ingredient;
+import net.minecraft.recipe.RecipeManager;
+import net.minecraft.recipe.RecipeType;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.collection.DefaultedList;
+import net.minecraft.util.profiler.Profiler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Mixin(RecipeManager.class)
+public abstract class Recipes implements RecipeIndex {
+    
+    // Output item -> Crafting recipes with a single ingredient, built on first use after each reload
+    private @Nullable Map<Item, List<CraftingRecipe>> singleIngredientRecipes = null;
+    
+    @Inject(at = @At("TAIL"), method = "apply(Ljava/util/Map;Lnet/minecraft/resource/ResourceManager;Lnet/minecraft/util/profiler/Profiler;)V")
+    public void onReload(Map<Identifier, JsonElement> map, ResourceManager resourceManager, Profiler profiler, CallbackInfo callback) {
+        // Tags are not bound until the reload finishes, so the index is rebuilt lazily instead of here
+        this.singleIngredientRecipes = null;
+    }
+    
+    @Override
+    public @NotNull List<CraftingRecipe> getSingleIngredientRecipes(@NotNull Item output) {
+        Map<Item, List<CraftingRecipe>> index = this.singleIngredientRecipes;
+        if (index == null)
+            this.singleIngredientRecipes = index = this.buildSingleIngredientIndex();
+        return index.getOrDefault(output, Collections.emptyList());
+    }
+    
+    private @NotNull Map<Item, List<CraftingRecipe>> buildSingleIngredientIndex() {
+        Map<Item, List<CraftingRecipe>> index = new HashMap<>();
+        
+        for (CraftingRecipe recipe : ((RecipeManager)(Object) this).listAllOfType(RecipeType.CRAFTING)) {
+            DefaultedList<Ingredient> ingredients = recipe.getIngredients();
+            
+            // Skip recipes that take more than one item, or that have nothing to take
+            if (ingredients.size() != 1 || ingredients.get(0).getMatchingStacks().length == 0)
+                continue;
+            
+            index.computeIfAbsent(recipe.getOutput().getItem(), item -> new ArrayList<>())
+                .add(recipe);
+        }
+        
+        return index;
+    }
+}
@@ -29,7 +29,11 @@ import com.google.common.collect.ImmutableList;
 import net.theelm.sewingmachine.CoreMod;
 import net.theelm.sewingmachine.config.SewConfig;
 import net.theelm.sewingmachine.interfaces.ClaimsAccessor;
+import net.theelm.sewingmachine.objects.DeathArchive;
 import net.theelm.sewingmachine.objects.DynamicLevelProperties;
+import net.theelm.sewingmachine.objects.ShopJournal;
+import net.theelm.sewingmachine.objects.StatisticsIndex;
+import net.theelm.sewingmachine.objects.WorldPropertiesWriter;
 import net.theelm.sewingmachine.objects.ticking.ClaimCache;
 import net.theelm.sewingmachine.protections.claiming.Claimant;
 import net.theelm.sewingmachine.protections.logging.EventLogger;
@@ -90,7 +94,7 @@ public abstract class Save extends ReentrantThreadExecutor<ServerTask> implement
      * Save claim information when the server saves
      */
     @Inject(at = @At("RETURN"), method = "save")
-    public void save(boolean silent, boolean boolean_2, boolean boolean_3, @NotNull CallbackInfoReturnable<Boolean> callback) {
+    public void save(boolean silent, boolean flush, boolean boolean_3, @NotNull CallbackInfoReturnable<Boolean> callback) {
         if (callback.getReturnValue()) {
             ClaimCache claims = ((ClaimsAccessor)this).getClaimManager();
             
@@ -98,6 +102,10 @@ public abstract class Save extends ReentrantThreadExecutor<ServerTask> implement
             claims.getCaches()
                 .forEach(Claimant::save);
         }
+        
+        // Write the properties that each world queued while saving
+        if (flush) WorldPropertiesWriter.flush();
+        else WorldPropertiesWriter.writeAsync();
     }
     
     /**
@@ -170,6 +178,12 @@ public abstract class Save extends ReentrantThreadExecutor<ServerTask> implement
     @Inject(at = @At("TAIL"), method = "shutdown")
     public void shutdown(CallbackInfo callback) {
         EventLogger.stop();
+        
+        // Make sure that the properties of every world are written before exiting
+        WorldPropertiesWriter.flush();
+        StatisticsIndex.close((MinecraftServer)(ReentrantThreadExecutor)this);
+        ShopJournal.close();
+        DeathArchive.clear();
     }
     
 }
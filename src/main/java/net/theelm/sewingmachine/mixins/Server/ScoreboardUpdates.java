@@ -0,0 +1,88 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.mixins.Server;
+
+import net.theelm.sewingmachine.interfaces.LeaderboardHolder;
+import net.theelm.sewingmachine.objects.Leaderboards;
+import net.minecraft.scoreboard.Scoreboard;
+import net.minecraft.scoreboard.ScoreboardObjective;
+import net.minecraft.scoreboard.ScoreboardPlayerScore;
+import net.minecraft.scoreboard.ServerScoreboard;
+import net.minecraft.server.MinecraftServer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Passes changes of scores to the leaderboard displays
+ *   The leaderboards are only loaded once the server is ticking, and build their scores from the whole
+ *   scoreboard when they're loaded, so earlier changes can be ignored
+ */
+@Mixin(ServerScoreboard.class)
+public abstract class ScoreboardUpdates extends Scoreboard implements LeaderboardHolder {
+    @Shadow @Final
+    private MinecraftServer server;
+    
+    private @Nullable Leaderboards leaderboards = null;
+    
+    @Inject(at = @At("TAIL"), method = "updateScore")
+    public void onUpdateScore(@NotNull ScoreboardPlayerScore score, CallbackInfo callback) {
+        if (this.leaderboards != null && score.getObjective() != null)
+            this.leaderboards.onScoreChanged(score.getObjective(), score.getPlayerName(), score.getScore());
+    }
+    
+    @Inject(at = @At("TAIL"), method = "updatePlayerScore(Ljava/lang/String;)V")
+    public void onResetScores(@NotNull String playerName, CallbackInfo callback) {
+        if (this.leaderboards != null)
+            this.leaderboards.onScoreRemoved(null, playerName);
+    }
+    
+    @Inject(at = @At("TAIL"), method = "updatePlayerScore(Ljava/lang/String;Lnet/minecraft/scoreboard/ScoreboardObjective;)V")
+    public void onResetScore(@NotNull String playerName, @NotNull ScoreboardObjective objective, CallbackInfo callback) {
+        if (this.leaderboards != null)
+            this.leaderboards.onScoreRemoved(objective, playerName);
+    }
+    
+    @Inject(at = @At("TAIL"), method = "updateRemovedObjective")
+    public void onRemoveObjective(@NotNull ScoreboardObjective objective, CallbackInfo callback) {
+        if (this.leaderboards != null)
+            this.leaderboards.onObjectiveRemoved(objective);
+    }
+    
+    @Override
+    public @NotNull Leaderboards getLeaderboards() {
+        if (this.leaderboards == null)
+            this.leaderboards = this.server.getOverworld()
+                .getPersistentStateManager()
+                .getOrCreate(nbt -> Leaderboards.fromNbt(this, nbt), () -> new Leaderboards(this), Leaderboards.ID);
+        return this.leaderboards;
+    }
+}
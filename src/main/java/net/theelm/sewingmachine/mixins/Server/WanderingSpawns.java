@@ -27,13 +27,12 @@ package net.theelm.sewingmachine.mixins.Server;
 
 import net.theelm.sewingmachine.CoreMod;
 import net.theelm.sewingmachine.config.SewConfig;
-import net.theelm.sewingmachine.objects.WanderingTraderProfileCollection;
+import net.theelm.sewingmachine.objects.WanderingTraderPresence;
 import net.theelm.sewingmachine.utilities.BlockUtils;
 import net.theelm.sewingmachine.utilities.EntityUtils;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.SpawnReason;
 import net.minecraft.entity.passive.WanderingTraderEntity;
-import net.minecraft.network.packet.s2c.play.PlayerListS2CPacket;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.PlayerManager;
 import net.minecraft.server.world.ServerWorld;
@@ -144,8 +143,7 @@ public abstract class WanderingSpawns implements Spawner {
                     EntityUtils.wanderingTraderArrival(trader);
                 
                 // Add the wandering trader to the players list
-                server.getPlayerManager()
-                    .sendToAll(new WanderingTraderProfileCollection(trader).getPacket(PlayerListS2CPacket.Action.ADD_PLAYER));
+                WanderingTraderPresence.show(server, trader);
                 
                 return true;
             }
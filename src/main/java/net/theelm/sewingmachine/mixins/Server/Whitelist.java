@@ -4,6 +4,7 @@ import com.google.gson.JsonObject;
 import com.mojang.authlib.GameProfile;
 import net.theelm.sewingmachine.interfaces.WhitelistedPlayer;
 import net.theelm.sewingmachine.mixins.Interfaces.WhitelistAccessor;
+import net.theelm.sewingmachine.objects.WhitelistGraph;
 import net.minecraft.server.ServerConfigEntry;
 import net.minecraft.server.WhitelistEntry;
 import org.jetbrains.annotations.Nullable;
@@ -38,6 +39,11 @@ public abstract class Whitelist extends ServerConfigEntry<GameProfile> implement
     @Override
     public void setInvitedBy(UUID uuid) {
         this.invitedBy = uuid;
+        
+        // Move the entry in the invitation graph if it is already on the whitelist
+        UUID self = this.getUUID();
+        if (self != null && WhitelistGraph.get(self) == this)
+            WhitelistGraph.insert(this);
     }
     
     @Override
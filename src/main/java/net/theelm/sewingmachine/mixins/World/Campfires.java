@@ -25,23 +25,15 @@
 
 package net.theelm.sewingmachine.mixins.World;
 
-import net.theelm.sewingmachine.config.SewConfig;
+import net.theelm.sewingmachine.interfaces.LogicalWorld;
 import net.minecraft.block.BlockState;
-import net.minecraft.block.CampfireBlock;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.block.entity.BlockEntityType;
 import net.minecraft.block.entity.CampfireBlockEntity;
-import net.minecraft.sound.SoundCategory;
-import net.minecraft.sound.SoundEvents;
 import net.minecraft.util.Clearable;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
-import net.minecraft.world.biome.Biome;
-import org.jetbrains.annotations.NotNull;
 import org.spongepowered.asm.mixin.Mixin;
-import org.spongepowered.asm.mixin.injection.At;
-import org.spongepowered.asm.mixin.injection.Inject;
-import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(CampfireBlockEntity.class)
 public abstract class Campfires extends BlockEntity implements Clearable {
@@ -50,18 +42,23 @@ public abstract class Campfires extends BlockEntity implements Clearable {
         super(type, pos, state);
     }
     
-    @Inject(at = @At("TAIL"), method = "litServerTick")
-    private static void onTick(@NotNull World world, @NotNull BlockPos pos, @NotNull BlockState state, @NotNull CampfireBlockEntity campfire, @NotNull CallbackInfo callback) {
-        if ((!world.isClient) && SewConfig.get(SewConfig.EXTINGUISH_CAMPFIRES)) {
-            BlockState blockState = campfire.getCachedState();
-            boolean isLit = blockState.get(CampfireBlock.LIT);
-            
-            // If RAINING, currently LIT, is in a raining BIOME, and VISIBLE TO SKY
-            if (world.isRaining() && isLit && (world.getBiome(pos).value().getPrecipitation() == Biome.Precipitation.RAIN) && world.isSkyVisible(pos)) {
-                world.setBlockState(pos, blockState.with(CampfireBlock.LIT, false));
-                world.playSound(null, pos, SoundEvents.BLOCK_FIRE_EXTINGUISH, SoundCategory.BLOCKS, 1.0f, 1.0f);
-            }
-        }
+    /**
+     * Register the campfire with its world once it is placed or loaded, so it can be put out when it rains
+     */
+    @Override
+    public void setWorld(World world) {
+        super.setWorld(world);
+        if (world instanceof LogicalWorld logicalWorld)
+            logicalWorld.getCampfires()
+                .add((CampfireBlockEntity)(Object)this);
+    }
+    
+    @Override
+    public void markRemoved() {
+        super.markRemoved();
+        if (this.world instanceof LogicalWorld logicalWorld)
+            logicalWorld.getCampfires()
+                .remove((CampfireBlockEntity)(Object)this);
     }
     
 }
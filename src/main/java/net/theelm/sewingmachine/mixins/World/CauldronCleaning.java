@@ -27,8 +27,8 @@ package net.theelm.sewingmachine.mixins.World;
 
 import net.theelm.sewingmachine.config.SewConfig;
 import net.theelm.sewingmachine.mixins.Interfaces.PowderBlockAccessor;
+import net.theelm.sewingmachine.objects.SpawnerData;
 import net.theelm.sewingmachine.utilities.ChunkUtils;
-import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
@@ -43,9 +43,6 @@ import net.minecraft.fluid.Fluids;
 import net.minecraft.item.BlockItem;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
-import net.minecraft.nbt.NbtCompound;
-import net.minecraft.nbt.NbtElement;
-import net.minecraft.nbt.NbtList;
 import net.minecraft.particle.ParticleTypes;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.sound.SoundCategory;
@@ -115,16 +112,13 @@ public abstract class CauldronCleaning extends Block {
                 return;
             
             // Get the entity IDs on the spawner
-            NbtCompound spawnerTag = colliderStack.getOrCreateNbt();
-            NbtList entityIds;
-            if ((!spawnerTag.contains("EntityIds", NbtElement.LIST_TYPE)) || ((entityIds = spawnerTag.getList("EntityIds", NbtElement.STRING_TYPE)).size() < 2))
+            SpawnerData spawnerData = SpawnerData.fromItem(colliderStack);
+            if (spawnerData == null || spawnerData.size() < 2)
                 return;
             
-            // Remove the first spawn type
-            entityIds.remove(0);
-            
-            // Update the display
-            spawnerTag.put("display", NbtUtils.getSpawnerDisplay(entityIds));
+            // Remove the first spawn type, and update the display
+            spawnerData.withoutFirst()
+                .writeItem(colliderStack.getOrCreateNbt());
             
             // Take the emerald
             binderStack.decrement(1);
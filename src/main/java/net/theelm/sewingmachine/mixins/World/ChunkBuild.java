@@ -26,10 +26,15 @@
 package net.theelm.sewingmachine.mixins.World;
 
 import net.theelm.sewingmachine.interfaces.IClaimedChunk;
+import net.theelm.sewingmachine.interfaces.LogicalWorld;
+import net.theelm.sewingmachine.interfaces.ShopSignData;
+import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.registry.Registry;
 import net.minecraft.world.HeightLimitView;
+import net.minecraft.world.World;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.ChunkSection;
@@ -38,7 +43,9 @@ import net.minecraft.world.chunk.UpgradeData;
 import net.minecraft.world.chunk.WorldChunk;
 import net.minecraft.world.gen.chunk.BlendingData;
 import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
@@ -49,6 +56,8 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
  */
 @Mixin(WorldChunk.class)
 public abstract class ChunkBuild extends Chunk implements IClaimedChunk {
+    @Shadow @Final World world;
+    
     public ChunkBuild(ChunkPos pos, UpgradeData upgradeData, HeightLimitView heightLimitView, Registry<Biome> biome, long inhabitedTime, @Nullable ChunkSection[] sectionArrayInitializer, @Nullable BlendingData blendingData) {
         super(pos, upgradeData, heightLimitView, biome, inhabitedTime, sectionArrayInitializer, blendingData);
     }
@@ -64,4 +73,17 @@ public abstract class ChunkBuild extends Chunk implements IClaimedChunk {
         // Update the chunks town
         this.updateTownOwner(((IClaimedChunk)protoChunk).getTownId(), false);
     }
+    
+    /**
+     * Block entities are only removed from the chunk when their block is removed, unloading the chunk leaves them be
+     * @param pos The position of the block entity
+     * @param callback Mixin Callback
+     */
+    @Inject(at = @At("HEAD"), method = "removeBlockEntity")
+    public void onRemoveBlockEntity(BlockPos pos, CallbackInfo callback) {
+        // Remove the shop when its sign is broken or replaced
+        BlockEntity blockEntity = this.blockEntities.get(pos);
+        if (blockEntity instanceof ShopSignData shop && shop.getShopType() != null && this.world instanceof LogicalWorld logicalWorld)
+            logicalWorld.getShopRegistry().remove(pos);
+    }
 }
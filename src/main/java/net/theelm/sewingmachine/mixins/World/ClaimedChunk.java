@@ -168,7 +168,8 @@ public abstract class ClaimedChunk implements BlockView, IClaimedChunk, Claim {
             this.claimSlices[i] = slices[i];
     }
     
-    public @NotNull Claim getClaim(BlockPos blockPos) {
+    @Override
+    public @NotNull Claim getClaim(@NotNull BlockPos blockPos) {
         int slicePos = ChunkUtils.getPositionWithinChunk( blockPos );
         
         ClaimSlice slice;
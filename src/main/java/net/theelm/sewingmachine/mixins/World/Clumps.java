@@ -25,10 +25,14 @@
 
 package net.theelm.sewingmachine.mixins.World;
 
+import net.theelm.sewingmachine.config.SewConfig;
+import net.theelm.sewingmachine.interfaces.ExperienceClump;
+import net.theelm.sewingmachine.interfaces.LogicalWorld;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.ExperienceOrbEntity;
 import net.minecraft.world.World;
+import org.jetbrains.annotations.NotNull;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
@@ -36,11 +40,11 @@ import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(ExperienceOrbEntity.class)
-public abstract class Clumps extends Entity {
+public abstract class Clumps extends Entity implements ExperienceClump {
     
-    @Shadow private int health;
     @Shadow private int amount;
-    @Shadow public int orbAge;
+    @Shadow private int pickingCount;
+    @Shadow private int orbAge;
     
     public Clumps(EntityType<?> entityType_1, World world_1) {
         super(entityType_1, world_1);
@@ -48,21 +52,27 @@ public abstract class Clumps extends Entity {
     
     @Inject(at = @At("TAIL"), method = "tick")
     public void onTick(CallbackInfo callback) {
-        if (!this.world.isClient && !this.isRemoved() && this.world.getTime() % 4 == 0) {
-            // Get orbs of same tile
-            this.world.getEntitiesByClass(
-                ExperienceOrbEntity.class,
-                this.getBoundingBox()
-                    .expand(1.0D),
-                (orb -> (!orb.getUuid().equals(this.getUuid())) && orb.isAlive())
-            ).stream().filter((orb) -> {
-                // Get where found orbs are younger than the current (Let the oldest live)
-                return orb.age < this.orbAge;
-            }).findAny().ifPresent((orb) -> {
-                this.amount += orb.getExperienceAmount(); // Add that orb to this
-                orb.discard(); // Remove the orb
-            });
-        }
+        // Wait for the world to merge orbs of the same tile
+        if (!this.world.isClient && !this.isRemoved() && this.world.getTime() % SewConfig.get(SewConfig.EXPERIENCE_CLUMP_INTERVAL) == 0)
+            ((LogicalWorld) this.world).getExperienceClumps()
+                .add((ExperienceOrbEntity)(Object) this);
+    }
+    
+    @Override
+    public int getTotalExperience() {
+        return this.amount * this.pickingCount;
+    }
+    
+    @Override
+    public int getOrbAge() {
+        return this.orbAge;
+    }
+    
+    @Override
+    public void absorb(@NotNull ExperienceOrbEntity orb) {
+        this.amount = this.getTotalExperience() + ((ExperienceClump) orb).getTotalExperience(); // Add that orb to this
+        this.pickingCount = 1;
+        orb.discard(); // Remove the orb
     }
     
 }
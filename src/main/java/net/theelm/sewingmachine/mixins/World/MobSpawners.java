@@ -26,7 +26,7 @@
 package net.theelm.sewingmachine.mixins.World;
 
 import net.theelm.sewingmachine.config.SewConfig;
-import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
+import net.theelm.sewingmachine.objects.SpawnerData;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.BlockWithEntity;
 import net.minecraft.block.SpawnerBlock;
@@ -37,10 +37,7 @@ import net.minecraft.enchantment.Enchantments;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
-import net.minecraft.item.Items;
 import net.minecraft.nbt.NbtCompound;
-import net.minecraft.nbt.NbtElement;
-import net.minecraft.nbt.NbtList;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.sound.SoundCategory;
@@ -73,11 +70,8 @@ public abstract class MobSpawners extends BlockWithEntity {
             ItemStack handItem = player.getMainHandStack();
             
             if (blockEntity instanceof MobSpawnerBlockEntity spawnerBlock) {
-                // Spawner Display
-                NbtList spawnEntities = new NbtList();
-                
-                // Load spawnEntities from the spawnerblock
-                NbtUtils.withSpawnerEntities(blockEntity.createNbtWithIdentifyingData(), spawnEntities::add);
+                // Read the mobs from the spawner once, used by both the drop and the experience
+                SpawnerData spawnerData = SpawnerData.fromSpawner(spawnerBlock);
                 
                 boolean doDrop = false;
                 
@@ -99,15 +93,7 @@ public abstract class MobSpawners extends BlockWithEntity {
                 
                 if (doDrop) {
                     // Create the mob spawner drop
-                    ItemStack dropStack = new ItemStack(Items.SPAWNER);
-                    dropStack.setCount(1);
-                    
-                    // Create the item tag
-                    NbtCompound dropTag = dropStack.getOrCreateNbt();
-                    
-                    //dropTag.put("EntityIds", itemNbt);
-                    dropTag.put("display", NbtUtils.getSpawnerDisplay(spawnEntities));
-                    dropTag.put("EntityIds", spawnEntities);
+                    ItemStack dropStack = spawnerData.toItemStack();
                     
                     // Drop the spawner
                     ItemScatterer.spawn(world, blockPos.getX(), blockPos.getY(), blockPos.getZ(), dropStack);
@@ -116,10 +102,7 @@ public abstract class MobSpawners extends BlockWithEntity {
                     world.playSound(null, blockPos, SoundEvents.BLOCK_GLASS_BREAK, SoundCategory.BLOCKS, 1.0f, 1.0f);
                     
                     // Calculate XP to give for every mob in the spawner
-                    int xpGive = 0;
-                    for (int i = 0; i < spawnEntities.size(); ++i) {
-                        xpGive += 45 + world.random.nextInt(45) + world.random.nextInt(45);
-                    }
+                    int xpGive = spawnerData.rollExperience(world.random);
                     
                     // Drop the XP
                     if (xpGive > 0 && world instanceof ServerWorld serverWorld)
@@ -131,41 +114,26 @@ public abstract class MobSpawners extends BlockWithEntity {
     
     @Override
     public void onPlaced(@NotNull World world, @NotNull BlockPos blockPos, @NotNull BlockState blockState, @NotNull LivingEntity livingEntity, @NotNull ItemStack itemStack) {
-        NbtCompound tag = itemStack.getOrCreateNbt();
-        if (tag.contains("EntityIds", NbtElement.LIST_TYPE)) {
-            NbtList mob = tag.getList("EntityIds", NbtElement.STRING_TYPE);
+        SpawnerData spawnerData = SpawnerData.fromItem(itemStack);
+        if (spawnerData == null)
+            return;
+        
+        // Mobs that are no longer allowed (Eg; Added to the blacklist) are not spawned
+        spawnerData = spawnerData.allowed();
+        if (spawnerData.isEmpty())
+            return;
+        
+        // Get the mob spawner entity
+        BlockEntity blockEntity = world.getBlockEntity(blockPos);
+        if (blockEntity instanceof MobSpawnerBlockEntity) {
+            NbtCompound spawnerTag = blockEntity.createNbt();
             
-            // Get the mob spawner entity
-            BlockEntity blockEntity = world.getBlockEntity(blockPos);
-            if (blockEntity instanceof MobSpawnerBlockEntity) {
-                NbtCompound spawnerTag = blockEntity.createNbtWithIdentifyingData();
-                
-                // Get the mobs to spawn
-                NbtList spawnPotentials = new NbtList();
-                
-                for (NbtElement spawn : mob) {
-                    String mobIdentifier = spawn.asString();
-                    NbtCompound mobTag = new NbtCompound();
-                    NbtCompound entity = new NbtCompound();
-                    NbtCompound data = new NbtCompound();
-                    
-                    entity.putString("id", mobIdentifier);
-                    mobTag.put("entity", entity);
-                    data.putInt("weight", 1);
-                    data.put("data", mobTag);
-                    
-                    spawnPotentials.add(data);
-                }
-                
-                // Update the tag
-                spawnerTag.getCompound("SpawnData")
-                    .getCompound("entity")
-                    .putString("id", mob.get(0).asString());
-                spawnerTag.put("SpawnPotentials", spawnPotentials);
-                
-                // Save to block
-                BlockEntity.createFromNbt(blockPos, blockState, spawnerTag);
-            }
+            // Update the tag
+            spawnerData.writeSpawner(spawnerTag);
+            
+            // Save to block
+            blockEntity.readNbt(spawnerTag);
+            blockEntity.markDirty();
         }
     }
     
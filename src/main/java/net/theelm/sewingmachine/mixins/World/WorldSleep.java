@@ -28,17 +28,26 @@ package net.theelm.sewingmachine.mixins.World;
 import net.theelm.sewingmachine.CoreMod;
 import net.theelm.sewingmachine.config.SewConfig;
 import net.theelm.sewingmachine.interfaces.ConstructableEntity;
+import net.theelm.sewingmachine.interfaces.LeaderboardHolder;
 import net.theelm.sewingmachine.interfaces.LogicalWorld;
 import net.theelm.sewingmachine.interfaces.TickableContext;
+import net.theelm.sewingmachine.objects.AnimalCensus;
+import net.theelm.sewingmachine.objects.CampfireRegistry;
 import net.theelm.sewingmachine.objects.DetachedTickableContext;
+import net.theelm.sewingmachine.objects.ExperienceClumps;
+import net.theelm.sewingmachine.objects.PlayerSpatialIndex;
+import net.theelm.sewingmachine.objects.ShopRegistry;
+import net.theelm.sewingmachine.objects.WorldPropertiesWriter;
 import net.theelm.sewingmachine.utilities.CasingUtils;
 import net.theelm.sewingmachine.utilities.ChunkUtils;
 import net.theelm.sewingmachine.utilities.IntUtils;
 import net.theelm.sewingmachine.utilities.TitleUtils;
-import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
 import net.theelm.sewingmachine.utilities.text.MessageUtils;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.boss.WitherEntity;
+import net.minecraft.entity.passive.AnimalEntity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.LiteralText;
 import net.minecraft.util.ProgressListener;
@@ -47,6 +56,7 @@ import net.minecraft.util.registry.DynamicRegistryManager;
 import net.minecraft.util.registry.RegistryEntry;
 import net.minecraft.util.registry.RegistryKey;
 import net.minecraft.world.MutableWorldProperties;
+import net.minecraft.world.PersistentStateManager;
 import net.minecraft.world.ServerWorldAccess;
 import net.minecraft.world.World;
 import net.minecraft.world.dimension.DimensionType;
@@ -75,6 +85,11 @@ import java.util.function.Supplier;
 public abstract class WorldSleep extends World implements LogicalWorld, ServerWorldAccess {
     private final @NotNull Queue<DetachedTickableContext> detachedTickableQueue = new ArrayDeque<>();
     private final @NotNull List<DetachedTickableContext> detachedEvents = new LinkedList<>();
+    private final @NotNull PlayerSpatialIndex playerIndex = new PlayerSpatialIndex();
+    private final @NotNull AnimalCensus animalCensus = new AnimalCensus();
+    private final @NotNull ExperienceClumps experienceClumps = new ExperienceClumps();
+    private final @NotNull CampfireRegistry campfires = new CampfireRegistry();
+    private @Nullable ShopRegistry shopRegistry = null;
 
     protected WorldSleep(MutableWorldProperties properties, RegistryKey<World> registryRef, RegistryEntry<DimensionType> registryEntry, Supplier<Profiler> profiler, boolean isClient, boolean debugWorld, long seed) {
         super(properties, registryRef, registryEntry, profiler, isClient, debugWorld, seed);
@@ -82,6 +97,7 @@ public abstract class WorldSleep extends World implements LogicalWorld, ServerWo
 
 
     @Shadow public native DynamicRegistryManager getRegistryManager();
+    @Shadow public native PersistentStateManager getPersistentStateManager();
     
     @Inject(at = @At(value = "INVOKE", shift = At.Shift.AFTER, target = "net/minecraft/server/world/ServerWorld.setTimeOfDay(J)V"), method = "tick")
     public void onTick(BooleanSupplier booleanSupplier, CallbackInfo callback) {
@@ -111,6 +127,16 @@ public abstract class WorldSleep extends World implements LogicalWorld, ServerWo
             if (entity instanceof WitherEntity)
                 CoreMod.logInfo("A new Wither Boss was summoned at " + MessageUtils.xyzToString(entity.getBlockPos()));
         }
+        
+        // Count newly spawned animals in their pen
+        if (entity instanceof AnimalEntity animal && callback.getReturnValue())
+            this.animalCensus.update(animal);
+    }
+    
+    @Inject(at = @At("HEAD"), method = "removePlayer")
+    public void onRemovePlayer(@NotNull ServerPlayerEntity player, @NotNull Entity.RemovalReason reason, @NotNull CallbackInfo callback) {
+        // Players leaving the world (Disconnect, respawn, or changing dimension)
+        this.playerIndex.remove(player);
     }
     
     @Inject(at = @At("RETURN"), method = "tickTime")
@@ -128,6 +154,23 @@ public abstract class WorldSleep extends World implements LogicalWorld, ServerWo
             if (tickable.isRemoved())
                 iterator.remove();
         }
+        
+        // Forget animals that were unloaded or despawned
+        if (this.getTime() % AnimalCensus.BREEDING_CYCLE == 0)
+            this.animalCensus.sweep();
+        
+        // Merge the experience orbs that were collected during the last pass
+        this.experienceClumps.merge(SewConfig.get(SewConfig.EXPERIENCE_CLUMP_LIMIT));
+        
+        // Put out campfires when it is raining
+        this.campfires.tick(this.toServerWorld());
+        
+        // Update the scoreboard leaderboards once per server tick
+        if (this.getRegistryKey().equals(World.OVERWORLD)) {
+            MinecraftServer server = this.toServerWorld().getServer();
+            ((LeaderboardHolder)server.getScoreboard()).getLeaderboards()
+                .tick(server);
+        }
     }
     
     @Inject(at = @At("TAIL"), method = "save")
@@ -136,9 +179,10 @@ public abstract class WorldSleep extends World implements LogicalWorld, ServerWo
         
         // If the world should save it's properties to a different location
         if ((!key.equals(World.OVERWORLD)) && !bl && SewConfig.get(SewConfig.WORLD_SEPARATE_PROPERTIES)) {
-            NbtUtils.writeWorldDat(
+            WorldPropertiesWriter.queue(
                 this.toServerWorld(),
-                this.getLevelProperties()
+                this.getLevelProperties(),
+                flush
             );
         }
     }
@@ -149,4 +193,27 @@ public abstract class WorldSleep extends World implements LogicalWorld, ServerWo
         this.detachedTickableQueue.add(tickable);
         return tickable;
     }
+    
+    @Override
+    public @NotNull PlayerSpatialIndex getPlayerIndex() {
+        return this.playerIndex;
+    }
+    @Override
+    public @NotNull ShopRegistry getShopRegistry() {
+        if (this.shopRegistry == null)
+            this.shopRegistry = this.getPersistentStateManager().getOrCreate(ShopRegistry::fromNbt, ShopRegistry::new, ShopRegistry.ID);
+        return this.shopRegistry;
+    }
+    @Override
+    public @NotNull AnimalCensus getAnimalCensus() {
+        return this.animalCensus;
+    }
+    @Override
+    public @NotNull ExperienceClumps getExperienceClumps() {
+        return this.experienceClumps;
+    }
+    @Override
+    public @NotNull CampfireRegistry getCampfires() {
+        return this.campfires;
+    }
 }
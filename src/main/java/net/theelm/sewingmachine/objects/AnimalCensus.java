@@ -0,0 +1,209 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import net.theelm.sewingmachine.interfaces.AutoBreeder;
+import net.theelm.sewingmachine.utilities.EntityUtils;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.passive.AnimalEntity;
+import net.minecraft.util.math.ChunkPos;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A census of the animals in a single world, grouped into pens by the chunk they are standing in and their type
+ *   Auto-breeding is coordinated per pen, so a pen full of breeders makes one pass every cycle instead of every
+ *   animal searching the world for its own mate
+ */
+public final class AnimalCensus {
+    // How often a pen attempts to breed
+    public static final int BREEDING_CYCLE = 1100;
+    // The largest pen that will continue to breed
+    public static final int POPULATION_CAP = 20;
+    
+    private final @NotNull Long2ObjectMap<Map<EntityType<?>, Pen>> pens = new Long2ObjectOpenHashMap<>();
+    private final @NotNull Object2LongMap<AnimalEntity> positions = new Object2LongOpenHashMap<>();
+    
+    /**
+     * Update the pen of an animal, should be called when the animal spawns and periodically as it moves
+     * @param animal The animal to update
+     * @return The pen that the animal is in
+     */
+    public @NotNull Pen update(@NotNull AnimalEntity animal) {
+        long key = ChunkPos.toLong(animal.getBlockX() >> 4, animal.getBlockZ() >> 4);
+        if (this.positions.containsKey(animal)) {
+            long previous = this.positions.getLong(animal);
+            if (previous == key) {
+                Pen pen = this.getPen(key, animal.getType());
+                if (pen != null)
+                    return pen;
+            } else this.removeFromPen(previous, animal);
+        }
+        
+        this.positions.put(animal, key);
+        Pen pen = this.pens.computeIfAbsent(key, (k) -> new HashMap<>())
+            .computeIfAbsent(animal.getType(), (type) -> new Pen(key, type, animal.world.getTime()));
+        pen.animals.add(animal);
+        return pen;
+    }
+    
+    /**
+     * Remove an animal from the census when it dies
+     * @param animal The animal to remove
+     */
+    public void remove(@NotNull AnimalEntity animal) {
+        if (this.positions.containsKey(animal))
+            this.removeFromPen(this.positions.removeLong(animal), animal);
+    }
+    private void removeFromPen(long key, @NotNull AnimalEntity animal) {
+        Map<EntityType<?>, Pen> types = this.pens.get(key);
+        if (types == null)
+            return;
+        Pen pen = types.get(animal.getType());
+        if (pen != null && pen.animals.remove(animal) && pen.animals.isEmpty()) {
+            types.remove(animal.getType());
+            if (types.isEmpty())
+                this.pens.remove(key);
+        }
+    }
+    
+    /**
+     * Drop any animals that have been removed from the world without dying (Unloaded or despawned)
+     * @param pen The pen to clean
+     */
+    private void prune(@NotNull Pen pen) {
+        Iterator<AnimalEntity> iterator = pen.animals.iterator();
+        while (iterator.hasNext()) {
+            AnimalEntity animal = iterator.next();
+            if (animal.isRemoved()) {
+                iterator.remove();
+                this.positions.removeLong(animal);
+            }
+        }
+    }
+    
+    /**
+     * Drop the animals of every pen that have been removed from the world, so unloaded chunks don't hold onto their animals
+     */
+    public void sweep() {
+        Iterator<Map<EntityType<?>, Pen>> chunks = this.pens.values().iterator();
+        while (chunks.hasNext()) {
+            Map<EntityType<?>, Pen> types = chunks.next();
+            Iterator<Pen> iterator = types.values().iterator();
+            while (iterator.hasNext()) {
+                Pen pen = iterator.next();
+                this.prune(pen);
+                if (pen.animals.isEmpty())
+                    iterator.remove();
+            }
+            if (types.isEmpty())
+                chunks.remove();
+        }
+    }
+    
+    private @Nullable Pen getPen(long key, @NotNull EntityType<?> type) {
+        Map<EntityType<?>, Pen> types = this.pens.get(key);
+        return types == null ? null : types.get(type);
+    }
+    
+    public int size() {
+        return this.positions.size();
+    }
+    
+    /**
+     * Pair up the breeders in a pen if the pen is due for its breeding cycle
+     * @param pen The pen to breed
+     * @param time The current world time
+     * @param random The random to decide if a breeder will look for a mate
+     */
+    public void breed(@NotNull Pen pen, long time, @NotNull Random random) {
+        if (time < pen.nextCycle)
+            return;
+        pen.nextCycle = time + AnimalCensus.BREEDING_CYCLE;
+        
+        this.prune(pen);
+        
+        // Stop breeding once the pen is full, each pair will add one more animal
+        int available = AnimalCensus.POPULATION_CAP - pen.animals.size();
+        if (available <= 0)
+            return;
+        
+        List<AnimalEntity> unpaired = new ArrayList<>(pen.animals);
+        for (int i = 0; i < unpaired.size() && available > 0; i++) {
+            AnimalEntity breeder = unpaired.get(i);
+            if (!(breeder instanceof AutoBreeder autoBreeder && autoBreeder.isAutoBreeding()) || !random.nextBoolean())
+                continue;
+            
+            for (int j = i + 1; j < unpaired.size(); j++) {
+                AnimalEntity mate = unpaired.get(j);
+                if (AnimalCensus.isNearby(breeder, mate) && EntityUtils.areBreedable(breeder, mate)) {
+                    mate.lovePlayer(null);
+                    breeder.lovePlayer(null);
+                    
+                    // Neither animal can be paired again this cycle
+                    unpaired.remove(j);
+                    available--;
+                    break;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Pens can stack vertically within a chunk, so mates still need to be near each other
+     */
+    private static boolean isNearby(@NotNull AnimalEntity breeder, @NotNull AnimalEntity mate) {
+        return Math.abs(breeder.getX() - mate.getX()) <= 4.0D
+            && Math.abs(breeder.getY() - mate.getY()) <= 1.0D
+            && Math.abs(breeder.getZ() - mate.getZ()) <= 4.0D;
+    }
+    
+    public static final class Pen {
+        private final @NotNull List<AnimalEntity> animals = new ArrayList<>();
+        private long nextCycle;
+        
+        private Pen(long key, @NotNull EntityType<?> type, long time) {
+            // Stagger the pens so that they don't all breed on the same tick
+            this.nextCycle = time + Math.floorMod(HashCommon.mix(key ^ type.hashCode()), AnimalCensus.BREEDING_CYCLE);
+        }
+        
+        public int size() {
+            return this.animals.size();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import net.theelm.sewingmachine.CoreMod;
+import net.theelm.sewingmachine.enums.ClaimPermissions;
+import net.theelm.sewingmachine.utilities.EntityUtils;
+import net.minecraft.block.BeehiveBlock;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockEntityProvider;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BeehiveBlockEntity;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.sound.SoundEvent;
+import net.minecraft.sound.SoundEvents;
+import net.minecraft.tag.TagKey;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.InvalidIdentifierException;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.util.registry.RegistryEntry;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The claim permission that protects interacting with each block, and the sound played when it is locked
+ *   Every block is classified once into a table indexed by its raw registry id, so an interaction is a single lookup.
+ *   The config can override blocks by "namespace:block" or "#namespace:tag" keys with a permission name, "NONE" to
+ *   leave a block unlocked, or an object with a "permission" and a "sound". Blocks that are not overridden use the
+ *   built-in defaults, and blocks that are only known by their block entity are classified the first time one is
+ *   used. Tags are read when the table is built, which happens again after the config is reloaded.
+ */
+public final class BlockLocks {
+    // The block is not locked
+    private static final byte NONE = -1;
+    // The block is classified by its block entity when it is first used
+    private static final byte UNRESOLVED = -2;
+    // The override does not change the permission
+    private static final byte KEEP = -3;
+    
+    private final @NotNull JsonObject source;
+    private final @NotNull List<Identifier> blocks;
+    private final @NotNull List<TagKey<Block>> tags;
+    private final @NotNull List<LockOverride> blockOverrides;
+    private final @NotNull List<LockOverride> tagOverrides;
+    
+    private @Nullable byte[] permissions = null;
+    private @Nullable SoundEvent[] sounds = null;
+    
+    public BlockLocks() {
+        this(new JsonObject(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+    private BlockLocks(@NotNull JsonObject source, @NotNull List<Identifier> blocks, @NotNull List<LockOverride> blockOverrides, @NotNull List<TagKey<Block>> tags, @NotNull List<LockOverride> tagOverrides) {
+        this.source = source;
+        this.blocks = blocks;
+        this.blockOverrides = blockOverrides;
+        this.tags = tags;
+        this.tagOverrides = tagOverrides;
+    }
+    
+    /**
+     * Get the permission that is required to interact with a block
+     * @param block The block
+     * @param blockEntity The block entity of the block, if it has one
+     * @return The permission, or NULL if the block is not locked
+     */
+    public @Nullable ClaimPermissions getPermission(@NotNull Block block, @Nullable BlockEntity blockEntity) {
+        byte[] permissions = this.compile();
+        int raw = Registry.BLOCK.getRawId(block);
+        
+        boolean compiled = raw >= 0 && raw < permissions.length;
+        byte permission = compiled ? permissions[raw] : BlockLocks.getDefault(block);
+        if (permission == BlockLocks.UNRESOLVED) {
+            if (blockEntity == null)
+                return null;
+            
+            // A block always has the same type of block entity, so it only needs to be checked once
+            permission = BlockLocks.getDefault(blockEntity);
+            if (compiled)
+                permissions[raw] = permission;
+        }
+        
+        return permission < 0 ? null : ClaimPermissions.values()[permission];
+    }
+    
+    /**
+     * Get the sound played when a player is not allowed to interact with a block
+     * @param block The block
+     * @param blockState The state of the block, if known
+     * @param blockEntity The block entity of the block, if known
+     * @return The sound to play
+     */
+    public @NotNull SoundEvent getSound(@NotNull Block block, @Nullable BlockState blockState, @Nullable BlockEntity blockEntity) {
+        this.compile();
+        SoundEvent[] sounds = this.sounds;
+        int raw = Registry.BLOCK.getRawId(block);
+        
+        SoundEvent sound = (sounds == null || raw < 0 || raw >= sounds.length) ? null : sounds[raw];
+        if (sound != null)
+            return sound;
+        
+        // Beehives sound different depending on what is inside
+        if (blockEntity instanceof BeehiveBlockEntity hive) {
+            if (!hive.hasNoBees())
+                return SoundEvents.BLOCK_BEEHIVE_WORK;
+            return (blockState != null && (BeehiveBlockEntity.getHoneyLevel(blockState) > 0) ? SoundEvents.BLOCK_BEEHIVE_DRIP : EntityUtils.getDefaultLockSound());
+        }
+        
+        return EntityUtils.getDefaultLockSound(block);
+    }
+    
+    /**
+     * Build the tables of every registered block, once all blocks are registered and tags are loaded
+     * @return The permission table
+     */
+    private @NotNull byte[] compile() {
+        if (this.permissions != null)
+            return this.permissions;
+        
+        int size = Registry.BLOCK.size();
+        byte[] permissions = new byte[size];
+        SoundEvent[] sounds = new SoundEvent[size];
+        
+        // Start with the built-in defaults
+        for (Block block : Registry.BLOCK) {
+            int raw = Registry.BLOCK.getRawId(block);
+            permissions[raw] = BlockLocks.getDefault(block);
+            
+            // Beehives are left empty, as their sound depends on the block entity
+            if (!(block instanceof BeehiveBlock))
+                sounds[raw] = EntityUtils.getDefaultLockSound(block);
+        }
+        
+        // Apply tags first, so that single blocks can override a tag that they are in
+        for (int i = 0; i < this.tags.size(); i++) {
+            LockOverride override = this.tagOverrides.get(i);
+            for (RegistryEntry<Block> entry : Registry.BLOCK.iterateEntries(this.tags.get(i)))
+                override.apply(permissions, sounds, Registry.BLOCK.getRawId(entry.value()));
+        }
+        for (int i = 0; i < this.blocks.size(); i++) {
+            Identifier id = this.blocks.get(i);
+            Block block = Registry.BLOCK.getOrEmpty(id)
+                .orElse(null);
+            if (block == null)
+                CoreMod.logError("Unable to find lock block \"" + id + "\" in the block registry.");
+            else this.blockOverrides.get(i)
+                .apply(permissions, sounds, Registry.BLOCK.getRawId(block));
+        }
+        
+        this.sounds = sounds;
+        return this.permissions = permissions;
+    }
+    
+    private static byte getDefault(@NotNull Block block) {
+        ClaimPermissions permission = EntityUtils.getDefaultLockPermission(block);
+        if (permission != null)
+            return (byte) permission.ordinal();
+        return block instanceof BlockEntityProvider ? BlockLocks.UNRESOLVED : BlockLocks.NONE;
+    }
+    private static byte getDefault(@NotNull BlockEntity blockEntity) {
+        ClaimPermissions permission = EntityUtils.getDefaultLockPermission(blockEntity);
+        return permission == null ? BlockLocks.NONE : (byte) permission.ordinal();
+    }
+    
+    public static @NotNull BlockLocks parse(@NotNull JsonElement root) {
+        JsonObject list = root.getAsJsonObject();
+        
+        List<Identifier> blocks = new ArrayList<>();
+        List<LockOverride> blockOverrides = new ArrayList<>();
+        List<TagKey<Block>> tags = new ArrayList<>();
+        List<LockOverride> tagOverrides = new ArrayList<>();
+        
+        // Parse each object in the array
+        for ( Map.Entry<String, JsonElement> row : list.entrySet() ) {
+            String token = row.getKey();
+            Identifier id = BlockLocks.getIdentifier(token.startsWith("#") ? token.substring(1) : token);
+            if (id == null) {
+                CoreMod.logError("Unable to parse lock for \"" + token + "\", it is not a valid identifier.");
+                continue;
+            }
+            
+            // Overrides that could not be parsed are skipped
+            LockOverride override = BlockLocks.getOverride(token, row.getValue());
+            if (override == null)
+                continue;
+            
+            if (token.startsWith("#")) {
+                tags.add(TagKey.of(Registry.BLOCK_KEY, id));
+                tagOverrides.add(override);
+            } else {
+                blocks.add(id);
+                blockOverrides.add(override);
+            }
+        }
+        
+        return new BlockLocks(list, blocks, blockOverrides, tags, tagOverrides);
+    }
+    public static JsonElement serializer(@NotNull BlockLocks src, @NotNull Gson gson) {
+        return src.source;
+    }
+    
+    private static @Nullable LockOverride getOverride(@NotNull String token, @NotNull JsonElement element) {
+        if (element instanceof JsonNull)
+            return new LockOverride(BlockLocks.NONE, null);
+        if (element instanceof JsonObject object) {
+            byte permission = object.has("permission") ? BlockLocks.getPermission(token, object.get("permission")) : BlockLocks.KEEP;
+            SoundEvent sound = null;
+            if (object.has("sound")) {
+                Identifier id = BlockLocks.getIdentifier(object.get("sound").getAsString());
+                if (id == null || (sound = Registry.SOUND_EVENT.get(id)) == null)
+                    CoreMod.logError("Unable to find lock sound \"" + object.get("sound").getAsString() + "\" for \"" + token + "\".");
+            }
+            return new LockOverride(permission, sound);
+        }
+        
+        byte permission = BlockLocks.getPermission(token, element);
+        return permission == BlockLocks.KEEP ? null : new LockOverride(permission, null);
+    }
+    private static byte getPermission(@NotNull String token, @NotNull JsonElement element) {
+        if (element instanceof JsonNull)
+            return BlockLocks.NONE;
+        
+        String name = element.getAsString()
+            .toUpperCase(Locale.ROOT);
+        if (name.equals("NONE"))
+            return BlockLocks.NONE;
+        try {
+            return (byte) ClaimPermissions.valueOf(name).ordinal();
+        } catch (IllegalArgumentException e) {
+            CoreMod.logError("Unable to parse lock for \"" + token + "\", \"" + name + "\" is not a permission.");
+            return BlockLocks.KEEP;
+        }
+    }
+    private static @Nullable Identifier getIdentifier(@NotNull String token) {
+        try {
+            return new Identifier(token);
+        } catch (InvalidIdentifierException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * A configured change to the lock of a block
+     */
+    private static final class LockOverride {
+        private final byte permission;
+        private final @Nullable SoundEvent sound;
+        
+        private LockOverride(byte permission, @Nullable SoundEvent sound) {
+            this.permission = permission;
+            this.sound = sound;
+        }
+        
+        private void apply(@NotNull byte[] permissions, @NotNull SoundEvent[] sounds, int raw) {
+            if (this.permission != BlockLocks.KEEP)
+                permissions[raw] = this.permission;
+            if (this.sound != null)
+                sounds[raw] = this.sound;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import net.theelm.sewingmachine.config.SewConfig;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.CampfireBlock;
+import net.minecraft.block.entity.CampfireBlockEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.sound.SoundCategory;
+import net.minecraft.sound.SoundEvents;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.biome.Biome;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The loaded campfires of a single world, which are put out when it rains on them
+ *   Nothing is checked while the weather is clear. When rain starts every campfire is queued, and the queue is worked
+ *   through a few campfires each tick. While it keeps raining the campfires are queued again now and then, to put
+ *   out any that were lit or loaded during the rain.
+ */
+public final class CampfireRegistry {
+    // The most campfires that are checked in a single tick
+    private static final int CHECKS_PER_TICK = 16;
+    // How often campfires are queued again while it is raining
+    private static final int RAIN_SWEEP_INTERVAL = 200;
+    
+    private final @NotNull Long2ObjectMap<CampfireBlockEntity> campfires = new Long2ObjectLinkedOpenHashMap<>();
+    private final @NotNull LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+    private boolean raining = false;
+    
+    /**
+     * Track a campfire once it has been placed or loaded
+     * @param campfire The campfire
+     */
+    public void add(@NotNull CampfireBlockEntity campfire) {
+        long pos = campfire.getPos().asLong();
+        this.campfires.put(pos, campfire);
+        if (this.raining)
+            this.queue.enqueue(pos);
+    }
+    
+    /**
+     * Stop tracking a campfire that was broken or unloaded
+     * @param campfire The campfire
+     */
+    public void remove(@NotNull CampfireBlockEntity campfire) {
+        // A campfire replaced at the same position is removed after its replacement was added
+        long pos = campfire.getPos().asLong();
+        if (this.campfires.get(pos) == campfire)
+            this.campfires.remove(pos);
+    }
+    
+    public int size() {
+        return this.campfires.size();
+    }
+    
+    /**
+     * Check the queued campfires, should be called once per tick
+     * @param world The world that the campfires are in
+     */
+    public void tick(@NotNull ServerWorld world) {
+        if (!world.isRaining() || this.campfires.isEmpty() || !SewConfig.get(SewConfig.EXTINGUISH_CAMPFIRES)) {
+            if (this.raining) {
+                this.raining = false;
+                this.queue.clear();
+            }
+            return;
+        }
+        
+        // Queue every campfire when the rain starts, and again every so often until it stops
+        if (!this.raining || (this.queue.isEmpty() && world.getTime() % CampfireRegistry.RAIN_SWEEP_INTERVAL == 0)) {
+            this.raining = true;
+            this.queue.clear();
+            for (long pos : this.campfires.keySet())
+                this.queue.enqueue(pos);
+        }
+        
+        for (int i = 0; i < CampfireRegistry.CHECKS_PER_TICK && !this.queue.isEmpty(); i++) {
+            long pos = this.queue.dequeueLong();
+            if (this.campfires.containsKey(pos))
+                this.extinguish(world, BlockPos.fromLong(pos));
+        }
+    }
+    private void extinguish(@NotNull ServerWorld world, @NotNull BlockPos pos) {
+        BlockState state = world.getBlockState(pos);
+        
+        // If currently LIT, is in a raining BIOME, and VISIBLE TO SKY
+        if (state.getBlock() instanceof CampfireBlock && state.get(CampfireBlock.LIT) && (world.getBiome(pos).value().getPrecipitation() == Biome.Precipitation.RAIN) && world.isSkyVisible(pos)) {
+            world.setBlockState(pos, state.with(CampfireBlock.LIT, false));
+            world.playSound(null, pos, SoundEvents.BLOCK_FIRE_EXTINGUISH, SoundCategory.BLOCKS, 1.0f, 1.0f);
+        }
+    }
+}
@@ -35,32 +35,37 @@ import net.theelm.sewingmachine.utilities.ChatVariables;
 import net.theelm.sewingmachine.utilities.FormattingUtils;
 import net.theelm.sewingmachine.utilities.text.TextUtils;
 import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.LiteralText;
 import net.minecraft.text.MutableText;
+import net.minecraft.text.Style;
 import net.minecraft.text.Text;
-import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public final class ChatFormat {
+    private static final @NotNull Pattern VARIABLE = Pattern.compile("\\$\\{([A-Za-z.]+)([\\^_]{0,2})}");
+    
     private final String raw;
-    private final Text formatted;
+    private final @NotNull Segment[] segments;
     
     private ChatFormat(@NotNull String raw) {
         this.raw = raw;
-        this.formatted = FormattingUtils.stringToText(raw);
+        this.segments = ChatFormat.compile(FormattingUtils.stringToText(raw));
         
         // Debug
         CoreMod.logDebug(raw);
     }
     
     public @NotNull Text format(@NotNull final ServerCommandSource source, @NotNull final ChatRooms chatRoom, @NotNull final Text message) {
-        return FormattingUtils.visitVariables(
-            TextUtils.deepCopy(this.formatted),
-            (text, segment) -> ChatFormat.replaceVariables(text, segment, source, chatRoom, message)
-        );
+        MutableText out = TextUtils.literal();
+        for (Segment segment : this.segments)
+            out.append(segment.render(source, chatRoom, message));
+        return out;
     }
     
     @Override
@@ -77,52 +82,122 @@ public final class ChatFormat {
     public static JsonElement serializer(@NotNull ChatFormat src, @NotNull Gson gson) {
         return gson.toJsonTree(src.toString());
     }
-    private static @Contract("_, null, _, _, _ -> null") String replaceVariables(
-        @NotNull final MutableText text,
-        @Nullable final String segment,
-        @NotNull final ServerCommandSource source,
-        @NotNull final ChatRooms chatRoom,
-        @NotNull final Text message
-    ) {
-        String out = segment;
-        if (out != null) {
-            // If description contains
-            Pattern pattern = Pattern.compile("\\$\\{([A-Za-z.]+)([\\^_]{0,2})}");
-            Matcher matcher = pattern.matcher(segment);
+    
+    /**
+     * Split the colored segments of the format into literal and variable nodes, only done once when the config is loaded
+     * @param formatted The colored text from the raw config string
+     * @return The compiled segments of the format
+     */
+    private static @NotNull Segment[] compile(@Nullable Text formatted) {
+        if (formatted == null)
+            return new Segment[0];
+        
+        List<Segment> segments = new ArrayList<>();
+        for (Text text : formatted.getSiblings())
+            segments.add(ChatFormat.compile(text.getStyle(), text.asString()));
+        
+        return segments.toArray(new Segment[0]);
+    }
+    private static @NotNull Segment compile(@NotNull Style style, @Nullable String segment) {
+        List<Node> nodes = new ArrayList<>();
+        if (segment != null) {
+            Matcher matcher = ChatFormat.VARIABLE.matcher(segment);
             int end = 0;
             
             while (matcher.find()) {
                 String key = matcher.group(1);
                 ChatFunction function = ChatVariables.get(key.toLowerCase());
-                if (function != null) {
-                    if (!function.canBeParsed(source))
-                        continue;
-                    
-                    // Change val casing
-                    String mod = matcher.group(2);
-                    CasingUtils.Casing casing = switch (mod) {
-                        case "__" -> CasingUtils.Casing.LOWER;
-                        case "^^" -> CasingUtils.Casing.UPPER;
-                        case "^" -> CasingUtils.Casing.WORDS;
-                        default -> CasingUtils.Casing.DEFAULT;
-                    };
-                    
-                    // Prefixed text
-                    String pre = segment.substring(end, matcher.start());
-                    if (end == 0) out = pre; else text.append(pre);
-                    
-                    // Add
-                    text.append(function.parseVar(source, chatRoom, message, casing));
-                    
-                    // Suffixed text
-                    end = matcher.end();
-                }
+                if (function == null)
+                    continue;
+                
+                // Change val casing
+                CasingUtils.Casing casing = switch (matcher.group(2)) {
+                    case "__" -> CasingUtils.Casing.LOWER;
+                    case "^^" -> CasingUtils.Casing.UPPER;
+                    case "^" -> CasingUtils.Casing.WORDS;
+                    default -> CasingUtils.Casing.DEFAULT;
+                };
+                
+                // Prefixed text
+                if (matcher.start() > end)
+                    nodes.add(new LiteralNode(segment.substring(end, matcher.start())));
+                
+                // Add
+                nodes.add(new VariableNode(function, casing, matcher.group()));
+                
+                // Suffixed text
+                end = matcher.end();
             }
             
             // Append anything trailing the text
-            if (end != 0)
-                text.append(segment.substring(end));
+            if (end < segment.length())
+                nodes.add(new LiteralNode(segment.substring(end)));
+        }
+        
+        return new Segment(style, nodes.toArray(new Node[0]));
+    }
+    
+    /**
+     * A single colored part of the format, the Style is immutable and is shared by every rendered message
+     */
+    private static final class Segment {
+        private final @NotNull Style style;
+        private final @NotNull Node[] nodes;
+        
+        private Segment(@NotNull Style style, @NotNull Node[] nodes) {
+            this.style = style;
+            this.nodes = nodes;
+        }
+        
+        public @NotNull MutableText render(@NotNull final ServerCommandSource source, @NotNull final ChatRooms chatRoom, @NotNull final Text message) {
+            int i = 0;
+            
+            // Use the leading literal as the text of the segment itself
+            MutableText text;
+            if (this.nodes.length > 0 && this.nodes[0] instanceof LiteralNode literal) {
+                text = new LiteralText(literal.text);
+                i++;
+            } else text = new LiteralText("");
+            
+            for (; i < this.nodes.length; i++)
+                this.nodes[i].render(text, source, chatRoom, message);
+            
+            return text.setStyle(this.style);
+        }
+    }
+    
+    private interface Node {
+        void render(@NotNull MutableText text, @NotNull ServerCommandSource source, @NotNull ChatRooms chatRoom, @NotNull Text message);
+    }
+    private static final class LiteralNode implements Node {
+        private final @NotNull String text;
+        
+        private LiteralNode(@NotNull String text) {
+            this.text = text;
+        }
+        
+        @Override
+        public void render(@NotNull MutableText text, @NotNull ServerCommandSource source, @NotNull ChatRooms chatRoom, @NotNull Text message) {
+            text.append(this.text);
+        }
+    }
+    private static final class VariableNode implements Node {
+        private final @NotNull ChatFunction function;
+        private final @NotNull CasingUtils.Casing casing;
+        private final @NotNull String raw;
+        
+        private VariableNode(@NotNull ChatFunction function, @NotNull CasingUtils.Casing casing, @NotNull String raw) {
+            this.function = function;
+            this.casing = casing;
+            this.raw = raw;
+        }
+        
+        @Override
+        public void render(@NotNull MutableText text, @NotNull ServerCommandSource source, @NotNull ChatRooms chatRoom, @NotNull Text message) {
+            // Variables that can't be used by the source are left as-is
+            if (!this.function.canBeParsed(source))
+                text.append(this.raw);
+            else text.append(this.function.parseVar(source, chatRoom, message, this.casing));
         }
-        return out;
     }
 }
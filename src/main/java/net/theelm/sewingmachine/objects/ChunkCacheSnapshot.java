@@ -0,0 +1,159 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.profiler.DummyProfiler;
+import net.minecraft.util.profiler.Profiler;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.World;
+import net.minecraft.world.border.WorldBorder;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkCache;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A ChunkCache that copies the block states of the area when it is created,
+ *   so that it can be read by path finding away from the server thread
+ */
+public final class ChunkCacheSnapshot extends ChunkCache {
+    private static final @NotNull BlockState AIR = Blocks.AIR.getDefaultState();
+    
+    private final @NotNull BlockBox bounds;
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int chunksX;
+    private final int chunksZ;
+    private final int bottomSection;
+    
+    // Block states by [chunk][section], null sections are empty
+    private final @Nullable PalettedContainer<BlockState>[][] states;
+    private final long createdAt;
+    
+    // The world border is read while path finding, a copy is kept as the worlds border is changed on the server thread
+    private final @NotNull WorldBorder border = new WorldBorder();
+    
+    @SuppressWarnings("unchecked")
+    public ChunkCacheSnapshot(@NotNull World world, @NotNull BlockPos minPos, @NotNull BlockPos maxPos) {
+        super(world, minPos, maxPos);
+        
+        this.bounds = BlockBox.create(minPos, maxPos);
+        this.minChunkX = ChunkSectionPos.getSectionCoord(minPos.getX());
+        this.minChunkZ = ChunkSectionPos.getSectionCoord(minPos.getZ());
+        this.chunksX = ChunkSectionPos.getSectionCoord(maxPos.getX()) - this.minChunkX + 1;
+        this.chunksZ = ChunkSectionPos.getSectionCoord(maxPos.getZ()) - this.minChunkZ + 1;
+        this.bottomSection = world.getBottomSectionCoord();
+        this.createdAt = world.getTime();
+        this.border.load(world.getWorldBorder().write());
+        
+        // Copy the sections of every chunk that was loaded
+        this.states = new PalettedContainer[this.chunksX * this.chunksZ][];
+        for (int x = 0; x < this.chunksX; x++) {
+            for (int z = 0; z < this.chunksZ; z++) {
+                BlockView view = super.getChunkAsView(this.minChunkX + x, this.minChunkZ + z);
+                if (!(view instanceof Chunk chunk))
+                    continue;
+                
+                ChunkSection[] array = chunk.getSectionArray();
+                PalettedContainer<BlockState>[] copy = new PalettedContainer[array.length];
+                for (int y = 0; y < array.length; y++) {
+                    ChunkSection section = array[y];
+                    if (section != null && !section.isEmpty())
+                        copy[y] = section.getBlockStateContainer().copy();
+                }
+                this.states[x * this.chunksZ + z] = copy;
+            }
+        }
+    }
+    
+    /**
+     * Check if the snapshot can be reused for another search
+     * @param minPos The lower corner of the search
+     * @param maxPos The upper corner of the search
+     * @param time The current world time
+     * @param maxAge The number of ticks that the snapshot is considered up-to-date
+     * @return If the search is inside of the snapshot and the snapshot isn't too old
+     */
+    public boolean covers(@NotNull BlockPos minPos, @NotNull BlockPos maxPos, long time, int maxAge) {
+        return time - this.createdAt <= maxAge
+            && this.bounds.contains(minPos)
+            && this.bounds.contains(maxPos);
+    }
+    
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        if (this.isOutOfHeightLimit(pos))
+            return ChunkCacheSnapshot.AIR;
+        
+        int x = ChunkSectionPos.getSectionCoord(pos.getX()) - this.minChunkX;
+        int z = ChunkSectionPos.getSectionCoord(pos.getZ()) - this.minChunkZ;
+        if (x < 0 || z < 0 || x >= this.chunksX || z >= this.chunksZ)
+            return ChunkCacheSnapshot.AIR;
+        
+        PalettedContainer<BlockState>[] chunk = this.states[x * this.chunksZ + z];
+        int y = ChunkSectionPos.getSectionCoord(pos.getY()) - this.bottomSection;
+        if (chunk == null || y < 0 || y >= chunk.length || chunk[y] == null)
+            return ChunkCacheSnapshot.AIR;
+        
+        return chunk[y].get(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+    }
+    
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return this.getBlockState(pos).getFluidState();
+    }
+    
+    @Override
+    public @Nullable BlockEntity getBlockEntity(BlockPos pos) {
+        // Block entities are live objects and are not copied
+        return null;
+    }
+    
+    @Override
+    public WorldBorder getWorldBorder() {
+        return this.border;
+    }
+    
+    @Override
+    public @Nullable BlockView getChunkAsView(int chunkX, int chunkZ) {
+        // Collision checks read through the chunk view, so answer them from the snapshot as well
+        return this;
+    }
+    
+    // The world profiler can't be used away from the server thread
+    public Profiler getProfiler() {
+        return DummyProfiler.INSTANCE;
+    }
+}
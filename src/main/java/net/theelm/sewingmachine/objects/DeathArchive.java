@@ -0,0 +1,393 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import net.theelm.sewingmachine.CoreMod;
+import net.theelm.sewingmachine.config.SewConfig;
+import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.Util;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * An archive of player inventories at the time of their death, so that lost items can be restored
+ *   Each player has their own file of records appended one after another. Each record has a small
+ *   uncompressed header (When, where and how) followed by the compressed snapshot, so that the
+ *   deaths of a player can be listed without reading every snapshot. The last byte of the header
+ *   records if the snapshot has been restored, so that it can only be restored once.
+ */
+public final class DeathArchive {
+    private static final @NotNull Map<UUID, List<Entry>> INDEX = new HashMap<>();
+    
+    private DeathArchive() {}
+    
+    /**
+     * Append a snapshot to the archive of a player on the worker threads
+     * @param player The player that died
+     * @param entry The header of the snapshot
+     * @param snapshot The snapshot, which should not be modified after being passed
+     */
+    public static void archive(@NotNull UUID player, @NotNull Entry entry, @NotNull NbtCompound snapshot) {
+        Util.getMainWorkerExecutor().execute(() -> {
+            try {
+                DeathArchive.append(player, entry, snapshot);
+            } catch (IOException e) {
+                CoreMod.logError("Failed to archive the death of " + player, e);
+            }
+        });
+    }
+    
+    /**
+     * Get the archived deaths of a player
+     * @param player The player
+     * @return The deaths, oldest first
+     * @throws IOException If the archive could not be read
+     */
+    public static synchronized @NotNull List<Entry> getDeaths(@NotNull UUID player) throws IOException {
+        return Collections.unmodifiableList(new ArrayList<>(DeathArchive.index(player)));
+    }
+    
+    /**
+     * Read a snapshot from the archive
+     * @param player The player
+     * @param entry The death, from the archive of the player
+     * @return The snapshot that was archived
+     * @throws IOException If the archive could not be read
+     */
+    public static synchronized @NotNull NbtCompound read(@NotNull UUID player, @NotNull Entry entry) throws IOException {
+        Entry current = DeathArchive.locate(player, entry);
+        try (RandomAccessFile file = new RandomAccessFile(DeathArchive.getFile(player).toFile(), "r")) {
+            DeathArchive.verify(file, current);
+            return DeathArchive.readSnapshot(file, current);
+        }
+    }
+    
+    /**
+     * Read a snapshot from the archive to be restored, and mark it as restored so that it can't be restored again
+     * @param player The player
+     * @param entry The death, from the archive of the player
+     * @return The snapshot that was archived, or NULL if it was already restored
+     * @throws IOException If the archive could not be read or updated
+     */
+    public static synchronized @Nullable NbtCompound restore(@NotNull UUID player, @NotNull Entry entry) throws IOException {
+        Entry current = DeathArchive.locate(player, entry);
+        NbtCompound snapshot;
+        try (RandomAccessFile file = new RandomAccessFile(DeathArchive.getFile(player).toFile(), "rw")) {
+            if (current.restored || DeathArchive.verify(file, current).restored) {
+                current.restored = entry.restored = true;
+                return null;
+            }
+            snapshot = DeathArchive.readSnapshot(file, current);
+            
+            // Rewrite the flag at the end of the header, in place
+            file.seek(current.offset - 1);
+            file.writeBoolean(true);
+        }
+        current.restored = entry.restored = true;
+        
+        return snapshot;
+    }
+    
+    /**
+     * Forget the archives that were read, when the server stops
+     */
+    public static synchronized void clear() {
+        DeathArchive.INDEX.clear();
+    }
+    
+    private static synchronized void append(@NotNull UUID player, @NotNull Entry entry, @NotNull NbtCompound snapshot) throws IOException {
+        int limit = SewConfig.get(SewConfig.DEATH_ARCHIVE_LIMIT);
+        if (limit <= 0)
+            return;
+        
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        NbtIo.writeCompressed(snapshot, compressed);
+        byte[] bytes = compressed.toByteArray();
+        
+        // Load the index before the file is changed
+        List<Entry> index = DeathArchive.index(player);
+        Path path = DeathArchive.getFile(player);
+        Files.createDirectories(path.getParent());
+        
+        // Cut off anything after the last complete record (From a crash while writing)
+        long start = index.isEmpty() ? 0 : index.get(index.size() - 1).end();
+        if (Files.exists(path) && Files.size(path) > start) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(start);
+            }
+        }
+        try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+            entry.offset = start + entry.writeHeader(stream, bytes.length);
+            stream.write(bytes);
+        }
+        index.add(entry);
+        
+        // Drop the oldest deaths past the limit
+        if (index.size() > limit)
+            DeathArchive.compact(player, index, index.size() - limit);
+    }
+    
+    /**
+     * Rewrite the archive of a player without the oldest deaths
+     * @param player The player
+     * @param index The index of the archive
+     * @param drop How many of the oldest deaths to drop
+     * @throws IOException If the archive could not be rewritten
+     */
+    private static void compact(@NotNull UUID player, @NotNull List<Entry> index, int drop) throws IOException {
+        Path path = DeathArchive.getFile(player);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        List<Entry> kept = new ArrayList<>(index.subList(drop, index.size()));
+        
+        long[] offsets = new long[kept.size()];
+        
+        try (RandomAccessFile source = new RandomAccessFile(path.toFile(), "r");
+             DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            long written = 0;
+            for (int i = 0; i < kept.size(); i++) {
+                Entry entry = kept.get(i);
+                byte[] bytes = new byte[entry.length];
+                source.seek(entry.offset);
+                source.readFully(bytes);
+                
+                // The offsets in the index are only changed once the new file has replaced the old one
+                offsets[i] = written + entry.writeHeader(stream, bytes.length);
+                stream.write(bytes);
+                written = offsets[i] + bytes.length;
+            }
+        }
+        
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (int i = 0; i < kept.size(); i++)
+            kept.get(i).offset = offsets[i];
+        
+        // Entries that were dropped no longer point into the file
+        for (Entry entry : index.subList(0, drop))
+            entry.offset = -1;
+        index.clear();
+        index.addAll(kept);
+    }
+    
+    /**
+     * Find an entry in the current index of a player, as the entry may be from before the archive was compacted
+     * @param player The player
+     * @param entry The death, from the archive of the player
+     * @return The entry in the current index
+     * @throws IOException If the death is no longer in the archive
+     */
+    private static @NotNull Entry locate(@NotNull UUID player, @NotNull Entry entry) throws IOException {
+        List<Entry> index = DeathArchive.index(player);
+        for (Entry current : index) {
+            if (current == entry || current.isSame(entry))
+                return current;
+        }
+        throw new IOException("The death at " + entry.time + " is no longer in the archive of " + player);
+    }
+    
+    /**
+     * Check that the header of a record on disk is the header of the entry, before reading or writing the record
+     * @param file The archive file
+     * @param entry The entry from the current index
+     * @return The header that was read, with the file positioned at the start of the snapshot
+     * @throws IOException If the header on disk is for a different record
+     */
+    private static @NotNull Entry verify(@NotNull RandomAccessFile file, @NotNull Entry entry) throws IOException {
+        long start = entry.offset - entry.headerSize();
+        if (entry.offset < 0 || start < 0 || entry.end() > file.length())
+            throw new IOException("The death at " + entry.time + " is outside of the archive");
+        
+        file.seek(start);
+        Entry header = Entry.readHeader(file);
+        if (!header.isSame(entry) || file.getFilePointer() != entry.offset)
+            throw new IOException("The archive does not match its index at " + start);
+        return header;
+    }
+    private static @NotNull NbtCompound readSnapshot(@NotNull RandomAccessFile file, @NotNull Entry entry) throws IOException {
+        byte[] bytes = new byte[entry.length];
+        file.seek(entry.offset);
+        file.readFully(bytes);
+        return NbtIo.readCompressed(new ByteArrayInputStream(bytes));
+    }
+    
+    private static @NotNull List<Entry> index(@NotNull UUID player) throws IOException {
+        List<Entry> index = DeathArchive.INDEX.get(player);
+        if (index != null)
+            return index;
+        
+        index = new ArrayList<>();
+        Path path = DeathArchive.getFile(player);
+        if (Files.exists(path)) {
+            // Read the headers, skipping over the snapshots
+            try (DataInputStream stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                long position = 0;
+                while (true) {
+                    Entry entry;
+                    try {
+                        entry = Entry.readHeader(stream);
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    
+                    position += entry.headerSize();
+                    entry.offset = position;
+                    position += entry.length;
+                    
+                    // A snapshot cut short by a crash can't be read
+                    try {
+                        stream.skipNBytes(entry.length);
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    index.add(entry);
+                }
+            }
+        }
+        
+        DeathArchive.INDEX.put(player, index);
+        return index;
+    }
+    
+    private static @NotNull Path getFile(@NotNull UUID player) {
+        return NbtUtils.worldSaveFolder(World.OVERWORLD)
+            .resolve(CoreMod.MOD_ID)
+            .resolve("deaths")
+            .resolve(player + ".dat");
+    }
+    
+    public static final class Entry {
+        private final long time;
+        private final @NotNull Identifier world;
+        private final @NotNull BlockPos pos;
+        private final @NotNull String cause;
+        
+        private long offset = -1;
+        private int length = 0;
+        private boolean restored = false;
+        
+        public Entry(long time, @NotNull Identifier world, @NotNull BlockPos pos, @NotNull String cause) {
+            this.time = time;
+            this.world = world;
+            this.pos = pos;
+            this.cause = cause;
+        }
+        
+        public long getTime() {
+            return this.time;
+        }
+        public @NotNull Identifier getWorld() {
+            return this.world;
+        }
+        public @NotNull BlockPos getPos() {
+            return this.pos;
+        }
+        public @NotNull String getCause() {
+            return this.cause;
+        }
+        public boolean isRestored() {
+            return this.restored;
+        }
+        
+        /**
+         * @return How many bytes were written
+         */
+        private int writeHeader(@NotNull DataOutputStream stream, int length) throws IOException {
+            int before = stream.size();
+            this.length = length;
+            stream.writeLong(this.time);
+            stream.writeUTF(this.world.toString());
+            stream.writeLong(this.pos.asLong());
+            stream.writeUTF(this.cause);
+            stream.writeInt(this.length);
+            stream.writeBoolean(this.restored);
+            return stream.size() - before;
+        }
+        private long end() {
+            return this.offset + this.length;
+        }
+        private int headerSize() {
+            return 8 + 2 + DeathArchive.utfLength(this.world.toString()) + 8 + 2 + DeathArchive.utfLength(this.cause) + 4 + 1;
+        }
+        private boolean isSame(@NotNull Entry other) {
+            return this.time == other.time
+                && this.length == other.length
+                && this.world.equals(other.world)
+                && this.pos.equals(other.pos)
+                && this.cause.equals(other.cause);
+        }
+        private static @NotNull Entry readHeader(@NotNull DataInput stream) throws IOException {
+            Entry entry = new Entry(
+                stream.readLong(),
+                new Identifier(stream.readUTF()),
+                BlockPos.fromLong(stream.readLong()),
+                stream.readUTF()
+            );
+            entry.length = stream.readInt();
+            entry.restored = stream.readBoolean();
+            return entry;
+        }
+    }
+    
+    private static int utfLength(@NotNull String str) {
+        // The modified UTF-8 length that DataOutputStream writes
+        int length = 0;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F)
+                length += 1;
+            else if (c > 0x07FF)
+                length += 3;
+            else length += 2;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.theelm.sewingmachine.interfaces.ExperienceClump;
+import net.minecraft.entity.ExperienceOrbEntity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Experience orbs of a single world that are waiting to be merged
+ *   Orbs add themselves while ticking, and the world merges every orb sharing a block position in a single
+ *   pass instead of each orb searching the world for its own neighbours
+ */
+public final class ExperienceClumps {
+    private final @NotNull List<ExperienceOrbEntity> pending = new ArrayList<>();
+    
+    public void add(@NotNull ExperienceOrbEntity orb) {
+        this.pending.add(orb);
+    }
+    
+    public int size() {
+        return this.pending.size();
+    }
+    
+    /**
+     * Merge the waiting orbs that are in the same block into the oldest orb of that block
+     * @param limit The maximum number of orbs to merge in this pass
+     * @return The number of orbs that were merged
+     */
+    public int merge(int limit) {
+        if (this.pending.isEmpty())
+            return 0;
+        
+        int merged = 0;
+        Long2ObjectMap<ExperienceOrbEntity> survivors = new Long2ObjectOpenHashMap<>();
+        for (ExperienceOrbEntity orb : this.pending) {
+            if (merged >= limit)
+                break;
+            if (!orb.isAlive())
+                continue;
+            
+            long key = orb.getBlockPos().asLong();
+            ExperienceOrbEntity survivor = survivors.putIfAbsent(key, orb);
+            if (survivor == null)
+                continue;
+            
+            // Let the oldest live
+            if (((ExperienceClump) orb).getOrbAge() > ((ExperienceClump) survivor).getOrbAge()) {
+                survivors.put(key, orb);
+                ExperienceOrbEntity younger = survivor;
+                survivor = orb;
+                orb = younger;
+            }
+            
+            ((ExperienceClump) survivor).absorb(orb);
+            merged++;
+        }
+        
+        this.pending.clear();
+        return merged;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.theelm.sewingmachine.CoreMod;
+import net.theelm.sewingmachine.utilities.EntityUtils;
+import net.theelm.sewingmachine.utilities.IntUtils;
+import net.minecraft.enchantment.EnchantmentHelper;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.tag.TagKey;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.InvalidIdentifierException;
+import net.minecraft.util.registry.Registry;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Despawn time overrides for item entities, compiled from the config when it is loaded
+ *   Items are stored in a table indexed by their raw registry id, "#namespace:tag" keys match an item tag
+ *   and "@namespace:enchantment" keys match items that carry an enchantment
+ */
+public final class ItemDespawnTimes {
+    // The item does not override the despawn time
+    public static final int NONE = Integer.MIN_VALUE;
+    
+    private static final Pattern DURATION = Pattern.compile("^([0-9]+)([smhd])$");
+    
+    private final @NotNull JsonObject source;
+    private final @NotNull int[] items;
+    private final @NotNull List<TagKey<Item>> tags;
+    private final @NotNull int[] tagTicks;
+    private final @NotNull Object2IntMap<Identifier> enchantments;
+    
+    public ItemDespawnTimes() {
+        this(new JsonObject(), new int[0], new ArrayList<>(), new int[0], new Object2IntOpenHashMap<>());
+    }
+    private ItemDespawnTimes(@NotNull JsonObject source, @NotNull int[] items, @NotNull List<TagKey<Item>> tags, @NotNull int[] tagTicks, @NotNull Object2IntMap<Identifier> enchantments) {
+        this.source = source;
+        this.items = items;
+        this.tags = tags;
+        this.tagTicks = tagTicks;
+        this.enchantments = enchantments;
+    }
+    
+    /**
+     * Get the despawn time of an item stack, enchantments are checked first, then the item, and then item tags
+     * @param stack The stack of the item entity
+     * @return The despawn time in ticks, or NONE if the stack does not override it
+     */
+    public int getDespawnTicks(@NotNull ItemStack stack) {
+        if (!this.enchantments.isEmpty() && stack.hasEnchantments()) {
+            int ticks = ItemDespawnTimes.NONE;
+            NbtList list = stack.getEnchantments();
+            for (int i = 0; i < list.size(); i++) {
+                Identifier id = EnchantmentHelper.getIdFromNbt(list.getCompound(i));
+                if (id != null && this.enchantments.containsKey(id))
+                    ticks = Math.max(ticks, this.enchantments.getInt(id));
+            }
+            if (ticks != ItemDespawnTimes.NONE)
+                return ticks;
+        }
+        
+        int raw = Registry.ITEM.getRawId(stack.getItem());
+        if (raw < this.items.length && this.items[raw] != ItemDespawnTimes.NONE)
+            return this.items[raw];
+        
+        for (int i = 0; i < this.tagTicks.length; i++) {
+            if (stack.isIn(this.tags.get(i)))
+                return this.tagTicks[i];
+        }
+        
+        return ItemDespawnTimes.NONE;
+    }
+    
+    /**
+     * If the despawn time can change between two stacks of the same item
+     * @return If any enchantments override the despawn time
+     */
+    public boolean hasEnchantmentOverrides() {
+        return !this.enchantments.isEmpty();
+    }
+    
+    public static @NotNull ItemDespawnTimes parse(@NotNull JsonElement root) {
+        JsonObject list = root.getAsJsonObject();
+        
+        int[] items = new int[0];
+        List<TagKey<Item>> tags = new ArrayList<>();
+        List<Integer> tagTicks = new ArrayList<>();
+        Object2IntMap<Identifier> enchantments = new Object2IntOpenHashMap<>();
+        
+        // Parse each object in the array
+        for ( Map.Entry<String, JsonElement> row : list.entrySet() ) {
+            String token = row.getKey();
+            Integer ticks = ItemDespawnTimes.getTicks(row.getValue());
+            
+            // A null time uses the default despawn time
+            if (ticks == null)
+                continue;
+            
+            Identifier id = ItemDespawnTimes.getIdentifier(token.startsWith("#") || token.startsWith("@") ? token.substring(1) : token);
+            if (id == null)
+                CoreMod.logError("Unable to parse despawn time for \"" + token + "\", it is not a valid identifier.");
+            else if (token.startsWith("#")) {
+                tags.add(TagKey.of(Registry.ITEM_KEY, id));
+                tagTicks.add(ticks);
+            } else if (token.startsWith("@")) {
+                if (Registry.ENCHANTMENT.containsId(id))
+                    enchantments.put(id, (int) ticks);
+                else CoreMod.logError("Unable to find despawn enchantment \"" + token + "\" in the enchantment registry.");
+            } else {
+                int raw = Registry.ITEM.getOrEmpty(id)
+                    .map(Registry.ITEM::getRawId)
+                    .orElse(-1);
+                if (raw < 0)
+                    CoreMod.logError("Unable to find despawn item \"" + token + "\" in the item registry.");
+                else {
+                    if (raw >= items.length) {
+                        int length = items.length;
+                        items = Arrays.copyOf(items, raw + 1);
+                        Arrays.fill(items, length, items.length, ItemDespawnTimes.NONE);
+                    }
+                    items[raw] = ticks;
+                }
+            }
+        }
+        
+        return new ItemDespawnTimes(list, items, tags, tagTicks.stream().mapToInt(Integer::intValue).toArray(), enchantments);
+    }
+    public static JsonElement serializer(@NotNull ItemDespawnTimes src, @NotNull Gson gson) {
+        return src.source;
+    }
+    
+    private static @Nullable Integer getTicks(@NotNull JsonElement element) {
+        if (element instanceof JsonNull)
+            return null;
+        if (element instanceof JsonPrimitive primitive) {
+            if (primitive.isNumber())
+                return primitive.getAsInt();
+            if (primitive.isString()) {
+                String string = primitive.getAsString();
+                Matcher matcher = ItemDespawnTimes.DURATION.matcher(string);
+                if (!matcher.matches())
+                    return primitive.getAsInt();
+                int duration = Integer.parseInt(matcher.group(1));
+                return IntUtils.convertToTicks(duration, IntUtils.getTimeUnit(matcher.group(2)));
+            }
+        }
+        return EntityUtils.DEFAULT_DESPAWN_TICKS;
+    }
+    private static @Nullable Identifier getIdentifier(@NotNull String token) {
+        try {
+            return new Identifier(token);
+        } catch (InvalidIdentifierException e) {
+            return null;
+        }
+    }
+}
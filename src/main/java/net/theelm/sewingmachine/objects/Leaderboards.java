@@ -0,0 +1,438 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectRBTreeSet;
+import it.unimi.dsi.fastutil.objects.ObjectSortedSet;
+import net.theelm.sewingmachine.CoreMod;
+import net.theelm.sewingmachine.utilities.text.MessageUtils;
+import net.minecraft.entity.Entity;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.scoreboard.Scoreboard;
+import net.minecraft.scoreboard.ScoreboardObjective;
+import net.minecraft.scoreboard.ScoreboardPlayerScore;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.LiteralText;
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.InvalidIdentifierException;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.util.registry.RegistryKey;
+import net.minecraft.world.PersistentState;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Armor stand displays of the top scores of scoreboard objectives
+ *   The scores of each displayed objective are kept sorted as they change, instead of sorting every score of the
+ *   objective whenever the displays are updated. Displays are only renamed when the scores that they show change,
+ *   and displays in unloaded chunks are retried until their armor stands are found.
+ */
+public final class Leaderboards extends PersistentState {
+    public static final @NotNull String ID = CoreMod.MOD_ID + "_leaderboards";
+    private static final int RETRY_INTERVAL = 20;
+    
+    // Highest score first, the same order as the sidebar
+    private static final @NotNull Comparator<Score> ORDER = Comparator.<Score>comparingInt(score -> score.score)
+        .reversed()
+        .thenComparing(score -> score.name, String.CASE_INSENSITIVE_ORDER)
+        .thenComparing(score -> score.name);
+    
+    private final @NotNull Scoreboard scoreboard;
+    private final @NotNull List<Display> displays = new ArrayList<>();
+    
+    // Objective name -> Sorted scores, only for objectives that are displayed
+    private final @NotNull Object2ObjectMap<String, Ranking> rankings = new Object2ObjectOpenHashMap<>();
+    
+    public Leaderboards(@NotNull Scoreboard scoreboard) {
+        this.scoreboard = scoreboard;
+    }
+    
+    /**
+     * Register a new display, so that it is kept up to date
+     * @param world The world that the display is in
+     * @param objective The objective shown on the display
+     * @param riders The armor stands of the display, the title first and then each place
+     */
+    public void register(@NotNull World world, @NotNull ScoreboardObjective objective, @NotNull List<UUID> riders) {
+        Display display = new Display(world.getRegistryKey(), objective.getName(), riders.toArray(new UUID[0]));
+        this.displays.add(display);
+        this.markDirty();
+        
+        // Show more places if the new display is taller than the others
+        Ranking ranking = this.rankings.get(display.objective);
+        if (ranking != null && display.places() > ranking.places) {
+            ranking.places = display.places();
+            ranking.dirty = true;
+        }
+    }
+    
+    /**
+     * Stop updating the displays of an objective, the armor stands are left where they are
+     * @param objective The objective
+     * @return The number of displays that were removed
+     */
+    public int unregister(@NotNull String objective) {
+        int removed = 0;
+        Iterator<Display> iterator = this.displays.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().objective.equals(objective)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        
+        if (removed > 0) {
+            this.rankings.remove(objective);
+            this.markDirty();
+        }
+        return removed;
+    }
+    
+    /**
+     * Get the top scores of an objective, in the order that they are displayed
+     * @param objective The objective
+     * @param places The number of scores
+     * @return The top scores, may contain fewer scores than requested
+     */
+    public @NotNull List<Score> getTop(@NotNull ScoreboardObjective objective, int places) {
+        Ranking ranking = this.rankings.get(objective.getName());
+        if (ranking != null)
+            return ranking.top(places);
+        
+        // Sort the scores once, without keeping them for an objective that has no displays
+        List<Score> scores = new ArrayList<>();
+        for (ScoreboardPlayerScore score : this.scoreboard.getAllPlayerScores(objective))
+            scores.add(new Score(score.getPlayerName(), score.getScore()));
+        scores.sort(Leaderboards.ORDER);
+        return scores.subList(0, Math.min(places, scores.size()));
+    }
+    
+    /*
+     * Scoreboard updates
+     */
+    
+    public void onScoreChanged(@NotNull ScoreboardObjective objective, @NotNull String player, int score) {
+        Ranking ranking = this.rankings.get(objective.getName());
+        if (ranking != null)
+            ranking.update(player, score);
+    }
+    public void onScoreRemoved(@Nullable ScoreboardObjective objective, @NotNull String player) {
+        if (objective == null) {
+            for (Ranking ranking : this.rankings.values())
+                ranking.remove(player);
+        } else {
+            Ranking ranking = this.rankings.get(objective.getName());
+            if (ranking != null)
+                ranking.remove(player);
+        }
+    }
+    public void onObjectiveRemoved(@NotNull ScoreboardObjective objective) {
+        this.unregister(objective.getName());
+    }
+    
+    /**
+     * Rename the armor stands of any displays whose scores have changed
+     * @param server The running server
+     */
+    public void tick(@NotNull MinecraftServer server) {
+        if (this.displays.isEmpty())
+            return;
+        
+        boolean retry = server.getTicks() % Leaderboards.RETRY_INTERVAL == 0;
+        
+        // Update the visible scores, many changes in a single tick are applied together
+        for (Ranking ranking : this.rankings.values())
+            ranking.refresh();
+        
+        Iterator<Display> iterator = this.displays.iterator();
+        while (iterator.hasNext()) {
+            Display display = iterator.next();
+            Ranking ranking = this.rankings.get(display.objective);
+            if (ranking == null) {
+                ScoreboardObjective objective = this.scoreboard.getNullableObjective(display.objective);
+                if (objective == null) {
+                    iterator.remove();
+                    this.markDirty();
+                    continue;
+                }
+                
+                ranking = this.createRanking(objective);
+            }
+            
+            if (ranking.changed || (retry && display.pending))
+                this.apply(server, display, ranking.visible);
+        }
+        
+        for (Ranking ranking : this.rankings.values())
+            ranking.changed = false;
+    }
+    private @NotNull Ranking createRanking(@NotNull ScoreboardObjective objective) {
+        Ranking ranking = new Ranking();
+        for (Display display : this.displays) {
+            if (display.objective.equals(objective.getName()))
+                ranking.places = Math.max(ranking.places, display.places());
+        }
+        
+        for (ScoreboardPlayerScore score : this.scoreboard.getAllPlayerScores(objective))
+            ranking.update(score.getPlayerName(), score.getScore());
+        ranking.refresh();
+        
+        // Displays are checked once when the ranking is created, the scores may have changed while they were unloaded
+        ranking.changed = true;
+        
+        this.rankings.put(objective.getName(), ranking);
+        return ranking;
+    }
+    private void apply(@NotNull MinecraftServer server, @NotNull Display display, @NotNull List<Score> scores) {
+        ServerWorld world = server.getWorld(display.world);
+        display.pending = world == null;
+        if (world == null)
+            return;
+        
+        for (int place = 1; place < display.riders.length; place++) {
+            Entity entity = world.getEntity(display.riders[place]);
+            if (entity == null) {
+                display.pending = true;
+                continue;
+            }
+            
+            Text text = Leaderboards.formatPlace(place, place <= scores.size() ? scores.get(place - 1) : null);
+            if (!text.equals(entity.getCustomName()))
+                entity.setCustomName(text);
+        }
+    }
+    
+    /*
+     * Display text
+     */
+    
+    public static @NotNull Text formatPlace(int place, @Nullable Score score) {
+        final MutableText right = new LiteralText(": ").formatted(Formatting.WHITE);
+        if (score == null) {
+            right.append(new LiteralText("Nobody")
+                .formatted(Formatting.GRAY));
+        } else {
+            right.append(new LiteralText(score.name)
+                .formatted(Formatting.AQUA))
+                .append(" (")
+                .append(MessageUtils.formatNumber(score.score, Formatting.GOLD))
+                .append(")");
+        }
+        
+        return new LiteralText(place + Leaderboards.ending(place)).formatted(Formatting.GOLD)
+            .append(right);
+    }
+    private static @NotNull String ending(int pos) {
+        final String th = "th";
+        String val = String.valueOf(pos);
+        int length = val.length();
+        if (length < 2 || val.charAt(length - 2) != '1') {
+            switch (val.charAt(length - 1)) {
+                case '1': return "st";
+                case '2': return "nd";
+                case '3': return "rd";
+                default: break;
+            }
+        }
+        return th;
+    }
+    
+    /*
+     * NBT read/write
+     */
+    
+    @Override
+    public @NotNull NbtCompound writeNbt(@NotNull NbtCompound nbt) {
+        NbtList list = new NbtList();
+        for (Display display : this.displays)
+            list.add(display.toNbt());
+        nbt.put("displays", list);
+        return nbt;
+    }
+    public static @NotNull Leaderboards fromNbt(@NotNull Scoreboard scoreboard, @NotNull NbtCompound nbt) {
+        Leaderboards leaderboards = new Leaderboards(scoreboard);
+        for (NbtElement element : nbt.getList("displays", NbtElement.COMPOUND_TYPE)) {
+            Display display = Display.fromNbt((NbtCompound) element);
+            if (display != null)
+                leaderboards.displays.add(display);
+        }
+        return leaderboards;
+    }
+    
+    /**
+     * The score of a single player
+     */
+    public static final class Score {
+        public final @NotNull String name;
+        public final int score;
+        
+        private Score(@NotNull String name, int score) {
+            this.name = name;
+            this.score = score;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Score other && this.score == other.score && this.name.equals(other.name);
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * this.name.hashCode() + this.score;
+        }
+    }
+    
+    /**
+     * Every score of a displayed objective, sorted, along with the scores that are currently displayed
+     */
+    private static final class Ranking {
+        private final @NotNull ObjectSortedSet<Score> sorted = new ObjectRBTreeSet<>(Leaderboards.ORDER);
+        private final @NotNull Object2ObjectMap<String, Score> players = new Object2ObjectOpenHashMap<>();
+        private @NotNull List<Score> visible = Collections.emptyList();
+        private int places = 0;
+        private boolean dirty = false;
+        private boolean changed = false;
+        
+        private void update(@NotNull String player, int value) {
+            Score previous = this.players.get(player);
+            if (previous != null && previous.score == value)
+                return;
+            if (previous != null)
+                this.sorted.remove(previous);
+            
+            Score score = new Score(player, value);
+            this.sorted.add(score);
+            this.players.put(player, score);
+            
+            if (!this.dirty)
+                this.dirty = this.isVisible(previous) || this.isVisible(score);
+        }
+        private void remove(@NotNull String player) {
+            Score previous = this.players.remove(player);
+            if (previous == null)
+                return;
+            
+            this.sorted.remove(previous);
+            if (!this.dirty)
+                this.dirty = this.isVisible(previous);
+        }
+        
+        /**
+         * Check if a score is (Or would be) within the displayed places, changes to any other score can't change the displays
+         */
+        private boolean isVisible(@Nullable Score score) {
+            if (score == null || this.places <= 0)
+                return false;
+            if (this.visible.size() < this.places)
+                return true;
+            return Leaderboards.ORDER.compare(score, this.visible.get(this.visible.size() - 1)) <= 0;
+        }
+        
+        private void refresh() {
+            if (!this.dirty)
+                return;
+            this.dirty = false;
+            
+            List<Score> top = this.top(this.places);
+            if (!top.equals(this.visible)) {
+                this.visible = top;
+                this.changed = true;
+            }
+        }
+        private @NotNull List<Score> top(int places) {
+            List<Score> top = new ArrayList<>(places);
+            Iterator<Score> iterator = this.sorted.iterator();
+            while (top.size() < places && iterator.hasNext())
+                top.add(iterator.next());
+            return top;
+        }
+    }
+    
+    /**
+     * A stack of armor stands showing the top scores of an objective
+     */
+    private static final class Display {
+        private final @NotNull RegistryKey<World> world;
+        private final @NotNull String objective;
+        private final @NotNull UUID[] riders;
+        private boolean pending = true;
+        
+        private Display(@NotNull RegistryKey<World> world, @NotNull String objective, @NotNull UUID[] riders) {
+            this.world = world;
+            this.objective = objective;
+            this.riders = riders;
+        }
+        
+        private int places() {
+            return this.riders.length - 1;
+        }
+        
+        private @NotNull NbtCompound toNbt() {
+            NbtCompound nbt = new NbtCompound();
+            nbt.putString("world", this.world.getValue().toString());
+            nbt.putString("objective", this.objective);
+            
+            NbtList riders = new NbtList();
+            for (UUID rider : this.riders)
+                riders.add(NbtHelper.fromUuid(rider));
+            nbt.put("riders", riders);
+            
+            return nbt;
+        }
+        private static @Nullable Display fromNbt(@NotNull NbtCompound nbt) {
+            try {
+                RegistryKey<World> world = RegistryKey.of(Registry.WORLD_KEY, new Identifier(nbt.getString("world")));
+                NbtList list = nbt.getList("riders", NbtElement.INT_ARRAY_TYPE);
+                UUID[] riders = new UUID[list.size()];
+                for (int i = 0; i < riders.length; i++)
+                    riders[i] = NbtHelper.toUuid(list.get(i));
+                
+                if (riders.length == 0 || !nbt.contains("objective", NbtElement.STRING_TYPE))
+                    return null;
+                return new Display(world, nbt.getString("objective"), riders);
+            } catch (InvalidIdentifierException e) {
+                return null;
+            }
+        }
+    }
+}
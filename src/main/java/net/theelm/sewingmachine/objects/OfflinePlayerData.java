@@ -0,0 +1,229 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import net.theelm.sewingmachine.CoreMod;
+import net.theelm.sewingmachine.exceptions.NbtNotFoundException;
+import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.util.Util;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Access to the saved data of players that are not online
+ *   Parsed player files are kept in a small cache, and changes are written back on the worker threads, with
+ *   several changes to the same player coalesced into a single write. Each player is guarded by a lock from
+ *   a fixed set of locks, which is also taken before vanilla loads the file of a joining player.
+ */
+public final class OfflinePlayerData {
+    private static final int CACHE_SIZE = 64;
+    private static final int STRIPES = 32;
+    
+    // Guarded by synchronizing on the cache
+    private static final @NotNull Map<UUID, NbtCompound> CACHE = new LinkedHashMap<>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, NbtCompound> eldest) {
+            return this.size() > OfflinePlayerData.CACHE_SIZE;
+        }
+    };
+    private static final @NotNull Map<UUID, NbtCompound> PENDING = new HashMap<>();
+    
+    private static final @NotNull ReentrantLock[] LOCKS = new ReentrantLock[OfflinePlayerData.STRIPES];
+    private static final @NotNull AtomicBoolean FLUSH_SCHEDULED = new AtomicBoolean(false);
+    
+    // Where the files of players are read from and written to, tests use a temporary folder instead of the world
+    static @NotNull Storage STORAGE = new Storage() {
+        @Override
+        public @NotNull NbtCompound read(@NotNull UUID uuid) throws NbtNotFoundException {
+            return NbtUtils.readOfflinePlayerData(uuid);
+        }
+        @Override
+        public boolean write(@NotNull UUID uuid, @NotNull NbtCompound tag) {
+            return NbtUtils.writeOfflinePlayerData(uuid, tag);
+        }
+    };
+    
+    static {
+        for (int i = 0; i < OfflinePlayerData.LOCKS.length; i++)
+            OfflinePlayerData.LOCKS[i] = new ReentrantLock();
+    }
+    
+    private OfflinePlayerData() {}
+    
+    /**
+     * Read from the saved data of an offline player
+     * @param uuid The player to read
+     * @param reader Reads values from the saved data, the data should not be modified or kept
+     * @return The value read
+     * @throws NbtNotFoundException If the player has no saved data
+     */
+    public static <T> T read(@NotNull UUID uuid, @NotNull Function<NbtCompound, T> reader) throws NbtNotFoundException {
+        ReentrantLock lock = OfflinePlayerData.getLock(uuid);
+        lock.lock();
+        try {
+            return reader.apply(OfflinePlayerData.load(uuid));
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Modify the saved data of an offline player, the change is written to the disk in the background
+     * @param uuid The player to modify
+     * @param modifier Modifies the saved data, returning false if nothing should be saved
+     * @return The result of the modifier
+     * @throws NbtNotFoundException If the player has no saved data
+     */
+    public static boolean modify(@NotNull UUID uuid, @NotNull Predicate<NbtCompound> modifier) throws NbtNotFoundException {
+        ReentrantLock lock = OfflinePlayerData.getLock(uuid);
+        lock.lock();
+        try {
+            NbtCompound tag = OfflinePlayerData.load(uuid);
+            if (!modifier.test(tag))
+                return false;
+            
+            synchronized (OfflinePlayerData.CACHE) {
+                OfflinePlayerData.PENDING.put(uuid, tag);
+            }
+        } finally {
+            lock.unlock();
+        }
+        
+        OfflinePlayerData.scheduleFlush();
+        return true;
+    }
+    
+    /**
+     * Write any pending changes before vanilla loads the file of a joining player, the player owns their data while online
+     * @param uuid The player that is joining
+     */
+    public static void onJoin(@NotNull UUID uuid) {
+        ReentrantLock lock = OfflinePlayerData.getLock(uuid);
+        lock.lock();
+        try {
+            OfflinePlayerData.flush(uuid);
+            synchronized (OfflinePlayerData.CACHE) {
+                OfflinePlayerData.CACHE.remove(uuid);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Forget the cached data of a player after vanilla has saved them when leaving
+     * @param uuid The player that left
+     */
+    public static void onQuit(@NotNull UUID uuid) {
+        synchronized (OfflinePlayerData.CACHE) {
+            OfflinePlayerData.CACHE.remove(uuid);
+        }
+    }
+    
+    /**
+     * Write all pending changes to the disk
+     */
+    public static void flush() {
+        List<UUID> pending;
+        synchronized (OfflinePlayerData.CACHE) {
+            pending = new ArrayList<>(OfflinePlayerData.PENDING.keySet());
+        }
+        for (UUID uuid : pending)
+            OfflinePlayerData.flush(uuid);
+    }
+    private static void flush(@NotNull UUID uuid) {
+        ReentrantLock lock = OfflinePlayerData.getLock(uuid);
+        lock.lock();
+        try {
+            NbtCompound tag;
+            synchronized (OfflinePlayerData.CACHE) {
+                tag = OfflinePlayerData.PENDING.remove(uuid);
+            }
+            if (tag != null && !OfflinePlayerData.STORAGE.write(uuid, tag))
+                CoreMod.logError("Failed to save offline player data for \"" + uuid + "\".");
+        } finally {
+            lock.unlock();
+        }
+    }
+    private static void scheduleFlush() {
+        if (OfflinePlayerData.FLUSH_SCHEDULED.compareAndSet(false, true)) {
+            Util.getMainWorkerExecutor().execute(() -> {
+                // Changes made while flushing will schedule another flush
+                OfflinePlayerData.FLUSH_SCHEDULED.set(false);
+                OfflinePlayerData.flush();
+            });
+        }
+    }
+    
+    /**
+     * Get the saved data of a player, the lock of the player must be held
+     */
+    private static @NotNull NbtCompound load(@NotNull UUID uuid) throws NbtNotFoundException {
+        NbtCompound tag;
+        synchronized (OfflinePlayerData.CACHE) {
+            if ((tag = OfflinePlayerData.PENDING.get(uuid)) == null)
+                tag = OfflinePlayerData.CACHE.get(uuid);
+        }
+        if (tag != null)
+            return tag;
+        
+        tag = OfflinePlayerData.STORAGE.read(uuid);
+        synchronized (OfflinePlayerData.CACHE) {
+            OfflinePlayerData.CACHE.put(uuid, tag);
+        }
+        return tag;
+    }
+    
+    private static @NotNull ReentrantLock getLock(@NotNull UUID uuid) {
+        return OfflinePlayerData.LOCKS[Math.floorMod(uuid.hashCode(), OfflinePlayerData.LOCKS.length)];
+    }
+    
+    /**
+     * Forget everything that is cached without writing it, for tests
+     */
+    static void clear() {
+        synchronized (OfflinePlayerData.CACHE) {
+            OfflinePlayerData.CACHE.clear();
+            OfflinePlayerData.PENDING.clear();
+        }
+    }
+    
+    interface Storage {
+        @NotNull NbtCompound read(@NotNull UUID uuid) throws NbtNotFoundException;
+        boolean write(@NotNull UUID uuid, @NotNull NbtCompound tag);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import com.mojang.authlib.GameProfile;
+import net.theelm.sewingmachine.protections.ranks.PlayerRank;
+import net.theelm.sewingmachine.utilities.FormattingUtils;
+import net.theelm.sewingmachine.utilities.RankUtils;
+import net.minecraft.network.packet.s2c.play.PlayerListS2CPacket;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.LiteralText;
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The names of players shown in the player list, decorated with their rank
+ *   Names are rendered once for each nickname and version of the ranks, and reused every time the player list
+ *   is sent. Packets are written on the network threads, so the rendered names are never modified.
+ */
+public final class PlayerListNames {
+    private static final @NotNull Map<UUID, Entry> CACHE = new ConcurrentHashMap<>();
+    
+    private PlayerListNames() {}
+    
+    /**
+     * Get the name of a player to show in the player list
+     * @param profile The profile of the player
+     * @param nickname The nickname of the player, or NULL to use their profile name
+     * @return The decorated name
+     */
+    public static @NotNull Text get(@NotNull GameProfile profile, @Nullable Text nickname) {
+        int version = RankUtils.getRanksVersion();
+        Entry entry = PlayerListNames.CACHE.get(profile.getId());
+        if (entry != null && entry.version == version && Objects.equals(entry.nickname, nickname))
+            return entry.rendered;
+        
+        Text rendered = PlayerListNames.render(profile, nickname);
+        PlayerListNames.CACHE.put(profile.getId(), new Entry(nickname, version, rendered));
+        return rendered;
+    }
+    
+    /**
+     * Forget the name of a player, when their nickname changes or they leave
+     * @param uuid The player
+     */
+    public static void invalidate(@NotNull UUID uuid) {
+        PlayerListNames.CACHE.remove(uuid);
+    }
+    
+    /**
+     * Send a single update with the players whose names have changed, after the ranks have been reloaded
+     * @param server The server
+     */
+    public static void sendChanged(@NotNull MinecraftServer server) {
+        List<ServerPlayerEntity> changed = new ArrayList<>();
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            Entry previous = PlayerListNames.CACHE.get(player.getUuid());
+            Text rendered = PlayerListNames.get(player.getGameProfile(), player.getPlayerListName());
+            if (previous == null || !previous.rendered.equals(rendered))
+                changed.add(player);
+        }
+        
+        if (!changed.isEmpty())
+            server.getPlayerManager()
+                .sendToAll(new PlayerListS2CPacket(PlayerListS2CPacket.Action.UPDATE_DISPLAY_NAME, changed));
+    }
+    
+    private static @NotNull Text render(@NotNull GameProfile profile, @Nullable Text nickname) {
+        MutableText displayName = (nickname == null ?
+            new LiteralText(profile.getName()).formatted(Formatting.YELLOW)
+            : FormattingUtils.deepCopy(nickname)
+        );
+        
+        for (PlayerRank rank : RankUtils.getPlayerRanks(profile)) {
+            Text display;
+            if ((display = rank.getDisplay()) != null) {
+                // Open bracket
+                displayName.append(new LiteralText(" [").formatted(Formatting.WHITE)
+                    .append(display)
+                    .append("]"));
+                break; // Only append one
+            }
+        }
+        
+        return displayName;
+    }
+    
+    private static final class Entry {
+        private final @Nullable Text nickname;
+        private final int version;
+        private final @NotNull Text rendered;
+        
+        private Entry(@Nullable Text nickname, int version, @NotNull Text rendered) {
+            this.nickname = nickname;
+            this.version = version;
+            this.rendered = rendered;
+        }
+    }
+}
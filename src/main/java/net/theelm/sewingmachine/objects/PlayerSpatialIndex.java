@@ -0,0 +1,133 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An index of the online players in a single world, bucketed by the chunk they are standing in
+ *   Players are a small subset of the entities in a world, so proximity lookups only need to
+ *   check the buckets that are inside of the search area instead of every entity section
+ */
+public final class PlayerSpatialIndex {
+    private final @NotNull Long2ObjectMap<List<ServerPlayerEntity>> buckets = new Long2ObjectOpenHashMap<>();
+    private final @NotNull Object2LongMap<ServerPlayerEntity> positions = new Object2LongOpenHashMap<>();
+    
+    /**
+     * Update the bucket of a player, should be called whenever the player may have moved
+     * @param player The player to update
+     */
+    public void update(@NotNull ServerPlayerEntity player) {
+        long key = ChunkPos.toLong(player.getBlockX() >> 4, player.getBlockZ() >> 4);
+        if (this.positions.containsKey(player)) {
+            long previous = this.positions.getLong(player);
+            if (previous == key)
+                return;
+            this.removeFromBucket(previous, player);
+        }
+        
+        this.positions.put(player, key);
+        this.buckets.computeIfAbsent(key, (k) -> new ArrayList<>())
+            .add(player);
+    }
+    
+    /**
+     * Remove a player from the index when they leave the world
+     * @param player The player to remove
+     */
+    public void remove(@NotNull ServerPlayerEntity player) {
+        if (this.positions.containsKey(player))
+            this.removeFromBucket(this.positions.removeLong(player), player);
+    }
+    private void removeFromBucket(long key, @NotNull ServerPlayerEntity player) {
+        List<ServerPlayerEntity> bucket = this.buckets.get(key);
+        if (bucket != null && bucket.remove(player) && bucket.isEmpty())
+            this.buckets.remove(key);
+    }
+    
+    public int size() {
+        return this.positions.size();
+    }
+    
+    /**
+     * Get all players whose position is inside of the box
+     * @param box The area to search
+     * @param predicate A filter for the players
+     * @return The players in the area
+     */
+    public @NotNull List<ServerPlayerEntity> getPlayers(@NotNull Box box, @NotNull Predicate<? super ServerPlayerEntity> predicate) {
+        if (this.positions.isEmpty())
+            return Collections.emptyList();
+        
+        List<ServerPlayerEntity> players = new ArrayList<>();
+        int minX = MathHelper.floor(box.minX) >> 4;
+        int minZ = MathHelper.floor(box.minZ) >> 4;
+        int maxX = MathHelper.floor(box.maxX) >> 4;
+        int maxZ = MathHelper.floor(box.maxZ) >> 4;
+        
+        // If the box covers more chunks than there are buckets, check the buckets instead
+        long area = (long)(maxX - minX + 1) * (maxZ - minZ + 1);
+        if (area > this.buckets.size()) {
+            for (Long2ObjectMap.Entry<List<ServerPlayerEntity>> entry : this.buckets.long2ObjectEntrySet()) {
+                long key = entry.getLongKey();
+                int x = ChunkPos.getPackedX(key);
+                int z = ChunkPos.getPackedZ(key);
+                if (x >= minX && x <= maxX && z >= minZ && z <= maxZ)
+                    PlayerSpatialIndex.collect(entry.getValue(), box, predicate, players);
+            }
+        } else {
+            for (int x = minX; x <= maxX; x++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    List<ServerPlayerEntity> bucket = this.buckets.get(ChunkPos.toLong(x, z));
+                    if (bucket != null)
+                        PlayerSpatialIndex.collect(bucket, box, predicate, players);
+                }
+            }
+        }
+        
+        return players;
+    }
+    
+    private static void collect(@NotNull List<ServerPlayerEntity> bucket, @NotNull Box box, @NotNull Predicate<? super ServerPlayerEntity> predicate, @NotNull List<ServerPlayerEntity> out) {
+        for (ServerPlayerEntity player : bucket) {
+            if (!player.isRemoved() && box.contains(player.getPos()) && predicate.test(player))
+                out.add(player);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import net.theelm.sewingmachine.CoreMod;
+import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
+import net.minecraft.util.math.GlobalPos;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An append-only journal of shop transactions, written next to the level data
+ *   Every transaction writes a BEGIN line before anything is moved, and a COMMIT or ROLLBACK once settled.
+ *   A BEGIN without an end means the server stopped mid transaction, those are reported when the journal is opened.
+ */
+public final class ShopJournal {
+    private static final @NotNull String FILE_NAME = "shop-journal.log";
+    
+    private static final @NotNull Map<GlobalPos, Statistics> STATISTICS = new HashMap<>();
+    private static @Nullable BufferedWriter WRITER = null;
+    private static boolean FAILED = false;
+    
+    private ShopJournal() {}
+    
+    public static void begin(@NotNull ShopTransaction transaction) {
+        ShopJournal.write(transaction, "BEGIN", null);
+    }
+    public static void commit(@NotNull ShopTransaction transaction) {
+        ShopJournal.write(transaction, "COMMIT", null);
+        ShopJournal.getStatistics(transaction.getShop())
+            .complete(transaction);
+    }
+    public static void rollback(@NotNull ShopTransaction transaction, @NotNull String reason) {
+        ShopJournal.write(transaction, "ROLLBACK", reason);
+        ShopJournal.getStatistics(transaction.getShop())
+            .fail();
+    }
+    
+    /**
+     * Close the journal when the server stops, it is opened again by the next transaction
+     */
+    public static void close() {
+        BufferedWriter writer = ShopJournal.WRITER;
+        if (writer == null)
+            return;
+        
+        ShopJournal.WRITER = null;
+        ShopJournal.FAILED = false;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            CoreMod.logError("Failed to close the shop journal", e);
+        }
+    }
+    
+    /**
+     * Get the running totals of a shop since the server started
+     * @param shop The position of the shop sign
+     * @return The statistics of the shop
+     */
+    public static @NotNull Statistics getStatistics(@NotNull GlobalPos shop) {
+        return ShopJournal.STATISTICS.computeIfAbsent(shop, pos -> new Statistics());
+    }
+    
+    private static void write(@NotNull ShopTransaction transaction, @NotNull String state, @Nullable String reason) {
+        BufferedWriter writer = ShopJournal.open();
+        if (writer == null)
+            return;
+        try {
+            writer.write(System.currentTimeMillis() + "\t" + transaction.getId() + "\t" + state + "\t" + transaction + (reason == null ? "" : "\t" + reason));
+            writer.newLine();
+            
+            // Flush every entry so that the journal survives a crash
+            writer.flush();
+        } catch (IOException e) {
+            CoreMod.logError("Failed to write to the shop journal", e);
+        }
+    }
+    private static @Nullable BufferedWriter open() {
+        if (ShopJournal.WRITER == null && !ShopJournal.FAILED) {
+            Path path = NbtUtils.worldSaveFolder(World.OVERWORLD)
+                .resolve(ShopJournal.FILE_NAME);
+            try {
+                ShopJournal.replay(path);
+                ShopJournal.WRITER = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                // Don't retry opening on every purchase
+                ShopJournal.FAILED = true;
+                CoreMod.logError("Failed to open the shop journal", e);
+            }
+        }
+        return ShopJournal.WRITER;
+    }
+    
+    /**
+     * Read through the existing journal and report any transaction that never finished
+     * @param path The journal file
+     * @throws IOException If the file could not be read
+     */
+    private static void replay(@NotNull Path path) throws IOException {
+        if (!Files.exists(path))
+            return;
+        
+        Map<String, String> open = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 4);
+                if (parts.length < 3)
+                    continue;
+                if ("BEGIN".equals(parts[2]))
+                    open.put(parts[1], line);
+                else open.remove(parts[1]);
+            }
+        }
+        
+        for (String line : open.values())
+            CoreMod.logError("Shop transaction was interrupted and may need to be corrected: " + line);
+    }
+    
+    public static final class Statistics {
+        private int completed = 0;
+        private int failed = 0;
+        private long items = 0;
+        private long money = 0;
+        private long lastUsed = 0;
+        
+        private void complete(@NotNull ShopTransaction transaction) {
+            this.completed++;
+            this.items += transaction.getCount();
+            this.money += transaction.getPrice();
+            this.lastUsed = System.currentTimeMillis();
+        }
+        private void fail() {
+            this.failed++;
+            this.lastUsed = System.currentTimeMillis();
+        }
+        
+        public int getCompleted() {
+            return this.completed;
+        }
+        public int getFailed() {
+            return this.failed;
+        }
+        public long getItems() {
+            return this.items;
+        }
+        public long getMoney() {
+            return this.money;
+        }
+        public long getLastUsed() {
+            return this.lastUsed;
+        }
+    }
+}
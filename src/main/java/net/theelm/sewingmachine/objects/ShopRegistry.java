@@ -0,0 +1,262 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongLists;
+import net.theelm.sewingmachine.CoreMod;
+import net.theelm.sewingmachine.enums.ShopSigns;
+import net.theelm.sewingmachine.interfaces.ShopSignData;
+import net.theelm.sewingmachine.utilities.InventoryUtils;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.InvalidIdentifierException;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.PersistentState;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Every shop sign in a world, and the containers that they are attached to
+ *   Shops are added when their sign is loaded or built, so the shops in unloaded chunks can still be listed.
+ *   Signs that are found to no longer be shops should be removed by whoever finds them.
+ */
+public final class ShopRegistry extends PersistentState {
+    public static final @NotNull String ID = CoreMod.MOD_ID + "_shops";
+    
+    // Sign position -> Shop
+    private final @NotNull Long2ObjectMap<Entry> signs = new Long2ObjectOpenHashMap<>();
+    
+    // Container position -> Sign positions, there can be more than one sign on a container
+    private final @NotNull Long2ObjectMap<LongList> containers = new Long2ObjectOpenHashMap<>();
+    
+    /**
+     * Add or update a shop sign
+     * @param shop The shop sign
+     */
+    public void register(@NotNull ShopSignData shop) {
+        BlockPos signPos = shop.getSign().getPos();
+        ShopSigns type = shop.getShopType();
+        if (type == null) {
+            this.remove(signPos);
+            return;
+        }
+        
+        Entry previous = this.signs.get(signPos.asLong());
+        Entry entry = new Entry(
+            signPos.asLong(),
+            type,
+            shop.getShopOwner(),
+            shop.getShopItemIdentifier(),
+            Objects.requireNonNullElse(shop.getShopItemCount(), 0),
+            Objects.requireNonNullElse(shop.getShopItemPrice(), 0),
+            InventoryUtils.getAttachedChestPositions(signPos, shop.getSign().getCachedState()).stream()
+                .mapToLong(BlockPos::asLong)
+                .toArray()
+        );
+        
+        // Signs are registered every time they're loaded, only save if something has changed
+        if (entry.equals(previous))
+            return;
+        
+        this.remove(signPos);
+        this.put(entry);
+        this.markDirty();
+    }
+    
+    /**
+     * Remove a shop sign
+     * @param signPos The position of the sign
+     */
+    public void remove(@NotNull BlockPos signPos) {
+        Entry entry = this.signs.remove(signPos.asLong());
+        if (entry == null)
+            return;
+        
+        for (long container : entry.containers) {
+            LongList signs = this.containers.get(container);
+            if (signs != null) {
+                signs.rem(entry.sign);
+                if (signs.isEmpty())
+                    this.containers.remove(container);
+            }
+        }
+        
+        this.markDirty();
+    }
+    
+    private void put(@NotNull Entry entry) {
+        this.signs.put(entry.sign, entry);
+        for (long container : entry.containers)
+            this.containers.computeIfAbsent(container, pos -> new LongArrayList(1))
+                .add(entry.sign);
+    }
+    
+    public @Nullable Entry get(@NotNull BlockPos signPos) {
+        return this.signs.get(signPos.asLong());
+    }
+    
+    /**
+     * Get the signs that may be using a container
+     * @param containerPos The position of the container
+     * @return The packed positions of the signs, as a copy
+     */
+    public @NotNull LongList getSigns(@NotNull BlockPos containerPos) {
+        LongList signs = this.containers.get(containerPos.asLong());
+        return signs == null ? LongLists.EMPTY_LIST : new LongArrayList(signs);
+    }
+    
+    public @NotNull Collection<Entry> getShops() {
+        return Collections.unmodifiableCollection(this.signs.values());
+    }
+    
+    /*
+     * NBT read/write
+     */
+    
+    @Override
+    public @NotNull NbtCompound writeNbt(@NotNull NbtCompound nbt) {
+        NbtList list = new NbtList();
+        for (Entry entry : this.signs.values())
+            list.add(entry.toNbt());
+        nbt.put("shops", list);
+        return nbt;
+    }
+    public static @NotNull ShopRegistry fromNbt(@NotNull NbtCompound nbt) {
+        ShopRegistry registry = new ShopRegistry();
+        for (NbtElement element : nbt.getList("shops", NbtElement.COMPOUND_TYPE)) {
+            Entry entry = Entry.fromNbt((NbtCompound) element);
+            if (entry != null)
+                registry.put(entry);
+        }
+        return registry;
+    }
+    
+    public static final class Entry {
+        private final long sign;
+        private final @NotNull ShopSigns type;
+        private final @Nullable UUID owner;
+        private final @Nullable Identifier item;
+        private final int count;
+        private final int price;
+        private final long[] containers;
+        
+        private Entry(long sign, @NotNull ShopSigns type, @Nullable UUID owner, @Nullable Identifier item, int count, int price, long[] containers) {
+            this.sign = sign;
+            this.type = type;
+            this.owner = owner;
+            this.item = item;
+            this.count = count;
+            this.price = price;
+            this.containers = containers;
+        }
+        
+        public @NotNull BlockPos getSignPos() {
+            return BlockPos.fromLong(this.sign);
+        }
+        public @NotNull List<BlockPos> getContainerPositions() {
+            return Arrays.stream(this.containers)
+                .mapToObj(BlockPos::fromLong)
+                .toList();
+        }
+        public @NotNull ShopSigns getType() {
+            return this.type;
+        }
+        public @Nullable UUID getOwner() {
+            return this.owner;
+        }
+        public @Nullable Identifier getItem() {
+            return this.item;
+        }
+        public int getCount() {
+            return this.count;
+        }
+        public int getPrice() {
+            return this.price;
+        }
+        
+        private @NotNull NbtCompound toNbt() {
+            NbtCompound nbt = new NbtCompound();
+            nbt.putLong("sign", this.sign);
+            nbt.putString("type", this.type.name());
+            if (this.owner != null)
+                nbt.putUuid("owner", this.owner);
+            if (this.item != null)
+                nbt.putString("item", this.item.toString());
+            nbt.putInt("count", this.count);
+            nbt.putInt("price", this.price);
+            nbt.putLongArray("containers", this.containers);
+            return nbt;
+        }
+        private static @Nullable Entry fromNbt(@NotNull NbtCompound nbt) {
+            try {
+                return new Entry(
+                    nbt.getLong("sign"),
+                    ShopSigns.valueOf(nbt.getString("type")),
+                    nbt.containsUuid("owner") ? nbt.getUuid("owner") : null,
+                    nbt.contains("item", NbtElement.STRING_TYPE) ? new Identifier(nbt.getString("item")) : null,
+                    nbt.getInt("count"),
+                    nbt.getInt("price"),
+                    nbt.getLongArray("containers")
+                );
+            } catch (IllegalArgumentException | InvalidIdentifierException e) {
+                CoreMod.logError("Skipping invalid shop in the shop registry", e);
+                return null;
+            }
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Entry entry))
+                return false;
+            return this.sign == entry.sign
+                && this.type == entry.type
+                && this.count == entry.count
+                && this.price == entry.price
+                && Objects.equals(this.owner, entry.owner)
+                && Objects.equals(this.item, entry.item)
+                && Arrays.equals(this.containers, entry.containers);
+        }
+        @Override
+        public int hashCode() {
+            return Long.hashCode(this.sign);
+        }
+    }
+}
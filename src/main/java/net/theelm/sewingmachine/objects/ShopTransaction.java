@@ -0,0 +1,276 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import net.theelm.sewingmachine.CoreMod;
+import net.theelm.sewingmachine.enums.ShopSigns;
+import net.theelm.sewingmachine.exceptions.NbtNotFoundException;
+import net.theelm.sewingmachine.exceptions.NotEnoughMoneyException;
+import net.theelm.sewingmachine.interfaces.ShopSignData;
+import net.theelm.sewingmachine.utilities.InventoryUtils;
+import net.theelm.sewingmachine.utilities.MoneyUtils;
+import net.theelm.sewingmachine.utilities.TranslatableServerSide;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.recipe.Recipe;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.GlobalPos;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A single purchase from a shop sign
+ *   Everything that the purchase needs is checked before anything is changed, and if any step fails
+ *   the steps before it are undone so that neither money nor items are created or destroyed
+ */
+public final class ShopTransaction {
+    private final @NotNull UUID id = UUID.randomUUID();
+    
+    private final @NotNull ShopSigns type;
+    private final @NotNull ShopSignData sign;
+    private final @NotNull GlobalPos shop;
+    private final @NotNull ServerPlayerEntity player;
+    private final @Nullable Inventory container;
+    
+    // Who money is moved from and to, NULL for infinite shops
+    private final @Nullable UUID payer;
+    private final @Nullable UUID payee;
+    
+    private final int count;
+    private final int price;
+    
+    private ShopTransaction(@NotNull ShopSigns type, @NotNull ServerPlayerEntity player, @NotNull BlockPos signPos, @NotNull ShopSignData sign, @Nullable Inventory container, @Nullable UUID payer, @Nullable UUID payee) {
+        this.type = type;
+        this.sign = sign;
+        this.shop = GlobalPos.create(player.getWorld().getRegistryKey(), signPos);
+        this.player = player;
+        this.container = container;
+        this.payer = payer;
+        this.payee = payee;
+        this.count = Objects.requireNonNull(sign.getShopItemCount());
+        this.price = Objects.requireNonNull(sign.getShopItemPrice());
+    }
+    
+    /**
+     * The player sells items into the shop, and the shop owner pays the player
+     */
+    public static @NotNull ShopTransaction sell(@NotNull ServerPlayerEntity player, @NotNull BlockPos signPos, @NotNull ShopSignData sign, @Nullable Inventory container) {
+        return new ShopTransaction(ShopSigns.SELL, player, signPos, sign, container, sign.isInfinite() ? null : sign.getShopOwner(), player.getUuid());
+    }
+    
+    /**
+     * The player buys items from the shop, and pays the shop owner
+     */
+    public static @NotNull ShopTransaction buy(@NotNull ServerPlayerEntity player, @NotNull BlockPos signPos, @NotNull ShopSignData sign, @Nullable Inventory container) {
+        return new ShopTransaction(ShopSigns.BUY, player, signPos, sign, container, player.getUuid(), sign.isInfinite() ? null : sign.getShopOwner());
+    }
+    
+    public @NotNull UUID getId() {
+        return this.id;
+    }
+    public @NotNull GlobalPos getShop() {
+        return this.shop;
+    }
+    public int getCount() {
+        return this.count;
+    }
+    public int getPrice() {
+        return this.price;
+    }
+    
+    /**
+     * Check that the transaction can go through, without changing anything
+     * @return An error message, or NULL if the transaction is valid
+     */
+    public @Nullable Text validate() {
+        try {
+            // Check that whoever is paying can afford it
+            if (this.payer != null && MoneyUtils.getPlayerMoney(this.payer) < this.price)
+                return this.moneyError();
+            
+            // Check that whoever is being paid can hold the money, so that paying them doesn't fail after the items have moved
+            if (this.payee != null && (long) MoneyUtils.getPlayerMoney(this.payee) + this.price > Integer.MAX_VALUE)
+                return TranslatableServerSide.text(this.player, "shop.error.database");
+        } catch (NbtNotFoundException e) {
+            return TranslatableServerSide.text(this.player, "shop.error.database");
+        }
+        
+        // Check that the items exist (Infinite shops without a container can craft the items instead)
+        if (this.type == ShopSigns.SELL && this.container != null && InventoryUtils.getInventoryCount(this.player.getInventory(), this.sign::itemMatchPredicate) < this.count)
+            return this.stockError();
+        if (this.type == ShopSigns.BUY && this.container != null && InventoryUtils.getInventoryCount(this.container, this.sign::itemMatchPredicate) < this.count)
+            return this.stockError();
+        
+        // Check that the items will fit, nothing is dropped on the ground as that can't be undone
+        ItemStack stack = this.sign.createItemStack(1);
+        if (this.type == ShopSigns.BUY && InventoryUtils.getInventoryRoom(this.player.getInventory(), stack) < this.count)
+            return this.spaceError();
+        if (this.type == ShopSigns.SELL && this.container != null && InventoryUtils.getInventoryRoom(this.container, stack) < this.count)
+            return this.spaceError();
+        
+        return null;
+    }
+    
+    /**
+     * Validate and then settle the transaction, moving the items and money
+     * @return An error message, or NULL if the transaction completed
+     */
+    public @Nullable Text apply() {
+        Text error = this.validate();
+        if (error != null)
+            return error;
+        
+        ShopJournal.begin(this);
+        
+        // Keep a copy of both inventories in case the items can't be moved entirely
+        Snapshot playerSnapshot = new Snapshot(this.player.getInventory());
+        Snapshot containerSnapshot = this.container == null ? null : new Snapshot(this.container);
+        
+        // Move the items
+        if (!this.moveItems()) {
+            this.restore(playerSnapshot, containerSnapshot);
+            ShopJournal.rollback(this, "items");
+            return this.stockError();
+        }
+        
+        // Take the money from the payer
+        try {
+            if (this.payer != null && !MoneyUtils.takePlayerMoney(this.payer, this.price))
+                throw new NotEnoughMoneyException();
+        } catch (NbtNotFoundException e) {
+            this.restore(playerSnapshot, containerSnapshot);
+            ShopJournal.rollback(this, "payer");
+            CoreMod.logError("Failed to take " + this.price + " money from \"" + this.payer + "\" (Maybe they haven't joined the server?).");
+            return TranslatableServerSide.text(this.player, "shop.error.database");
+        } catch (NotEnoughMoneyException e) {
+            this.restore(playerSnapshot, containerSnapshot);
+            ShopJournal.rollback(this, "money");
+            return this.moneyError();
+        }
+        
+        // Give the money to the payee
+        boolean paid;
+        try {
+            paid = this.payee == null || MoneyUtils.givePlayerMoney(this.payee, this.price);
+        } catch (NbtNotFoundException e) {
+            CoreMod.logError("Failed to give " + this.price + " money to \"" + this.payee + "\" (Maybe they haven't joined the server?).");
+            paid = false;
+        }
+        
+        if (!paid) {
+            this.refund();
+            this.restore(playerSnapshot, containerSnapshot);
+            ShopJournal.rollback(this, "payee");
+            return TranslatableServerSide.text(this.player, "shop.error.database");
+        }
+        
+        ShopJournal.commit(this);
+        return null;
+    }
+    
+    private boolean moveItems() {
+        BlockPos signPos = this.shop.getPos();
+        if (this.type == ShopSigns.BUY)
+            return InventoryUtils.chestToPlayer(this.player, signPos, this.container, this.player.getInventory(), this.sign::itemMatchPredicate, this.count, true, this.sign::createItemStack);
+        
+        // Put the players items into the chest
+        if (InventoryUtils.playerToChest(this.player, signPos, this.player.getInventory(), this.container, this.sign::itemMatchPredicate, this.count, true))
+            return true;
+        
+        // Infinite shops can accept items that can be crafted into the item being sold
+        List<? extends Recipe<?>> recipes = this.sign.getShopItemRecipes();
+        if (this.sign.isInfinite() && recipes != null) {
+            for (Recipe<?> recipe : recipes) {
+                ShopCraftAction craft = new ShopCraftAction(recipe, this.sign, signPos, this.container);
+                if (craft.craft(this.player))
+                    return true;
+            }
+        }
+        
+        return false;
+    }
+    private void refund() {
+        if (this.payer == null)
+            return;
+        try {
+            MoneyUtils.givePlayerMoney(this.payer, this.price);
+        } catch (NbtNotFoundException e) {
+            CoreMod.logError("Failed to refund " + this.price + " money to \"" + this.payer + "\", transaction " + this.id + ".");
+        }
+    }
+    private void restore(@NotNull Snapshot playerSnapshot, @Nullable Snapshot containerSnapshot) {
+        playerSnapshot.restore();
+        if (containerSnapshot != null)
+            containerSnapshot.restore();
+    }
+    
+    private @NotNull Text moneyError() {
+        return TranslatableServerSide.text(this.player, this.type == ShopSigns.SELL ? "shop.error.money_chest" : "shop.error.money_player");
+    }
+    private @NotNull Text stockError() {
+        return TranslatableServerSide.text(this.player, this.type == ShopSigns.SELL ? "shop.error.stock_player" : "shop.error.stock_chest", this.sign.getShopItemDisplay());
+    }
+    private @NotNull Text spaceError() {
+        return TranslatableServerSide.text(this.player, this.type == ShopSigns.SELL ? "shop.error.space_chest" : "shop.error.space_player", this.sign.getShopItemDisplay());
+    }
+    
+    @Override
+    public String toString() {
+        return this.type.name()
+            + "\t" + this.shop.getDimension().getValue() + " " + this.shop.getPos().toShortString()
+            + "\t" + this.player.getUuid()
+            + "\t" + this.payer + " -> " + this.payee
+            + "\t" + this.count + " " + this.sign.getShopItemIdentifier()
+            + "\t$" + this.price;
+    }
+    
+    /**
+     * A copy of every slot in an inventory
+     */
+    private static final class Snapshot {
+        private final @NotNull Inventory inventory;
+        private final @NotNull ItemStack[] stacks;
+        
+        private Snapshot(@NotNull Inventory inventory) {
+            this.inventory = inventory;
+            this.stacks = new ItemStack[inventory.size()];
+            for (int i = 0; i < this.stacks.length; i++)
+                this.stacks[i] = inventory.getStack(i).copy();
+        }
+        
+        private void restore() {
+            for (int i = 0; i < this.stacks.length; i++)
+                this.inventory.setStack(i, this.stacks[i]);
+            this.inventory.markDirty();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import com.google.gson.JsonObject;
+import net.theelm.sewingmachine.utilities.EntityUtils;
+import net.minecraft.block.entity.MobSpawnerBlockEntity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtString;
+import net.minecraft.util.Formatting;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The mobs of a mob spawner, shared by spawner blocks and spawner items
+ *   Spawner NBT is parsed into entity types once, instead of every user reading and writing the raw tags on their
+ *   own. Instances are never modified, changes return a new instance.
+ */
+public final class SpawnerData {
+    public static final @NotNull String ITEM_KEY = "EntityIds";
+    public static final @NotNull SpawnerData EMPTY = new SpawnerData(Collections.emptyList());
+    
+    private final @NotNull List<EntityType<?>> types;
+    private @Nullable NbtCompound display = null;
+    
+    private SpawnerData(@NotNull List<EntityType<?>> types) {
+        this.types = types;
+    }
+    
+    public static @NotNull SpawnerData of(@NotNull EntityType<?> type) {
+        return new SpawnerData(Collections.singletonList(type));
+    }
+    
+    /**
+     * Read the mobs of a placed spawner
+     * @param spawner The spawner block
+     * @return The mobs that the spawner spawns
+     */
+    public static @NotNull SpawnerData fromSpawner(@NotNull MobSpawnerBlockEntity spawner) {
+        return SpawnerData.fromSpawner(spawner.createNbt());
+    }
+    
+    /**
+     * Read the mobs from the NBT of a spawner block, from the "SpawnPotentials" or the "SpawnData" if there are none
+     * @param spawnerTag The spawner block NBT
+     * @return The mobs that the spawner spawns
+     */
+    public static @NotNull SpawnerData fromSpawner(@NotNull NbtCompound spawnerTag) {
+        List<EntityType<?>> types = new ArrayList<>();
+        
+        NbtList potentials = spawnerTag.getList("SpawnPotentials", NbtElement.COMPOUND_TYPE);
+        if (potentials.isEmpty())
+            SpawnerData.addFromSpawnData(types, spawnerTag.getCompound("SpawnData"));
+        else for (NbtElement potential : potentials)
+            SpawnerData.addFromSpawnData(types, (NbtCompound) potential);
+        
+        return types.isEmpty() ? SpawnerData.EMPTY : new SpawnerData(Collections.unmodifiableList(types));
+    }
+    private static void addFromSpawnData(@NotNull List<EntityType<?>> types, @NotNull NbtCompound base) {
+        NbtCompound data = base.contains("data", NbtElement.COMPOUND_TYPE) ? base.getCompound("data") : base;
+        
+        // Get entity details
+        if (!data.contains("entity", NbtElement.COMPOUND_TYPE))
+            return;
+        NbtCompound entity = data.getCompound("entity");
+        
+        // Get entity Id
+        if (entity.contains("id", NbtElement.STRING_TYPE))
+            SpawnerData.addType(types, entity.getString("id"));
+    }
+    
+    /**
+     * Read the mobs of a spawner item
+     * @param stack The item
+     * @return The mobs on the item, or NULL if the item is not a spawner with mobs
+     */
+    public static @Nullable SpawnerData fromItem(@NotNull ItemStack stack) {
+        NbtCompound tag;
+        if (!stack.isOf(Items.SPAWNER) || (tag = stack.getNbt()) == null || !tag.contains(SpawnerData.ITEM_KEY, NbtElement.LIST_TYPE))
+            return null;
+        
+        List<EntityType<?>> types = new ArrayList<>();
+        for (NbtElement id : tag.getList(SpawnerData.ITEM_KEY, NbtElement.STRING_TYPE))
+            SpawnerData.addType(types, id.asString());
+        
+        return new SpawnerData(Collections.unmodifiableList(types));
+    }
+    private static void addType(@NotNull List<EntityType<?>> types, @Nullable String id) {
+        if (id == null || id.isEmpty())
+            return;
+        
+        // Unknown mobs (From removed mods) are dropped
+        EntityType<?> type = EntityType.get(id)
+            .orElse(null);
+        if (type != null && !types.contains(type))
+            types.add(type);
+    }
+    
+    /**
+     * Check if a mob is allowed to be put into a spawner by players
+     * @param type The type of mob
+     * @return If the mob is allowed
+     */
+    public static boolean isAllowed(@NotNull EntityType<?> type) {
+        return EntityUtils.canBeSpawnered(type);
+    }
+    
+    public @NotNull List<EntityType<?>> getTypes() {
+        return this.types;
+    }
+    public @Nullable EntityType<?> getFirst() {
+        return this.types.isEmpty() ? null : this.types.get(0);
+    }
+    public boolean contains(@NotNull EntityType<?> type) {
+        return this.types.contains(type);
+    }
+    public int size() {
+        return this.types.size();
+    }
+    public boolean isEmpty() {
+        return this.types.isEmpty();
+    }
+    
+    /**
+     * @param type The mob to add
+     * @return The mobs with the new mob added to the end
+     */
+    public @NotNull SpawnerData with(@NotNull EntityType<?> type) {
+        if (this.contains(type))
+            return this;
+        List<EntityType<?>> types = new ArrayList<>(this.types);
+        types.add(type);
+        return new SpawnerData(Collections.unmodifiableList(types));
+    }
+    
+    /**
+     * @return The mobs without the first mob
+     */
+    public @NotNull SpawnerData withoutFirst() {
+        return this.types.size() <= 1 ? SpawnerData.EMPTY : new SpawnerData(this.types.subList(1, this.types.size()));
+    }
+    
+    /**
+     * @return Only the mobs that players are allowed to put into spawners
+     */
+    public @NotNull SpawnerData allowed() {
+        List<EntityType<?>> types = new ArrayList<>(this.types.size());
+        for (EntityType<?> type : this.types) {
+            if (SpawnerData.isAllowed(type))
+                types.add(type);
+        }
+        return types.size() == this.types.size() ? this : new SpawnerData(Collections.unmodifiableList(types));
+    }
+    
+    /**
+     * Roll the experience dropped when the spawner breaks without being picked up
+     * @param random The random to roll with
+     * @return The experience for every mob in the spawner
+     */
+    public int rollExperience(@NotNull Random random) {
+        int experience = 0;
+        for (int i = 0; i < this.types.size(); i++)
+            experience += 45 + random.nextInt(45) + random.nextInt(45);
+        return experience;
+    }
+    
+    /*
+     * NBT
+     */
+    
+    /**
+     * Write the mobs onto the NBT of a spawner item, along with the lore that lists them
+     * @param itemTag The item NBT
+     */
+    public void writeItem(@NotNull NbtCompound itemTag) {
+        NbtList ids = new NbtList();
+        for (EntityType<?> type : this.types)
+            ids.add(NbtString.of(EntityType.getId(type).toString()));
+        
+        itemTag.put(SpawnerData.ITEM_KEY, ids);
+        itemTag.put("display", this.getDisplay().copy());
+    }
+    public @NotNull ItemStack toItemStack() {
+        ItemStack stack = new ItemStack(Items.SPAWNER);
+        this.writeItem(stack.getOrCreateNbt());
+        return stack;
+    }
+    
+    /**
+     * Write the mobs onto the NBT of a spawner block, each mob is equally likely to spawn
+     * @param spawnerTag The spawner block NBT
+     */
+    public void writeSpawner(@NotNull NbtCompound spawnerTag) {
+        EntityType<?> first = this.getFirst();
+        if (first == null)
+            return;
+        
+        NbtList potentials = new NbtList();
+        for (EntityType<?> type : this.types) {
+            NbtCompound potential = new NbtCompound();
+            potential.putInt("weight", 1);
+            potential.put("data", SpawnerData.spawnData(type));
+            potentials.add(potential);
+        }
+        
+        spawnerTag.put("SpawnData", SpawnerData.spawnData(first));
+        spawnerTag.put("SpawnPotentials", potentials);
+    }
+    private static @NotNull NbtCompound spawnData(@NotNull EntityType<?> type) {
+        NbtCompound entity = new NbtCompound();
+        entity.putString("id", EntityType.getId(type).toString());
+        
+        NbtCompound data = new NbtCompound();
+        data.put("entity", entity);
+        return data;
+    }
+    
+    /**
+     * Get the lore of a spawner item, created once for each instance
+     * @return The display NBT, which should be copied before being put onto an item
+     */
+    public @NotNull NbtCompound getDisplay() {
+        if (this.display != null)
+            return this.display;
+        
+        // Create the lore tag
+        NbtList loreTag = new NbtList();
+        for (EntityType<?> type : this.types) {
+            // Create the display of mobs
+            JsonObject lore = new JsonObject();
+            lore.addProperty("translate", type.getTranslationKey());
+            lore.addProperty("color", (type.getSpawnGroup().isPeaceful() ? Formatting.GOLD : Formatting.RED).getName());
+            loreTag.add(NbtString.of(lore.toString()));
+        }
+        
+        // Update the lore tag
+        NbtCompound displayTag = new NbtCompound();
+        displayTag.put("Lore", loreTag);
+        return this.display = displayTag;
+    }
+}
@@ -0,0 +1,509 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import net.theelm.sewingmachine.CoreMod;
+import net.theelm.sewingmachine.mixins.Interfaces.StatHandlerAccessor;
+import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.nbt.NbtIntArray;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.stat.Stat;
+import net.minecraft.stat.StatType;
+import net.minecraft.stat.Stats;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.Util;
+import net.minecraft.util.WorldSavePath;
+import net.minecraft.util.registry.Registry;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An index of the statistics of every player, including players that are offline
+ *   Vanilla keeps the statistics of each player in their own file, so ranking players would mean reading every file.
+ *   Instead the indexed statistics of a player are copied each time they're saved, into columns of values that
+ *   have a row for every player. Queries and writing the index to disk both happen on the worker threads.
+ */
+public final class StatisticsIndex {
+    private static final @NotNull String FILE_NAME = CoreMod.MOD_ID + "_stats.dat";
+    
+    // The types of statistics that are indexed
+    private static final @NotNull List<StatType<?>> TYPES = List.of(
+        Stats.MINED,
+        Stats.CRAFTED,
+        Stats.USED,
+        Stats.BROKEN,
+        Stats.PICKED_UP,
+        Stats.DROPPED,
+        Stats.KILLED,
+        Stats.CUSTOM,
+        ShopStats.SHOP_TYPE_BOUGHT,
+        ShopStats.SHOP_TYPE_SOLD
+    );
+    
+    private static final @NotNull ReentrantReadWriteLock LOCK = new ReentrantReadWriteLock();
+    private static final @NotNull Object WRITE_LOCK = new Object();
+    private static final @NotNull AtomicBoolean SAVE_SCHEDULED = new AtomicBoolean(false);
+    private static final @NotNull AtomicBoolean REBUILDING = new AtomicBoolean(false);
+    
+    // Guarded by the lock, the index only ever belongs to one server (The integrated server can open other worlds)
+    private static @Nullable MinecraftServer SERVER = null;
+    private static @Nullable Columns COLUMNS = null;
+    private static @Nullable Map<UUID, Object2IntMap<String>> REBUILD_CHANGES = null;
+    private static boolean DIRTY = false;
+    
+    private StatisticsIndex() {}
+    
+    public static @NotNull List<StatType<?>> getTypes() {
+        return StatisticsIndex.TYPES;
+    }
+    public static boolean isIndexed(@NotNull StatType<?> type) {
+        return StatisticsIndex.TYPES.contains(type);
+    }
+    
+    /**
+     * Get the name of the column that a statistic is stored in
+     * @param type The type of statistic
+     * @param value The value of the statistic
+     * @return The column name, formatted as "type/value"
+     */
+    public static <T> @NotNull String getKey(@NotNull StatType<T> type, @NotNull T value) {
+        return StatisticsIndex.getKey(Registry.STAT_TYPE.getId(type), type.getRegistry().getId(value));
+    }
+    public static @NotNull String getKey(@Nullable Identifier type, @Nullable Object value) {
+        return type + "/" + value;
+    }
+    private static <T> @NotNull String getKey(@NotNull Stat<T> stat) {
+        return StatisticsIndex.getKey(stat.getType(), stat.getValue());
+    }
+    
+    /**
+     * Copy the indexed statistics of a player after they have been saved, must be called from the server thread
+     *   The copy is put into the index right away, so that it is included when the index is flushed as the server stops
+     * @param server The running server
+     * @param player The player that was saved
+     */
+    public static void ingest(@NotNull MinecraftServer server, @NotNull ServerPlayerEntity player) {
+        Object2IntMap<String> values = new Object2IntOpenHashMap<>();
+        for (Object2IntMap.Entry<Stat<?>> entry : ((StatHandlerAccessor)player.getStatHandler()).getStatMap().object2IntEntrySet()) {
+            Stat<?> stat = entry.getKey();
+            if (entry.getIntValue() != 0 && StatisticsIndex.isIndexed(stat.getType()))
+                values.put(StatisticsIndex.getKey(stat), entry.getIntValue());
+        }
+        
+        StatisticsIndex.put(server, player.getUuid(), values);
+    }
+    private static void put(@NotNull MinecraftServer server, @NotNull UUID uuid, @NotNull Object2IntMap<String> values) {
+        StatisticsIndex.LOCK.writeLock().lock();
+        try {
+            StatisticsIndex.load(server)
+                .put(uuid, values);
+            
+            // Changes made while rebuilding are applied again once the rebuild is done
+            if (StatisticsIndex.REBUILD_CHANGES != null)
+                StatisticsIndex.REBUILD_CHANGES.put(uuid, values);
+            StatisticsIndex.DIRTY = true;
+        } finally {
+            StatisticsIndex.LOCK.writeLock().unlock();
+        }
+        
+        StatisticsIndex.scheduleSave(server);
+    }
+    
+    /**
+     * Rank every player by a statistic, on the worker threads
+     * @param server The running server
+     * @param key The column name of the statistic
+     * @param offset The number of players to skip
+     * @param limit The number of players to return
+     * @return The page of ranked players
+     */
+    public static @NotNull CompletableFuture<Page> query(@NotNull MinecraftServer server, @NotNull String key, int offset, int limit) {
+        return CompletableFuture.supplyAsync(() -> {
+            StatisticsIndex.LOCK.readLock().lock();
+            try {
+                // Queries can run alongside each other once the index is loaded
+                if (StatisticsIndex.COLUMNS != null)
+                    return StatisticsIndex.COLUMNS.rank(key, offset, limit);
+            } finally {
+                StatisticsIndex.LOCK.readLock().unlock();
+            }
+            
+            StatisticsIndex.LOCK.writeLock().lock();
+            try {
+                return StatisticsIndex.load(server)
+                    .rank(key, offset, limit);
+            } finally {
+                StatisticsIndex.LOCK.writeLock().unlock();
+            }
+        }, Util.getMainWorkerExecutor());
+    }
+    
+    /**
+     * Rebuild the index from every statistics file, on the worker threads
+     * @param server The running server
+     * @return The number of players indexed, or NULL if a rebuild is already running
+     */
+    public static @Nullable CompletableFuture<Integer> rebuild(@NotNull MinecraftServer server) {
+        if (!StatisticsIndex.REBUILDING.compareAndSet(false, true))
+            return null;
+        
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                StatisticsIndex.LOCK.writeLock().lock();
+                try {
+                    StatisticsIndex.load(server);
+                    StatisticsIndex.REBUILD_CHANGES = new HashMap<>();
+                } finally {
+                    StatisticsIndex.LOCK.writeLock().unlock();
+                }
+                
+                // Read every file without holding the lock, the existing index keeps answering queries
+                Columns columns = new Columns();
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(server.getSavePath(WorldSavePath.STATS), "*.json")) {
+                    for (Path file : files) {
+                        String name = file.getFileName().toString();
+                        try {
+                            UUID uuid = UUID.fromString(name.substring(0, name.length() - ".json".length()));
+                            columns.put(uuid, StatisticsIndex.readStats(file));
+                        } catch (IOException | RuntimeException e) {
+                            CoreMod.logError("Could not index statistics file \"" + name + "\"", e);
+                        }
+                    }
+                } catch (IOException e) {
+                    CoreMod.logError("Could not read the statistics folder", e);
+                }
+                
+                StatisticsIndex.LOCK.writeLock().lock();
+                try {
+                    // The server stopped while rebuilding
+                    if (StatisticsIndex.SERVER != server)
+                        return columns.size();
+                    
+                    Map<UUID, Object2IntMap<String>> changes = StatisticsIndex.REBUILD_CHANGES;
+                    if (changes != null)
+                        changes.forEach(columns::put);
+                    StatisticsIndex.COLUMNS = columns;
+                    StatisticsIndex.DIRTY = true;
+                } finally {
+                    StatisticsIndex.LOCK.writeLock().unlock();
+                }
+                
+                StatisticsIndex.scheduleSave(server);
+                return columns.size();
+            } catch (RuntimeException e) {
+                CoreMod.logError("Could not rebuild the statistics index", e);
+                throw e;
+            } finally {
+                // Always allow another rebuild, even if this one failed
+                StatisticsIndex.LOCK.writeLock().lock();
+                try {
+                    StatisticsIndex.REBUILD_CHANGES = null;
+                } finally {
+                    StatisticsIndex.LOCK.writeLock().unlock();
+                    StatisticsIndex.REBUILDING.set(false);
+                }
+            }
+        }, Util.getMainWorkerExecutor());
+    }
+    private static @NotNull Object2IntMap<String> readStats(@NotNull Path file) throws IOException {
+        Object2IntMap<String> values = new Object2IntOpenHashMap<>();
+        
+        JsonObject stats;
+        try (Reader reader = Files.newBufferedReader(file)) {
+            stats = JsonParser.parseReader(reader)
+                .getAsJsonObject()
+                .getAsJsonObject("stats");
+        }
+        if (stats == null)
+            return values;
+        
+        for (StatType<?> type : StatisticsIndex.TYPES) {
+            Identifier typeId = Registry.STAT_TYPE.getId(type);
+            JsonObject entries = stats.getAsJsonObject(String.valueOf(typeId));
+            if (entries == null)
+                continue;
+            
+            for (Map.Entry<String, JsonElement> entry : entries.entrySet()) {
+                int value = entry.getValue().getAsInt();
+                if (value != 0)
+                    values.put(StatisticsIndex.getKey(typeId, entry.getKey()), value);
+            }
+        }
+        
+        return values;
+    }
+    
+    /*
+     * Loading and saving
+     */
+    
+    /**
+     * Get the index, loading it from disk if it hasn't been yet. The write lock must be held
+     */
+    private static @NotNull Columns load(@NotNull MinecraftServer server) {
+        // An index left over from another server is never used
+        if (StatisticsIndex.SERVER != server)
+            StatisticsIndex.reset(server);
+        if (StatisticsIndex.COLUMNS != null)
+            return StatisticsIndex.COLUMNS;
+        
+        Columns columns = new Columns();
+        File file = StatisticsIndex.getFile(server);
+        if (file.exists()) {
+            try {
+                columns = Columns.fromNbt(NbtIo.readCompressed(file));
+            } catch (IOException e) {
+                CoreMod.logError("Could not read the statistics index, it can be rebuilt with \"/stat reindex\"", e);
+            }
+        }
+        
+        return StatisticsIndex.COLUMNS = columns;
+    }
+    
+    /**
+     * Write the index to disk if it has changed, waiting for any write that is already running
+     * @param server The running server
+     */
+    public static void flush(@NotNull MinecraftServer server) {
+        // Writes happen one at a time, so an older copy of the index is never written over a newer one
+        synchronized (StatisticsIndex.WRITE_LOCK) {
+            NbtCompound nbt;
+            StatisticsIndex.LOCK.writeLock().lock();
+            try {
+                if (StatisticsIndex.SERVER != server || !StatisticsIndex.DIRTY || StatisticsIndex.COLUMNS == null)
+                    return;
+                nbt = StatisticsIndex.COLUMNS.toNbt();
+                StatisticsIndex.DIRTY = false;
+            } finally {
+                StatisticsIndex.LOCK.writeLock().unlock();
+            }
+            
+            // Written to a temporary file that then replaces the index, so a failed write never leaves half an index
+            if (!NbtUtils.writeBackupAndMove(StatisticsIndex.getFile(server), nbt)) {
+                CoreMod.logError("Could not save the statistics index");
+                
+                // Try again with the next save
+                StatisticsIndex.LOCK.writeLock().lock();
+                try {
+                    StatisticsIndex.DIRTY = true;
+                } finally {
+                    StatisticsIndex.LOCK.writeLock().unlock();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Write the index to disk and forget it, when the server stops
+     * @param server The server that is stopping
+     */
+    public static void close(@NotNull MinecraftServer server) {
+        synchronized (StatisticsIndex.WRITE_LOCK) {
+            StatisticsIndex.flush(server);
+            
+            StatisticsIndex.LOCK.writeLock().lock();
+            try {
+                if (StatisticsIndex.SERVER == server)
+                    StatisticsIndex.reset(null);
+            } finally {
+                StatisticsIndex.LOCK.writeLock().unlock();
+            }
+        }
+    }
+    
+    /**
+     * Drop the index, so that it is loaded again for a server. The write lock must be held
+     */
+    private static void reset(@Nullable MinecraftServer server) {
+        StatisticsIndex.SERVER = server;
+        StatisticsIndex.COLUMNS = null;
+        StatisticsIndex.REBUILD_CHANGES = null;
+        StatisticsIndex.DIRTY = false;
+    }
+    private static void scheduleSave(@NotNull MinecraftServer server) {
+        if (StatisticsIndex.SAVE_SCHEDULED.compareAndSet(false, true)) {
+            Util.getMainWorkerExecutor().execute(() -> {
+                // Changes made while saving will schedule another save
+                StatisticsIndex.SAVE_SCHEDULED.set(false);
+                StatisticsIndex.flush(server);
+            });
+        }
+    }
+    private static @NotNull File getFile(@NotNull MinecraftServer server) {
+        return server.getSavePath(WorldSavePath.ROOT)
+            .resolve("data")
+            .resolve(StatisticsIndex.FILE_NAME)
+            .toFile();
+    }
+    
+    /**
+     * A single page of ranked players
+     */
+    public static final class Page {
+        public final @NotNull List<UUID> players;
+        public final int[] values;
+        public final int offset;
+        public final int total;
+        
+        private Page(@NotNull List<UUID> players, int[] values, int offset, int total) {
+            this.players = players;
+            this.values = values;
+            this.offset = offset;
+            this.total = total;
+        }
+    }
+    
+    /**
+     * Values of each statistic, stored as one array per statistic, indexed by the row of each player
+     */
+    private static final class Columns {
+        private final @NotNull Object2IntMap<UUID> rows = new Object2IntOpenHashMap<>();
+        private final @NotNull List<UUID> players = new ArrayList<>();
+        private final @NotNull Object2ObjectMap<String, int[]> columns = new Object2ObjectOpenHashMap<>();
+        private int capacity = 16;
+        
+        private Columns() {
+            this.rows.defaultReturnValue(-1);
+        }
+        
+        private int size() {
+            return this.players.size();
+        }
+        
+        private void put(@NotNull UUID uuid, @NotNull Object2IntMap<String> values) {
+            int row = this.rows.getInt(uuid);
+            if (row < 0) {
+                row = this.players.size();
+                this.players.add(uuid);
+                this.rows.put(uuid, row);
+                if (row >= this.capacity)
+                    this.grow();
+            } else {
+                // Statistics can be reset, so clear anything the player no longer has
+                for (int[] column : this.columns.values())
+                    column[row] = 0;
+            }
+            
+            for (Object2IntMap.Entry<String> entry : values.object2IntEntrySet())
+                this.columns.computeIfAbsent(entry.getKey(), key -> new int[this.capacity])[row] = entry.getIntValue();
+        }
+        private void grow() {
+            this.capacity *= 2;
+            for (Map.Entry<String, int[]> column : this.columns.entrySet())
+                column.setValue(Arrays.copyOf(column.getValue(), this.capacity));
+        }
+        
+        private @NotNull Page rank(@NotNull String key, int offset, int limit) {
+            int[] column = this.columns.get(key);
+            if (column == null)
+                return new Page(Collections.emptyList(), new int[0], offset, 0);
+            
+            // Only players that have the statistic are ranked
+            int count = 0;
+            int[] ranked = new int[this.players.size()];
+            for (int row = 0; row < ranked.length; row++) {
+                if (column[row] != 0)
+                    ranked[count++] = row;
+            }
+            IntArrays.quickSort(ranked, 0, count, (a, b) -> Integer.compare(column[b], column[a]));
+            
+            int end = Math.min(count, offset + limit);
+            List<UUID> players = new ArrayList<>(Math.max(0, end - offset));
+            int[] values = new int[Math.max(0, end - offset)];
+            for (int i = offset; i < end; i++) {
+                players.add(this.players.get(ranked[i]));
+                values[i - offset] = column[ranked[i]];
+            }
+            
+            return new Page(players, values, offset, count);
+        }
+        
+        private @NotNull NbtCompound toNbt() {
+            NbtCompound nbt = new NbtCompound();
+            
+            NbtList players = new NbtList();
+            for (UUID uuid : this.players)
+                players.add(NbtHelper.fromUuid(uuid));
+            nbt.put("players", players);
+            
+            NbtCompound columns = new NbtCompound();
+            for (Map.Entry<String, int[]> column : this.columns.entrySet())
+                columns.putIntArray(column.getKey(), Arrays.copyOf(column.getValue(), this.players.size()));
+            nbt.put("columns", columns);
+            
+            return nbt;
+        }
+        private static @NotNull Columns fromNbt(@NotNull NbtCompound nbt) {
+            Columns columns = new Columns();
+            for (NbtElement element : nbt.getList("players", NbtElement.INT_ARRAY_TYPE)) {
+                UUID uuid = NbtHelper.toUuid(element);
+                columns.rows.put(uuid, columns.players.size());
+                columns.players.add(uuid);
+            }
+            while (columns.capacity < columns.players.size())
+                columns.capacity *= 2;
+            
+            NbtCompound saved = nbt.getCompound("columns");
+            for (String key : saved.getKeys()) {
+                if (saved.get(key) instanceof NbtIntArray array)
+                    columns.columns.put(key, Arrays.copyOf(array.getIntArray(), columns.capacity));
+            }
+            
+            return columns;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import net.theelm.sewingmachine.CoreMod;
+import net.minecraft.entity.ai.pathing.Path;
+import net.minecraft.entity.ai.pathing.PathNodeNavigator;
+import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.util.Util;
+import net.minecraft.util.math.BlockPos;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the path finding for locator trails on the worker threads
+ */
+public final class TrailPathfinder {
+    // The maximum number of trails being searched at once, across all players
+    private static final int MAX_SEARCHES = 4;
+    // How far the player can stray from their existing trail before it is searched again
+    private static final int TRAIL_DISTANCE = 9;
+    // How many nodes of the trail are shown at a time
+    public static final int VISIBLE_NODES = 8;
+    
+    private static final @NotNull AtomicInteger SEARCHES = new AtomicInteger();
+    
+    private TrailPathfinder() {}
+    
+    /**
+     * Start searching for a path, if the global limit of searches allows it
+     * @param navigator The navigator of the player, not to be used by anything else until the search completes
+     * @param cache The snapshot of the blocks around the player
+     * @param mob The mob used to test the path nodes
+     * @param positions The targets of the path
+     * @param followRange The range to search
+     * @param distance How close to the target the path needs to reach
+     * @return The completed search, or NULL if too many searches are already running
+     */
+    public static @Nullable CompletableFuture<Path> find(@NotNull PathNodeNavigator navigator, @NotNull ChunkCacheSnapshot cache, @NotNull MobEntity mob, @NotNull Set<BlockPos> positions, float followRange, int distance) {
+        if (TrailPathfinder.SEARCHES.incrementAndGet() > TrailPathfinder.MAX_SEARCHES) {
+            TrailPathfinder.SEARCHES.decrementAndGet();
+            return null;
+        }
+        
+        return CompletableFuture.supplyAsync(() -> navigator.findPathToAny(cache, mob, positions, followRange, distance, 1.0F), Util.getMainWorkerExecutor())
+            .whenComplete((path, exception) -> {
+                TrailPathfinder.SEARCHES.decrementAndGet();
+                if (exception != null)
+                    CoreMod.logError(exception);
+            });
+    }
+    
+    /**
+     * Move the current node of an existing path up to the player, so that the path can be reused instead of searching again
+     * @param path The previously found path
+     * @param pos The position of the player
+     * @return If the player is still following the path
+     */
+    public static boolean advance(@NotNull Path path, @NotNull BlockPos pos) {
+        for (int i = path.getCurrentNodeIndex(); i < path.getLength(); i++) {
+            if (path.getNodePos(i).getSquaredDistance(pos) <= TrailPathfinder.TRAIL_DISTANCE) {
+                // Skip ahead to the furthest node that is still near the player
+                int next = i;
+                while (next + 1 < path.getLength() && path.getNodePos(next + 1).getSquaredDistance(pos) <= TrailPathfinder.TRAIL_DISTANCE)
+                    next++;
+                path.setCurrentNodeIndex(next);
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.passive.WanderingTraderEntity;
+import net.minecraft.network.Packet;
+import net.minecraft.network.packet.s2c.play.PlayerListS2CPacket;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps the wandering trader entry in the player list of each player
+ *   The entry is only rendered again when the time shown in the list changes, and updates are only
+ *   sent to the players that were sent the entry
+ */
+public final class WanderingTraderPresence {
+    private static final @NotNull Set<UUID> VIEWERS = new HashSet<>();
+    
+    private static @Nullable UUID TRADER = null;
+    private static @Nullable WanderingTraderProfileCollection PROFILE = null;
+    private static int BUCKET = 0;
+    
+    // Metrics
+    private static long PACKETS_SENT = 0;
+    private static long RENDERS = 0;
+    
+    private WanderingTraderPresence() {}
+    
+    /**
+     * Check if the entity is the trader currently shown in the player list
+     * @param entity The entity to check
+     * @return If the entity is shown
+     */
+    public static boolean isShowing(@NotNull Entity entity) {
+        return WanderingTraderPresence.TRADER != null && WanderingTraderPresence.TRADER.equals(entity.getUuid());
+    }
+    
+    /**
+     * Add the trader to the player list of every player
+     * @param server The server
+     * @param trader The wandering trader
+     */
+    public static void show(@NotNull MinecraftServer server, @NotNull WanderingTraderEntity trader) {
+        WanderingTraderPresence.render(trader);
+        Packet<?> packet = WanderingTraderPresence.PROFILE.getPacket(PlayerListS2CPacket.Action.ADD_PLAYER);
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            WanderingTraderPresence.VIEWERS.add(player.getUuid());
+            WanderingTraderPresence.send(player, packet);
+        }
+    }
+    
+    /**
+     * Add the trader to the player list of a player that has joined
+     * @param player The player that joined
+     * @param trader The wandering trader
+     */
+    public static void showTo(@NotNull ServerPlayerEntity player, @NotNull WanderingTraderEntity trader) {
+        WanderingTraderPresence.render(trader);
+        WanderingTraderPresence.VIEWERS.add(player.getUuid());
+        WanderingTraderPresence.send(player, WanderingTraderPresence.PROFILE.getPacket(PlayerListS2CPacket.Action.ADD_PLAYER));
+    }
+    
+    /**
+     * Update the time remaining shown in the player list, does nothing if the displayed time has not changed
+     * @param server The server
+     * @param trader The wandering trader
+     */
+    public static void update(@NotNull MinecraftServer server, @NotNull WanderingTraderEntity trader) {
+        if (!WanderingTraderPresence.render(trader))
+            return;
+        WanderingTraderPresence.sendToViewers(server, WanderingTraderPresence.PROFILE.getPacket(PlayerListS2CPacket.Action.UPDATE_DISPLAY_NAME));
+    }
+    
+    /**
+     * Remove the trader from the player list of every player that was shown the trader
+     * @param server The server
+     */
+    public static void hide(@NotNull MinecraftServer server) {
+        if (!WanderingTraderPresence.VIEWERS.isEmpty())
+            WanderingTraderPresence.sendToViewers(server, new WanderingTraderProfileCollection().getPacket(PlayerListS2CPacket.Action.REMOVE_PLAYER));
+        
+        WanderingTraderPresence.VIEWERS.clear();
+        WanderingTraderPresence.TRADER = null;
+        WanderingTraderPresence.PROFILE = null;
+    }
+    
+    /**
+     * Render the player list entry of the trader if the time shown has changed
+     * @param trader The wandering trader
+     * @return If the entry was rendered
+     */
+    private static boolean render(@NotNull WanderingTraderEntity trader) {
+        int bucket = WanderingTraderPresence.getBucket(trader.getDespawnDelay());
+        if (WanderingTraderPresence.PROFILE != null && bucket == WanderingTraderPresence.BUCKET && WanderingTraderPresence.isShowing(trader))
+            return false;
+        
+        WanderingTraderPresence.TRADER = trader.getUuid();
+        WanderingTraderPresence.PROFILE = new WanderingTraderProfileCollection(trader);
+        WanderingTraderPresence.BUCKET = bucket;
+        WanderingTraderPresence.RENDERS++;
+        return true;
+    }
+    
+    /**
+     * Minutes are shown while over a minute remains, and then seconds (See EntityUtils#wanderingTraderDepartureTime)
+     */
+    private static int getBucket(int despawn) {
+        return despawn >= 1200 ? -(despawn / 1200) : despawn / 20;
+    }
+    
+    private static void sendToViewers(@NotNull MinecraftServer server, @NotNull Packet<?> packet) {
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            if (WanderingTraderPresence.VIEWERS.contains(player.getUuid()))
+                WanderingTraderPresence.send(player, packet);
+        }
+    }
+    private static void send(@NotNull ServerPlayerEntity player, @NotNull Packet<?> packet) {
+        player.networkHandler.sendPacket(packet);
+        WanderingTraderPresence.PACKETS_SENT++;
+    }
+    
+    public static long getPacketsSent() {
+        return WanderingTraderPresence.PACKETS_SENT;
+    }
+    public static long getRenders() {
+        return WanderingTraderPresence.RENDERS;
+    }
+    public static int getViewers() {
+        return WanderingTraderPresence.VIEWERS.size();
+    }
+}
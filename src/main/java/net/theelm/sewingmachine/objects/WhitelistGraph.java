@@ -0,0 +1,307 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+import net.theelm.sewingmachine.CoreMod;
+import net.theelm.sewingmachine.interfaces.WhitelistedPlayer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The graph of which players invited who onto the whitelist
+ *   Kept up to date as entries are added to and removed from the whitelist, instead of being rebuilt from every
+ *   entry whenever it is needed. Invites are kept for players that have been removed, so that anyone they invited
+ *   is placed back beneath them if they are added again. Invites that would create a loop are never linked.
+ *   Only used from the server thread.
+ */
+public final class WhitelistGraph {
+    private static final @NotNull Map<UUID, WhitelistedPlayer> PLAYERS = new Object2ObjectOpenHashMap<>();
+    private static final @NotNull Map<UUID, UUID> INVITED_BY = new Object2ObjectOpenHashMap<>();
+    private static final @NotNull Map<UUID, Set<UUID>> INVITED = new Object2ObjectOpenHashMap<>();
+    
+    private WhitelistGraph() {}
+    
+    /**
+     * Replace the graph with the entries of a freshly loaded whitelist
+     * @param entries All entries of the whitelist
+     */
+    public static void rebuild(@NotNull Collection<?> entries) {
+        WhitelistGraph.PLAYERS.clear();
+        WhitelistGraph.INVITED_BY.clear();
+        WhitelistGraph.INVITED.clear();
+        
+        for (Object entry : entries) {
+            if (entry instanceof WhitelistedPlayer player && player.getUUID() != null)
+                WhitelistGraph.PLAYERS.put(player.getUUID(), player);
+        }
+        for (WhitelistedPlayer player : WhitelistGraph.PLAYERS.values())
+            WhitelistGraph.link(player);
+    }
+    
+    /**
+     * Add (Or replace) a player on the whitelist
+     * @param player The whitelist entry
+     */
+    public static void insert(@NotNull WhitelistedPlayer player) {
+        UUID uuid = player.getUUID();
+        if (uuid == null)
+            return;
+        
+        WhitelistGraph.unlink(uuid);
+        WhitelistGraph.PLAYERS.put(uuid, player);
+        WhitelistGraph.link(player);
+    }
+    
+    /**
+     * Remove a player from the whitelist, anyone that they invited becomes a root of the graph
+     * @param uuid The player
+     */
+    public static void remove(@NotNull UUID uuid) {
+        if (WhitelistGraph.PLAYERS.remove(uuid) != null)
+            WhitelistGraph.unlink(uuid);
+    }
+    
+    private static void link(@NotNull WhitelistedPlayer player) {
+        UUID uuid = player.getUUID();
+        UUID invitedBy = player.getInvitedBy();
+        if (invitedBy == null || invitedBy.equals(uuid))
+            return;
+        
+        // Walk up from the inviter, if this player is found the invite would be a loop
+        if (WhitelistGraph.isInvitedBy(invitedBy, uuid)) {
+            CoreMod.logInfo("Ignoring circular whitelist invite of " + player.getName());
+            return;
+        }
+        
+        WhitelistGraph.INVITED_BY.put(uuid, invitedBy);
+        WhitelistGraph.INVITED.computeIfAbsent(invitedBy, key -> new ObjectLinkedOpenHashSet<>())
+            .add(uuid);
+    }
+    private static void unlink(@NotNull UUID uuid) {
+        UUID invitedBy = WhitelistGraph.INVITED_BY.remove(uuid);
+        if (invitedBy == null)
+            return;
+        
+        Set<UUID> siblings = WhitelistGraph.INVITED.get(invitedBy);
+        if (siblings != null && siblings.remove(uuid) && siblings.isEmpty())
+            WhitelistGraph.INVITED.remove(invitedBy);
+    }
+    
+    /**
+     * Check if a player was invited by another, either directly or through the players they invited
+     * @param uuid The player
+     * @param inviter The possible inviter
+     * @return If the inviter is an ancestor of the player
+     */
+    public static boolean isInvitedBy(@NotNull UUID uuid, @NotNull UUID inviter) {
+        UUID next = uuid;
+        
+        // The graph never contains loops, but never walk further than the number of invites
+        for (int i = WhitelistGraph.INVITED_BY.size(); next != null && i >= 0; i--) {
+            if (next.equals(inviter))
+                return true;
+            next = WhitelistGraph.INVITED_BY.get(next);
+        }
+        
+        return false;
+    }
+    
+    public static boolean contains(@NotNull UUID uuid) {
+        return WhitelistGraph.PLAYERS.containsKey(uuid);
+    }
+    public static @Nullable WhitelistedPlayer get(@NotNull UUID uuid) {
+        return WhitelistGraph.PLAYERS.get(uuid);
+    }
+    public static int size() {
+        return WhitelistGraph.PLAYERS.size();
+    }
+    
+    /**
+     * Get who invited a player, if they are still on the whitelist
+     * @param uuid The player
+     * @return The inviter
+     */
+    public static @Nullable WhitelistedPlayer getInviter(@NotNull UUID uuid) {
+        UUID invitedBy = WhitelistGraph.INVITED_BY.get(uuid);
+        return invitedBy == null ? null : WhitelistGraph.PLAYERS.get(invitedBy);
+    }
+    
+    /**
+     * Get the players that were directly invited by a player and are still on the whitelist
+     * @param uuid The player
+     * @return The invited players
+     */
+    public static @NotNull List<WhitelistedPlayer> getInvited(@NotNull UUID uuid) {
+        Set<UUID> invited = WhitelistGraph.INVITED.get(uuid);
+        if (invited == null)
+            return Collections.emptyList();
+        
+        List<WhitelistedPlayer> players = new ArrayList<>(invited.size());
+        for (UUID child : invited) {
+            WhitelistedPlayer player = WhitelistGraph.PLAYERS.get(child);
+            if (player != null)
+                players.add(player);
+        }
+        return players;
+    }
+    
+    /**
+     * Get everyone invited by a player, and everyone that they invited
+     * @param uuid The player
+     * @return The invited players, nearest first, not including the player themselves
+     */
+    public static @NotNull List<UUID> getSubtree(@NotNull UUID uuid) {
+        List<UUID> subtree = new ArrayList<>();
+        Deque<UUID> queue = new ArrayDeque<>();
+        queue.add(uuid);
+        
+        while (!queue.isEmpty()) {
+            Set<UUID> invited = WhitelistGraph.INVITED.get(queue.poll());
+            if (invited == null)
+                continue;
+            
+            for (UUID child : invited) {
+                // Players that were removed from the whitelist are roots, so anyone they invited is not included
+                if (WhitelistGraph.PLAYERS.containsKey(child)) {
+                    subtree.add(child);
+                    queue.add(child);
+                }
+            }
+        }
+        
+        return subtree;
+    }
+    
+    /**
+     * Get the players that were not invited by anyone on the whitelist
+     * @return The roots of the graph
+     */
+    public static @NotNull List<UUID> getRoots() {
+        List<UUID> roots = new ArrayList<>();
+        for (UUID uuid : WhitelistGraph.PLAYERS.keySet()) {
+            UUID invitedBy = WhitelistGraph.INVITED_BY.get(uuid);
+            if (invitedBy == null || !WhitelistGraph.PLAYERS.containsKey(invitedBy))
+                roots.add(uuid);
+        }
+        return roots;
+    }
+    
+    /**
+     * Lay out the graph beneath the roots as the lines of a tree, without looking up any names
+     * @param roots The players at the top of the tree
+     * @return Each player in order, with their depth in the tree
+     */
+    public static @NotNull List<Line> flatten(@NotNull Collection<UUID> roots) {
+        Object2IntMap<UUID> sizes = new Object2IntOpenHashMap<>();
+        for (UUID root : roots)
+            WhitelistGraph.countInvited(root, sizes);
+        
+        // Players that invited the fewest are listed first
+        Comparator<UUID> order = Comparator.comparingInt(sizes::getInt);
+        
+        List<Line> lines = new ArrayList<>(sizes.size());
+        Deque<Line> stack = new ArrayDeque<>();
+        WhitelistGraph.push(stack, roots, 0, order);
+        
+        while (!stack.isEmpty()) {
+            Line line = stack.pop();
+            lines.add(line);
+            WhitelistGraph.push(stack, WhitelistGraph.getInvitedIds(line.uuid), line.depth + 1, order);
+        }
+        
+        return lines;
+    }
+    private static void push(@NotNull Deque<Line> stack, @NotNull Collection<UUID> players, int depth, @NotNull Comparator<UUID> order) {
+        List<UUID> sorted = new ArrayList<>(players);
+        sorted.sort(order.reversed());
+        
+        // Pushed in reverse so that the first player is popped first
+        for (UUID uuid : sorted)
+            stack.push(new Line(uuid, depth, WhitelistGraph.getInvitedIds(uuid).size()));
+    }
+    private static @NotNull List<UUID> getInvitedIds(@NotNull UUID uuid) {
+        Set<UUID> invited = WhitelistGraph.INVITED.get(uuid);
+        if (invited == null)
+            return Collections.emptyList();
+        
+        List<UUID> list = new ArrayList<>(invited.size());
+        for (UUID child : invited) {
+            if (WhitelistGraph.PLAYERS.containsKey(child))
+                list.add(child);
+        }
+        return list;
+    }
+    private static void countInvited(@NotNull UUID root, @NotNull Object2IntMap<UUID> sizes) {
+        // Post-order without recursion, as chains of invites can be long
+        Deque<UUID> stack = new ArrayDeque<>();
+        List<UUID> order = new ArrayList<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            UUID uuid = stack.pop();
+            order.add(uuid);
+            for (UUID child : WhitelistGraph.getInvitedIds(uuid))
+                stack.push(child);
+        }
+        
+        for (int i = order.size() - 1; i >= 0; i--) {
+            UUID uuid = order.get(i);
+            int total = 0;
+            for (UUID child : WhitelistGraph.getInvitedIds(uuid))
+                total += 1 + sizes.getInt(child);
+            sizes.put(uuid, total);
+        }
+    }
+    
+    /**
+     * A single player in the laid out tree
+     */
+    public static final class Line {
+        public final @NotNull UUID uuid;
+        public final int depth;
+        public final int invited;
+        
+        private Line(@NotNull UUID uuid, int depth, int invited) {
+            this.uuid = uuid;
+            this.depth = depth;
+            this.invited = invited;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import net.theelm.sewingmachine.CoreMod;
+import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Util;
+import net.minecraft.util.registry.RegistryKey;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldProperties;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes the separate properties of worlds in the background
+ *   Worlds queue a snapshot of their properties while saving, which is skipped if nothing has changed since the
+ *   last write, and the snapshots of every world are written together once the server has finished saving.
+ *   The time of day and weather timers change every tick, so they are left out when checking for changes and are
+ *   written along with other changes, or when the server saves with a flush (Such as when it is stopping).
+ */
+public final class WorldPropertiesWriter {
+    // Properties that change every tick
+    private static final @NotNull String[] TICKING = new String[]{ "DayTime", "clearWeatherTime", "rainTime", "thunderTime" };
+    
+    // The last snapshot queued for each world, without the ticking properties
+    private static final @NotNull Map<RegistryKey<World>, NbtCompound> WRITTEN = new ConcurrentHashMap<>();
+    // Snapshots waiting to be written, guarded by synchronizing on the map
+    private static final @NotNull Map<RegistryKey<World>, NbtCompound> PENDING = new LinkedHashMap<>();
+    
+    private static final @NotNull Object WRITE_LOCK = new Object();
+    private static final @NotNull AtomicBoolean WRITE_SCHEDULED = new AtomicBoolean(false);
+    
+    private WorldPropertiesWriter() {}
+    
+    /**
+     * Snapshot the properties of a world if they have changed since they were last written
+     * @param world The world being saved
+     * @param properties The properties of the world
+     * @param force If the properties should be written even if only the ticking properties have changed
+     */
+    public static void queue(@NotNull ServerWorld world, @NotNull WorldProperties properties, boolean force) {
+        RegistryKey<World> key = world.getRegistryKey();
+        NbtCompound snapshot = NbtUtils.writeWorldDatToTag(world, properties);
+        NbtCompound compare = WorldPropertiesWriter.withoutTicking(snapshot);
+        if (!force && compare.equals(WorldPropertiesWriter.WRITTEN.get(key)))
+            return;
+        
+        WorldPropertiesWriter.WRITTEN.put(key, compare);
+        synchronized (WorldPropertiesWriter.PENDING) {
+            WorldPropertiesWriter.PENDING.put(key, snapshot);
+        }
+    }
+    
+    /**
+     * Write the queued snapshots on the worker threads
+     */
+    public static void writeAsync() {
+        synchronized (WorldPropertiesWriter.PENDING) {
+            if (WorldPropertiesWriter.PENDING.isEmpty())
+                return;
+        }
+        if (WorldPropertiesWriter.WRITE_SCHEDULED.compareAndSet(false, true)) {
+            Util.getMainWorkerExecutor().execute(() -> {
+                // Snapshots queued while writing will schedule another write
+                WorldPropertiesWriter.WRITE_SCHEDULED.set(false);
+                WorldPropertiesWriter.flush();
+            });
+        }
+    }
+    
+    /**
+     * Write the queued snapshots, waiting for any write that is already running
+     */
+    public static void flush() {
+        synchronized (WorldPropertiesWriter.WRITE_LOCK) {
+            List<Map.Entry<RegistryKey<World>, NbtCompound>> snapshots;
+            synchronized (WorldPropertiesWriter.PENDING) {
+                snapshots = new ArrayList<>(WorldPropertiesWriter.PENDING.entrySet());
+                WorldPropertiesWriter.PENDING.clear();
+            }
+            
+            for (Map.Entry<RegistryKey<World>, NbtCompound> entry : snapshots) {
+                RegistryKey<World> key = entry.getKey();
+                NbtCompound snapshot = entry.getValue();
+                if (!NbtUtils.writeWorldDat(key, snapshot)) {
+                    // Try again during the next save
+                    WorldPropertiesWriter.WRITTEN.remove(key);
+                    CoreMod.logError("Failed to save the properties of " + key.getValue());
+                }
+            }
+        }
+    }
+    
+    private static @NotNull NbtCompound withoutTicking(@NotNull NbtCompound snapshot) {
+        NbtCompound compare = snapshot.copy();
+        NbtCompound data = compare.getCompound("Data");
+        for (String property : WorldPropertiesWriter.TICKING)
+            data.remove(property);
+        return compare;
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects.ticking;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Object2BooleanMap;
+import it.unimi.dsi.fastutil.objects.Object2BooleanOpenHashMap;
+import net.theelm.sewingmachine.config.SewConfig;
+import net.theelm.sewingmachine.enums.ClaimPermissions;
+import net.theelm.sewingmachine.interfaces.Claim;
+import net.theelm.sewingmachine.interfaces.IClaimedChunk;
+import net.theelm.sewingmachine.interfaces.LogicalWorld;
+import net.theelm.sewingmachine.interfaces.TickableContext;
+import net.theelm.sewingmachine.interfaces.TickingAction;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.LeavesBlock;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.tag.BlockTags;
+import net.minecraft.util.Hand;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.Vec3i;
+import net.minecraft.world.chunk.WorldChunk;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Breaks the blocks connected to a block that a player broke, such as an ore vein or a tree
+ *   The connected blocks are found up front, up to a limit, and are then broken a few at a time each tick using the
+ *   players tool. Claim permissions are resolved once for each claim that is reached, and the tool is damaged for
+ *   each block. Stops early if the player leaves, changes their tool, the tool is about to break, or a chunk of the
+ *   blocks has unloaded.
+ */
+public final class ChainBreak implements TickingAction {
+    // Ores are connected by their faces
+    public static final @NotNull Vec3i[] FACES = ChainBreak.faces();
+    // Logs are connected by their faces, edges and corners, but never downwards
+    public static final @NotNull Vec3i[] UPWARDS = ChainBreak.upwards();
+    
+    private final @NotNull ServerPlayerEntity player;
+    private final @NotNull ServerWorld world;
+    private final @NotNull Hand hand;
+    private final @NotNull ItemStack tool;
+    private final @NotNull Block block;
+    private final @NotNull LongList positions;
+    private final boolean bypassClaims;
+    
+    // Chunks are only kept for a single tick, as they may unload between ticks
+    private final @NotNull Long2ObjectMap<WorldChunk> chunks = new Long2ObjectOpenHashMap<>();
+    private final @NotNull Object2BooleanMap<Claim> claims = new Object2BooleanOpenHashMap<>();
+    private int next = 0;
+    
+    private ChainBreak(@NotNull ServerPlayerEntity player, @NotNull ServerWorld world, @NotNull Hand hand, @NotNull Block block, @NotNull LongList positions) {
+        this.player = player;
+        this.world = world;
+        this.hand = hand;
+        this.tool = player.getStackInHand(hand);
+        this.block = block;
+        this.positions = positions;
+        this.bypassClaims = !SewConfig.get(SewConfig.DO_CLAIMS) || (player.isCreative() && SewConfig.get(SewConfig.CLAIM_CREATIVE_BYPASS));
+    }
+    
+    /**
+     * Start breaking the blocks connected to a block
+     * @param player The player that broke the block
+     * @param world The world that the block is in
+     * @param hand The hand holding the tool
+     * @param origin The block that the player broke, which is not broken again
+     * @param connections The offsets from a block to the blocks that it is connected to
+     * @param limit The most blocks to break
+     * @return The breaking task, or NULL if no blocks are connected
+     */
+    public static @Nullable ChainBreak start(@NotNull ServerPlayerEntity player, @NotNull ServerWorld world, @NotNull Hand hand, @NotNull BlockPos origin, @NotNull Vec3i[] connections, int limit) {
+        Block block = world.getBlockState(origin)
+            .getBlock();
+        LongList positions = ChainBreak.gather(world, origin, block, connections, limit);
+        if (positions.isEmpty())
+            return null;
+        
+        return ChainBreak.schedule(player, world, hand, block, positions);
+    }
+    
+    /**
+     * Start felling the logs of a tree connected to a log, only if the logs are part of a natural tree
+     *   Logs can be connected sideways, so without a canopy a building made of logs would be felled too. Leaves that
+     *   are placed by players never decay, so only leaves that can decay (Or the wart blocks of nether fungi) count.
+     * @param player The player that broke the log
+     * @param world The world that the log is in
+     * @param hand The hand holding the tool
+     * @param origin The log that the player broke, which is not broken again
+     * @param limit The most logs to break
+     * @return The breaking task, or NULL if no logs are connected or they aren't a tree
+     */
+    public static @Nullable ChainBreak fell(@NotNull ServerPlayerEntity player, @NotNull ServerWorld world, @NotNull Hand hand, @NotNull BlockPos origin, int limit) {
+        Block block = world.getBlockState(origin)
+            .getBlock();
+        LongList positions = ChainBreak.gather(world, origin, block, ChainBreak.UPWARDS, limit);
+        if (positions.isEmpty() || !ChainBreak.hasCanopy(world, positions))
+            return null;
+        
+        return ChainBreak.schedule(player, world, hand, block, positions);
+    }
+    
+    private static @NotNull ChainBreak schedule(@NotNull ServerPlayerEntity player, @NotNull ServerWorld world, @NotNull Hand hand, @NotNull Block block, @NotNull LongList positions) {
+        ChainBreak chain = new ChainBreak(player, world, hand, block, positions);
+        ((LogicalWorld) world).addTickableEvent(chain);
+        return chain;
+    }
+    
+    /**
+     * Find the blocks of the same type that are connected to a block, nearest first
+     * @param world The world that the block is in
+     * @param origin The starting block, which is not included
+     * @param block The type of block to search for
+     * @param connections The offsets from a block to the blocks that it is connected to
+     * @param limit The most blocks to find
+     * @return The positions of the connected blocks
+     */
+    public static @NotNull LongList gather(@NotNull ServerWorld world, @NotNull BlockPos origin, @NotNull Block block, @NotNull Vec3i[] connections, int limit) {
+        LongList found = new LongArrayList();
+        LongSet visited = new LongOpenHashSet();
+        LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+        BlockPos.Mutable search = new BlockPos.Mutable();
+        
+        visited.add(origin.asLong());
+        queue.enqueue(origin.asLong());
+        
+        while (!queue.isEmpty() && found.size() < limit) {
+            long current = queue.dequeueLong();
+            for (Vec3i offset : connections) {
+                search.set(current)
+                    .move(offset);
+                
+                long pos = search.asLong();
+                if (!visited.add(pos))
+                    continue;
+                
+                // Never load chunks to follow a vein
+                if (!world.isChunkLoaded(ChunkPos.toLong(search.getX() >> 4, search.getZ() >> 4)) || !world.getBlockState(search).isOf(block))
+                    continue;
+                
+                found.add(pos);
+                queue.enqueue(pos);
+                if (found.size() >= limit)
+                    break;
+            }
+        }
+        
+        return found;
+    }
+    
+    /**
+     * Check if any of the logs are touching the leaves of a natural tree
+     * @param world The world that the logs are in
+     * @param positions The positions of the logs
+     * @return If natural leaves were found
+     */
+    private static boolean hasCanopy(@NotNull ServerWorld world, @NotNull LongList positions) {
+        BlockPos.Mutable search = new BlockPos.Mutable();
+        for (int i = 0; i < positions.size(); i++) {
+            for (Vec3i offset : ChainBreak.FACES) {
+                search.set(positions.getLong(i))
+                    .move(offset);
+                
+                // Never load chunks to look for leaves
+                if (!world.isChunkLoaded(ChunkPos.toLong(search.getX() >> 4, search.getZ() >> 4)))
+                    continue;
+                
+                BlockState state = world.getBlockState(search);
+                if (state.isIn(BlockTags.LEAVES) ? !(state.contains(LeavesBlock.PERSISTENT) && state.get(LeavesBlock.PERSISTENT)) : state.isIn(BlockTags.WART_BLOCKS))
+                    return true;
+            }
+        }
+        return false;
+    }
+    
+    public int size() {
+        return this.positions.size();
+    }
+    
+    @Override
+    public boolean isCompleted(@NotNull TickableContext tickable) {
+        if (tickable.isRemoved() || this.isPlayerGone())
+            return true;
+        
+        this.chunks.clear();
+        int budget = SewConfig.get(SewConfig.CHAIN_BREAKS_PER_TICK);
+        while (budget > 0 && this.next < this.positions.size()) {
+            if (this.isToolSpent())
+                return true;
+            
+            BlockPos pos = BlockPos.fromLong(this.positions.getLong(this.next++));
+            WorldChunk chunk = this.getChunk(pos);
+            
+            // Stop if the chunk has unloaded, instead of loading it again
+            if (chunk == null)
+                return true;
+            
+            BlockState state = chunk.getBlockState(pos);
+            
+            // Skip blocks that have changed since they were found, or that the player can not break
+            if (!state.isOf(this.block) || !this.canBreak(chunk, pos))
+                continue;
+            
+            this.breakBlock(pos, state);
+            budget--;
+        }
+        
+        return this.next >= this.positions.size();
+    }
+    
+    private void breakBlock(@NotNull BlockPos pos, @NotNull BlockState state) {
+        BlockEntity blockEntity = this.world.getBlockEntity(pos);
+        boolean canHarvest = this.player.canHarvest(state);
+        
+        // Drops use the tool as it was before being damaged, the same as a normal block break
+        ItemStack tool = this.tool.copy();
+        this.tool.postMine(this.world, state, pos, this.player);
+        
+        if (this.world.breakBlock(pos, false, this.player) && canHarvest)
+            state.getBlock().afterBreak(this.world, this.player, pos, state, blockEntity, tool);
+    }
+    
+    private @Nullable WorldChunk getChunk(@NotNull BlockPos pos) {
+        int x = pos.getX() >> 4;
+        int z = pos.getZ() >> 4;
+        long chunkPos = ChunkPos.toLong(x, z);
+        WorldChunk chunk = this.chunks.get(chunkPos);
+        if (chunk == null) {
+            chunk = this.world.getChunkManager()
+                .getWorldChunk(x, z, false);
+            if (chunk == null)
+                return null;
+            this.chunks.put(chunkPos, chunk);
+        }
+        return chunk;
+    }
+    
+    private boolean canBreak(@NotNull WorldChunk chunk, @NotNull BlockPos pos) {
+        if (this.bypassClaims)
+            return true;
+        
+        // Most chunks are a single claim, slices of a chunk that are claimed separately are checked separately
+        Claim claim = ((IClaimedChunk) chunk).getClaim(pos);
+        if (this.claims.containsKey(claim))
+            return this.claims.getBoolean(claim);
+        
+        boolean allowed = claim.canPlayerDo(this.player.getUuid(), ClaimPermissions.BLOCKS);
+        this.claims.put(claim, allowed);
+        return allowed;
+    }
+    
+    private boolean isPlayerGone() {
+        return this.player.isDisconnected()
+            || this.player.isRemoved()
+            || this.player.getWorld() != this.world;
+    }
+    private boolean isToolSpent() {
+        ItemStack held = this.player.getStackInHand(this.hand);
+        if (this.tool.isEmpty())
+            return !held.isEmpty();
+        if (held != this.tool || held.isEmpty())
+            return true;
+        
+        // Leave the last point of durability, instead of breaking the tool
+        return held.isDamageable() && held.getDamage() + 1 >= held.getMaxDamage();
+    }
+    
+    private static @NotNull Vec3i[] faces() {
+        Direction[] directions = Direction.values();
+        Vec3i[] faces = new Vec3i[directions.length];
+        for (int i = 0; i < directions.length; i++)
+            faces[i] = directions[i].getVector();
+        return faces;
+    }
+    private static @NotNull Vec3i[] upwards() {
+        List<Vec3i> offsets = new ArrayList<>();
+        for (int y = 0; y <= 1; y++) {
+            for (int x = -1; x <= 1; x++) {
+                for (int z = -1; z <= 1; z++) {
+                    if (x != 0 || y != 0 || z != 0)
+                        offsets.add(new Vec3i(x, y, z));
+                }
+            }
+        }
+        return offsets.toArray(new Vec3i[0]);
+    }
+}
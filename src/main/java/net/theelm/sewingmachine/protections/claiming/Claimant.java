@@ -32,7 +32,9 @@ import net.theelm.sewingmachine.enums.ClaimSettings;
 import net.theelm.sewingmachine.interfaces.WhitelistedPlayer;
 import net.theelm.sewingmachine.objects.ClaimTag;
 import net.theelm.sewingmachine.objects.ticking.ClaimCache;
+import net.theelm.sewingmachine.protections.regions.ChunkZone;
 import net.theelm.sewingmachine.utilities.DevUtils;
+import net.theelm.sewingmachine.utilities.MapUtils;
 import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.PlayerEntity;
@@ -75,6 +77,9 @@ public abstract class Claimant {
     
     protected MutableText name = null;
     
+    // Claimed regions drawn on BlueMap, only maintained if BlueMap is installed
+    private volatile @Nullable ChunkZone.Builder regions = null;
+    
     protected Claimant(@NotNull ClaimCache cache, @NotNull ClaimantType type, @NotNull UUID uuid) {
         this.claimCache = cache;
         this.type = type;
@@ -160,9 +165,14 @@ public abstract class Claimant {
     }
     
     public final void addToCount(@NotNull WorldChunk... chunks) {
-        for (WorldChunk chunk : chunks)
-            this.claimedChunks.add(ClaimTag.of(chunk));
+        for (WorldChunk chunk : chunks) {
+            ClaimTag tag = ClaimTag.of(chunk);
+            this.claimedChunks.add(tag);
+            if (this.regions != null)
+                this.regions.add(tag);
+        }
         this.markDirty();
+        this.updateRegions();
     }
     public final void removeFromCount(@NotNull WorldChunk... chunks) {
         for (WorldChunk chunk : chunks) {
@@ -174,8 +184,19 @@ public abstract class Claimant {
                 )
                 && iteration.getX() == pos.x
                 && iteration.getZ() == pos.z
-            ))) this.markDirty();
+            ))) {
+                if (this.regions != null)
+                    this.regions.remove(chunk);
+                this.markDirty();
+            }
         }
+        this.updateRegions();
+    }
+    
+    /* Map regions */
+    private void updateRegions() {
+        if (this.regions != null)
+            this.regions.build();
     }
     
     public final int getCount() {
@@ -312,10 +333,16 @@ public abstract class Claimant {
             }
         }
         
-        // TODO: Use the zone and write to bluemap
-        /*new ChunkZone.Builder(this)
-            .add(this.CLAIMED_CHUNKS)
-            .build();*/
+        // Collect the map regions here on the server thread, and build them once BlueMap is available
+        if (this.regions == null && MapUtils.isInstalled()) {
+            ChunkZone.Builder regions;
+            synchronized (this.claimedChunks) {
+                regions = new ChunkZone.Builder(this)
+                    .add(new LinkedHashSet<>(this.claimedChunks));
+            }
+            this.regions = regions;
+            MapUtils.run((api) -> regions.build());
+        }
     }
     
     private static @NotNull String rankNbtTag(@Nullable Claimant claimant) {
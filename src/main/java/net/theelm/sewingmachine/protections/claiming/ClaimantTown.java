@@ -50,9 +50,12 @@ import net.minecraft.util.Formatting;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public final class ClaimantTown extends Claimant {
     
@@ -162,11 +165,19 @@ public final class ClaimantTown extends Claimant {
     /* Send Messages */
     @Override
     public void send(@NotNull MinecraftServer server, @NotNull final Text text, @NotNull final MessageType type, @NotNull final UUID from) {
-        this.getFriends().forEach((uuid) -> {
-            ServerPlayerEntity player = ServerCore.getPlayer(server, uuid);
-            if (player != null)
-                player.sendMessage(text, type, from);
-        });
+        this.getOnlineResidents(server)
+            .forEach((player) -> player.sendMessage(text, type, from));
+    }
+    
+    /**
+     * Get the residents of the town that are currently online, using the town members instead of filtering every online player
+     * @param server The Minecraft Server
+     * @return A stream of the online residents
+     */
+    public @NotNull Stream<ServerPlayerEntity> getOnlineResidents(@NotNull MinecraftServer server) {
+        return new ArrayList<>(this.getFriends()).stream()
+            .map((uuid) -> ServerCore.getPlayer(server, uuid))
+            .filter(Objects::nonNull);
     }
     
     /* Tax Options */
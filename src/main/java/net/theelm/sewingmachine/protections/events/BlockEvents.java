@@ -26,7 +26,9 @@
 package net.theelm.sewingmachine.protections.events;
 
 import net.theelm.sewingmachine.CoreMod;
+import net.theelm.sewingmachine.config.SewConfig;
 import net.theelm.sewingmachine.enums.ClaimSettings;
+import net.theelm.sewingmachine.objects.ticking.ChainBreak;
 import net.theelm.sewingmachine.utilities.ChunkUtils;
 import net.theelm.sewingmachine.utilities.CropUtils;
 import net.minecraft.block.Block;
@@ -41,10 +43,6 @@ import net.minecraft.util.math.Direction;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-
 public class BlockEvents {
     private BlockEvents() {}
     
@@ -55,7 +53,10 @@ public class BlockEvents {
         if (!(ChunkUtils.isSetting(ClaimSettings.TREE_CAPACITATE, world, blockPos) && CropUtils.isTree(world.getBlockState(blockPos)) && player.isSneaking()))
             return ActionResult.PASS;
         
-        CoreMod.logInfo("Broke a tree block.");
+        // Break the logs above over the next few ticks
+        ChainBreak logs = ChainBreak.fell(player, world, hand, blockPos, SewConfig.get(SewConfig.TREE_CAPACITATOR_LIMIT));
+        if (logs != null)
+            CoreMod.logDebug("Broke a tree block, felling " + logs.size() + " others");
         
         return ActionResult.SUCCESS;
     }
@@ -64,58 +65,17 @@ public class BlockEvents {
      * Vein Miner
      */
     public static ActionResult eventVeinMiner(@NotNull final ServerPlayerEntity player, @NotNull final ServerWorld world, @NotNull final Hand hand, @NotNull final BlockPos blockPos, @Nullable final Direction blockFace) {
-        BlockState blockState = world.getBlockState( blockPos );
+        BlockState blockState = world.getBlockState(blockPos);
         Block block = blockState.getBlock();
         
-        if (!(ChunkUtils.isSetting(ClaimSettings.VEIN_MINER, world, blockPos) && block instanceof OreBlock && player.isSneaking()))
+        if (!(ChunkUtils.isSetting(ClaimSettings.VEIN_MINER, world, blockPos) && block instanceof OreBlock && player.isSneaking() && player.canHarvest(blockState)))
             return ActionResult.PASS;
         
-        Set<BlockPos> ores = BlockEvents.gatherOreVein(block, world, blockPos);
-        CoreMod.logInfo("Broke an ore block, got " + ores.size() + " others");
-        for (BlockPos pos : ores) {
-            if (BlockBreak.canBlockBreak(player, world, hand, pos, blockFace, null ) != ActionResult.FAIL)
-                world.breakBlock( pos, true, player );
-        }
+        // Break the rest of the vein over the next few ticks
+        ChainBreak ores = ChainBreak.start(player, world, hand, blockPos, ChainBreak.FACES, SewConfig.get(SewConfig.VEIN_MINER_LIMIT));
+        if (ores != null)
+            CoreMod.logDebug("Broke an ore block, mining " + ores.size() + " others");
         
         return ActionResult.SUCCESS;
     }
-    private static Set<BlockPos> gatherOreVein(@NotNull final Block block, @NotNull final ServerWorld world, @NotNull final BlockPos originPos) {
-        Set<BlockPos> set = new HashSet<>();
-        
-        // Get all of the adjacent ores
-        BlockEvents.gatherOreVein(block, world, originPos, set);
-        
-        return set;
-    }
-    private static void gatherOreVein(@NotNull final Block block, @NotNull final ServerWorld world, @NotNull final BlockPos originPos, @NotNull Set<BlockPos> set, Direction... directions) {
-        // For all possible directions
-        for (Direction direction : Direction.values()) {
-            Set<Direction> directionSet = new HashSet<>(Arrays.asList( directions ));
-            if (directionSet.contains( direction ))
-                continue;
-            
-            BlockPos searchPos = originPos.offset( direction );
-            BlockState state = world.getBlockState( searchPos );
-            
-            // If ore type is equal
-            if (state.getBlock().equals( block )) {
-                boolean added = true;
-                
-                // Add the currently location to the list
-                added = set.add( searchPos );
-                
-                // Get more adjacent ore
-                directionSet.add( direction.getOpposite() );
-                
-                // If position was added to the set (Not already in the set)
-                if ( added ) BlockEvents.gatherOreVein(
-                    block,
-                    world,
-                    searchPos,
-                    set,
-                    directionSet.toArray(new Direction[0])
-                );
-            }
-        }
-    }
 }
@@ -165,7 +165,7 @@ public final class BlockInteraction {
             
             // Get the permission of the block
             ClaimPermissions blockPermission;
-            if ((((blockPermission = EntityUtils.getLockPermission(blockEntity)) != null) || ((blockPermission = EntityUtils.getLockPermission(block)) != null))) {
+            if ((blockPermission = EntityUtils.getLockPermission(block, blockEntity)) != null) {
                 // Check if allowed to open storages in this location
                 if (ChunkUtils.canPlayerDoInChunk(blockPermission, player, claimedChunkInfo.get(), blockPos)) {
                     // Check if the chest is NOT part of a shop, Or the player owns that shop
@@ -26,14 +26,25 @@
 package net.theelm.sewingmachine.protections.regions;
 
 import com.flowpowered.math.vector.Vector2d;
-import de.bluecolored.bluemap.api.BlueMapAPI;
+import de.bluecolored.bluemap.api.marker.Marker;
 import de.bluecolored.bluemap.api.marker.Shape;
 import de.bluecolored.bluemap.api.marker.ShapeMarker;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.theelm.sewingmachine.CoreMod;
 import net.theelm.sewingmachine.objects.ClaimTag;
 import net.theelm.sewingmachine.protections.claiming.Claimant;
 import net.theelm.sewingmachine.utilities.MapUtils;
-import net.minecraft.nbt.NbtList;
+import net.minecraft.util.Util;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.registry.RegistryKey;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.WorldChunk;
@@ -41,191 +52,476 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Consumer;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created on Jul 30 2021 at 11:02 PM.
  * By greg in SewingMachineMod
  */
 public class ChunkZone {
-    //public final @NotNull OutlineMaintainer outline;
-    private final @NotNull Set<LinkedPointChunk> chunks = new LinkedHashSet<>();
+    // Offsets of the north, east, south and west neighbors
+    private static final int[] OFFSET_X = new int[]{ 0, 1, 0, -1 };
+    private static final int[] OFFSET_Z = new int[]{ -1, 0, 1, 0 };
+    
+    private final @NotNull LongSet chunks = new LongOpenHashSet();
     
     public final @NotNull Claimant claimant;
     
     public final @NotNull RegistryKey<World> world;
     
     public final @NotNull String mapId;
-    public final @NotNull String label;
-    public final @NotNull String description;
     
-    public ChunkZone(@NotNull ClaimTag first, @NotNull Claimant owner) {
-        System.out.println("Created a new claim region");
-        this.world = first.getDimension();
-        //this.outline = new OutlineMaintainer(first);
-        this.chunks.add(LinkedPointChunk.of(first));
-        
-        this.mapId = "region" + first.getX() + "-" + first.getUpperZ();
-        
-        if (Objects.equals(owner.getId(), CoreMod.SPAWN_ID)) {
-            this.label = "Spawn";
-            this.description = "Spawn";
-        } else {
-            this.label = owner.getName().getString();
-            this.description = this.label + "'s claimed area";
-        }
-        this.claimant = owner;
-    }
-    public ChunkZone(@NotNull RegistryKey<World> world, @NotNull NbtList list, @NotNull Claimant owner) {
+    private @NotNull Vector2d[] outline = new Vector2d[0];
+    private @NotNull List<Vector2d[]> holes = Collections.emptyList();
+    
+    // The most recent build that outlines this zone, older builds leave it alone
+    private volatile long generation = 0;
+    
+    public ChunkZone(@NotNull RegistryKey<World> world, @NotNull String mapId, @NotNull Claimant owner) {
         this.world = world;
-        //this.outline = new OutlineMaintainer(list);
-        
-        this.mapId = "";
-        this.label = "";
-        this.description = "";
-        
+        this.mapId = mapId;
         this.claimant = owner;
     }
     
-    public boolean tryConsume(@NotNull Claimant claimant, @NotNull WorldChunk chunk) {
-        return this.tryConsume(claimant, ClaimTag.of(chunk));
+    public @NotNull String getLabel() {
+        if (Objects.equals(this.claimant.getId(), CoreMod.SPAWN_ID))
+            return "Spawn";
+        return this.claimant.getName().getString();
     }
-    public boolean tryConsume(@NotNull Claimant claimant, @NotNull ClaimTag tag) {
-        if (!Objects.equals(tag.getDimension(), this.world) || !Objects.equals(this.claimant.getId(), claimant.getId()))
-            return false;
-        /*boolean success = this.outline.push(tag);
-        if (success)
-            this.chunks.add(tag);*/
-        LinkedPointChunk convert = LinkedPointChunk.of(tag);
-        for (LinkedPointChunk chunk : this.chunks) {
-            if (chunk.setLinked(convert)) {
-                this.chunks.add(convert);
-                return true;
-            }
-        }
-        return false;
+    public @NotNull String getDescription() {
+        if (Objects.equals(this.claimant.getId(), CoreMod.SPAWN_ID))
+            return "Spawn";
+        return this.getLabel() + "'s claimed area";
+    }
+    
+    public boolean contains(long chunk) {
+        return this.chunks.contains(chunk);
+    }
+    
+    /**
+     * Get the outer outline of the zone in block coordinates
+     * @return The corners of the outline, in order
+     */
+    public @NotNull Vector2d[] toArray() {
+        return this.outline;
+    }
+    
+    /**
+     * Get the unclaimed areas that are fully surrounded by the zone
+     * @return The corners of each hole, in order
+     */
+    public @NotNull List<Vector2d[]> getHoles() {
+        return this.holes;
+    }
+    
+    public int size() {
+        return this.chunks.size();
     }
     
-    public Vector2d[] toArray() {
-        List<Vector2d> points = new ArrayList<>();
-        for (LinkedPointChunk chunk : this.chunks) {
-            points.addAll(chunk.gatherPoints());
+    /**
+     * Trace the outline of a connected set of chunks
+     *   Every chunk side that doesn't border another chunk of the set is an edge of the outline,
+     *   edges are directed so that each loop can be followed from one corner to the next.
+     *   The loop with the largest area is the outer outline, all other loops are holes.
+     *   The cost is linear in the number of chunks
+     * @param chunks The chunks to outline, all connected
+     * @return The outline loops, the outer outline first
+     */
+    public static @NotNull List<Vector2d[]> trace(@NotNull LongCollection chunks) {
+        // Map each corner to the edges that start at it (At most two, where the set touches diagonally)
+        Long2ObjectMap<long[]> edges = new Long2ObjectOpenHashMap<>();
+        LongIterator iterator = chunks.iterator();
+        while (iterator.hasNext()) {
+            long chunk = iterator.nextLong();
+            int x = ChunkPos.getPackedX(chunk);
+            int z = ChunkPos.getPackedZ(chunk);
+            
+            if (!chunks.contains(ChunkPos.toLong(x, z - 1)))
+                ChunkZone.addEdge(edges, x, z, x + 1, z);
+            if (!chunks.contains(ChunkPos.toLong(x + 1, z)))
+                ChunkZone.addEdge(edges, x + 1, z, x + 1, z + 1);
+            if (!chunks.contains(ChunkPos.toLong(x, z + 1)))
+                ChunkZone.addEdge(edges, x + 1, z + 1, x, z + 1);
+            if (!chunks.contains(ChunkPos.toLong(x - 1, z)))
+                ChunkZone.addEdge(edges, x, z + 1, x, z);
         }
         
-        return Arrays.stream(points.toArray(new Vector2d[0]))
-            .sorted((t1, t2) -> {
-                if ((t1.getX() == t2.getX()) && (t1.getY() == t2.getY()))
-                    return 0;
-                if ((t1.getX() == t2.getX()) || (t1.getY() == t2.getY()))
-                    return 1;
-                return Double.compare(t1.getX(), t2.getX()) + Double.compare(t1.getY(), t2.getY());
-            })
-            .toArray(Vector2d[]::new);
+        List<Vector2d[]> loops = new ArrayList<>();
+        int outer = -1;
+        long largest = 0;
         
-        /*Collections.sort(points, (t1, t2) -> {
-            if ((t1.getX() == t2.getX()) || (t1.getY() == t2.getY()))
-                return 0;
-            return Double.compare(t1.getX(), t2.getX()) + Double.compare(t1.getY(), t2.getY());
-        });
+        while (!edges.isEmpty()) {
+            long start = edges.keySet().iterator().nextLong();
+            long corner = start;
+            int dx = 0, dz = 0, firstX = 0, firstZ = 0;
+            
+            List<Vector2d> points = new ArrayList<>();
+            long area = 0;
+            do {
+                long next = ChunkZone.takeEdge(edges, corner, dx, dz);
+                int fromX = ChunkPos.getPackedX(corner), fromZ = ChunkPos.getPackedZ(corner);
+                int toX = ChunkPos.getPackedX(next), toZ = ChunkPos.getPackedZ(next);
+                int ndx = toX - fromX, ndz = toZ - fromZ;
+                
+                // Only keep the corners where the outline changes direction
+                if (ndx != dx || ndz != dz)
+                    points.add(new Vector2d(fromX << 4, fromZ << 4));
+                
+                if (points.size() == 1 && corner == start) {
+                    firstX = ndx;
+                    firstZ = ndz;
+                }
+                
+                area += (long) fromX * toZ - (long) toX * fromZ;
+                dx = ndx;
+                dz = ndz;
+                corner = next;
+            } while (corner != start);
+            
+            // The starting corner may have been in the middle of a straight line
+            if (dx == firstX && dz == firstZ)
+                points.remove(0);
+            
+            if (Math.abs(area) > largest) {
+                largest = Math.abs(area);
+                outer = loops.size();
+            }
+            loops.add(points.toArray(new Vector2d[0]));
+        }
+        
+        // Move the outer outline to the front
+        if (outer > 0)
+            loops.add(0, loops.remove(outer));
+        return loops;
+    }
+    private static void addEdge(@NotNull Long2ObjectMap<long[]> edges, int fromX, int fromZ, int toX, int toZ) {
+        long from = ChunkPos.toLong(fromX, fromZ);
+        long to = ChunkPos.toLong(toX, toZ);
+        long[] existing = edges.get(from);
+        edges.put(from, existing == null ? new long[]{ to } : new long[]{ existing[0], to });
+    }
+    private static long takeEdge(@NotNull Long2ObjectMap<long[]> edges, long corner, int dx, int dz) {
+        long[] out = edges.remove(corner);
+        if (out.length == 1)
+            return out[0];
         
-        return points.toArray(new Vector2d[0]);*/
+        // Where two edges leave the same corner, take the right turn so that loops never cross
+        int x = ChunkPos.getPackedX(corner), z = ChunkPos.getPackedZ(corner);
+        int i = ((ChunkPos.getPackedX(out[0]) - x) == -dz && (ChunkPos.getPackedZ(out[0]) - z) == dx) ? 0 : 1;
+        edges.put(corner, new long[]{ out[1 - i] });
+        return out[i];
     }
     
-    public int size() {
-        return this.chunks.size();
+    /**
+     * Split a set of chunks into their connected groups using a union-find
+     * @param chunks The chunks to split
+     * @return Each group of connected chunks
+     */
+    public static @NotNull List<LongSet> connected(@NotNull LongCollection chunks) {
+        Long2IntMap index = new Long2IntOpenHashMap(chunks.size());
+        index.defaultReturnValue(-1);
+        LongList keys = new LongArrayList(chunks);
+        for (int i = 0; i < keys.size(); i++)
+            index.put(keys.getLong(i), i);
+        
+        int[] parents = new int[keys.size()];
+        for (int i = 0; i < parents.length; i++)
+            parents[i] = i;
+        
+        // Union every chunk with its east and south neighbor
+        for (int i = 0; i < keys.size(); i++) {
+            long chunk = keys.getLong(i);
+            int x = ChunkPos.getPackedX(chunk);
+            int z = ChunkPos.getPackedZ(chunk);
+            for (int d = 1; d <= 2; d++) {
+                int neighbor = index.get(ChunkPos.toLong(x + ChunkZone.OFFSET_X[d], z + ChunkZone.OFFSET_Z[d]));
+                if (neighbor >= 0)
+                    parents[ChunkZone.find(parents, i)] = ChunkZone.find(parents, neighbor);
+            }
+        }
+        
+        Map<Integer, LongSet> groups = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++)
+            groups.computeIfAbsent(ChunkZone.find(parents, i), (root) -> new LongOpenHashSet())
+                .add(keys.getLong(i));
+        return new ArrayList<>(groups.values());
+    }
+    private static int find(int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
     }
     
-    public static class Builder implements Consumer<BlueMapAPI> {
+    /**
+     * Maintains the zones of a claimant as chunks are claimed and unclaimed,
+     *   only the zones that are touched by a change are re-outlined
+     */
+    public static class Builder {
         private final @NotNull Claimant claimant;
         private final @NotNull Set<ChunkZone> regions = new HashSet<>();
-        private final @NotNull Set<ClaimTag> regionChunks = new HashSet<>();
+        private final @NotNull Map<RegistryKey<World>, Long2ObjectMap<ChunkZone>> owners = new HashMap<>();
+        
+        // Zones that need to be re-outlined, and markers that need to be removed
+        private final @NotNull Set<ChunkZone> dirty = new HashSet<>();
+        private final @NotNull Set<String> removed = new HashSet<>();
+        
+        private int nextId = 0;
+        
+        // Builds run one after another, so an older outline is never written after a newer one
+        private long generation = 0;
+        private @NotNull CompletableFuture<?> pending = CompletableFuture.completedFuture(null);
+        private boolean cleared = false;
         
         public Builder(@NotNull Claimant claimant) {
             this.claimant = claimant;
         }
         
-        public ChunkZone.Builder add(Collection<ClaimTag> collection) {
-            this.regionChunks.addAll(collection);
+        public synchronized ChunkZone.Builder add(@NotNull Collection<ClaimTag> collection) {
+            Map<RegistryKey<World>, LongSet> dimensions = new HashMap<>();
+            for (ClaimTag tag : collection) {
+                RegistryKey<World> dimension = tag.getDimension();
+                if (dimension != null && !this.getOwners(dimension).containsKey(ChunkPos.toLong(tag.getX(), tag.getZ())))
+                    dimensions.computeIfAbsent(dimension, (key) -> new LongOpenHashSet())
+                        .add(ChunkPos.toLong(tag.getX(), tag.getZ()));
+            }
+            
+            // Adding many chunks at once is done as one pass instead of one chunk at a time
+            for (Map.Entry<RegistryKey<World>, LongSet> entry : dimensions.entrySet()) {
+                if (this.getOwners(entry.getKey()).isEmpty()) {
+                    for (LongSet group : ChunkZone.connected(entry.getValue()))
+                        this.createZone(entry.getKey(), group);
+                } else {
+                    LongIterator iterator = entry.getValue().iterator();
+                    while (iterator.hasNext())
+                        this.add(entry.getKey(), iterator.nextLong());
+                }
+            }
             return this;
         }
-        public ChunkZone.Builder add(ClaimTag tag) {
-            this.regionChunks.add(tag);
+        public synchronized ChunkZone.Builder add(@NotNull ClaimTag tag) {
+            RegistryKey<World> dimension = tag.getDimension();
+            if (dimension != null)
+                this.add(dimension, ChunkPos.toLong(tag.getX(), tag.getZ()));
             return this;
         }
-        
-        public @NotNull Set<ChunkZone> build() {
-            while (!this.regionChunks.isEmpty()) {
-                ClaimTag regionTag = null;
-                boolean consumed = !this.regions.isEmpty();
-
-                Iterator<ClaimTag> regionIterator = this.regionChunks.iterator();
-                outer:
-                while (regionIterator.hasNext()) {
-                    regionTag = regionIterator.next();
-                    // If no region exists, skip trying to iterate forever and just make one
-                    if (this.regions.isEmpty())
-                        break;
-                    for (ChunkZone region : this.regions) {
-                        if (consumed = region.tryConsume(this.claimant, regionTag)) {
-                            regionIterator.remove();
-                            break outer;
-                        }
-                    }
+        public ChunkZone.Builder add(@NotNull WorldChunk chunk) {
+            return this.add(ClaimTag.of(chunk));
+        }
+        private void add(@NotNull RegistryKey<World> dimension, long chunk) {
+            Long2ObjectMap<ChunkZone> owners = this.getOwners(dimension);
+            if (owners.containsKey(chunk))
+                return;
+            
+            // Find the zones that border the new chunk
+            int x = ChunkPos.getPackedX(chunk);
+            int z = ChunkPos.getPackedZ(chunk);
+            ChunkZone zone = null;
+            for (int d = 0; d < 4; d++) {
+                ChunkZone neighbor = owners.get(ChunkPos.toLong(x + ChunkZone.OFFSET_X[d], z + ChunkZone.OFFSET_Z[d]));
+                if (neighbor == null || neighbor == zone)
+                    continue;
+                if (zone == null)
+                    zone = neighbor;
+                else {
+                    // Merge the smaller zone into the larger one
+                    ChunkZone larger = zone.size() >= neighbor.size() ? zone : neighbor;
+                    this.merge(owners, larger == zone ? neighbor : zone, larger);
+                    zone = larger;
                 }
-                
-                if (!consumed && regionTag != null) {
-                    // Create a new region for the unconsumed chunk
-                    if (regionTag.getDimension() != null)
-                        regions.add(new ChunkZone(regionTag, this.claimant));
-                    regionIterator.remove();
+            }
+            
+            if (zone == null)
+                this.createZone(dimension, new LongOpenHashSet(new long[]{ chunk }));
+            else {
+                zone.chunks.add(chunk);
+                owners.put(chunk, zone);
+                this.dirty.add(zone);
+            }
+        }
+        public synchronized ChunkZone.Builder remove(@NotNull ClaimTag tag) {
+            RegistryKey<World> dimension = tag.getDimension();
+            if (dimension == null)
+                return this;
+            
+            Long2ObjectMap<ChunkZone> owners = this.getOwners(dimension);
+            ChunkZone zone = owners.remove(ChunkPos.toLong(tag.getX(), tag.getZ()));
+            if (zone == null)
+                return this;
+            
+            zone.chunks.remove(ChunkPos.toLong(tag.getX(), tag.getZ()));
+            if (zone.chunks.isEmpty())
+                this.removeZone(zone);
+            else {
+                // Removing a chunk may split the zone apart, the largest group stays as the zone
+                List<LongSet> groups = ChunkZone.connected(zone.chunks);
+                groups.sort((a, b) -> Integer.compare(b.size(), a.size()));
+                for (int i = 1; i < groups.size(); i++) {
+                    zone.chunks.removeAll(groups.get(i));
+                    this.createZone(dimension, groups.get(i));
                 }
+                this.dirty.add(zone);
             }
+            return this;
+        }
+        public ChunkZone.Builder remove(@NotNull WorldChunk chunk) {
+            return this.remove(ClaimTag.of(chunk));
+        }
+        
+        private @NotNull Long2ObjectMap<ChunkZone> getOwners(@NotNull RegistryKey<World> dimension) {
+            return this.owners.computeIfAbsent(dimension, (key) -> new Long2ObjectOpenHashMap<>());
+        }
+        private @NotNull ChunkZone createZone(@NotNull RegistryKey<World> dimension, @NotNull LongSet chunks) {
+            ChunkZone zone = new ChunkZone(dimension, "region-" + this.claimant.getId() + "-" + (this.nextId++), this.claimant);
+            Long2ObjectMap<ChunkZone> owners = this.getOwners(dimension);
             
-            // Run the bluemap plotter
-            MapUtils.RUN.add(this);
+            zone.chunks.addAll(chunks);
+            LongIterator iterator = chunks.iterator();
+            while (iterator.hasNext())
+                owners.put(iterator.nextLong(), zone);
             
-            // Return the generated regions
-            return this.regions;
+            this.regions.add(zone);
+            this.dirty.add(zone);
+            return zone;
+        }
+        private void merge(@NotNull Long2ObjectMap<ChunkZone> owners, @NotNull ChunkZone from, @NotNull ChunkZone into) {
+            LongIterator iterator = from.chunks.iterator();
+            while (iterator.hasNext()) {
+                long chunk = iterator.nextLong();
+                into.chunks.add(chunk);
+                owners.put(chunk, into);
+            }
+            from.chunks.clear();
+            this.removeZone(from);
+            this.dirty.add(into);
+        }
+        private void removeZone(@NotNull ChunkZone zone) {
+            zone.generation = -1;
+            this.regions.remove(zone);
+            this.dirty.remove(zone);
+            this.removed.add(zone.mapId);
+        }
+        
+        public synchronized @NotNull Set<ChunkZone> getRegions() {
+            return new HashSet<>(this.regions);
         }
         
-        private @NotNull ChunkZone addRegion(@NotNull ClaimTag tag) {
-            ChunkZone region = new ChunkZone(tag, this.claimant);
+        /**
+         * Outline all of the zones that have changed away from the server thread, and then write
+         *   all of the changed markers to BlueMap together
+         * @return The zones that were updated
+         */
+        public synchronized @NotNull CompletableFuture<Set<ChunkZone>> build() {
+            long generation = ++this.generation;
+            
+            // Snapshot the chunks of each changed zone, the snapshot is what gets outlined
+            Map<ChunkZone, LongSet> snapshots = new HashMap<>();
+            for (ChunkZone zone : this.dirty) {
+                zone.generation = generation;
+                snapshots.put(zone, new LongOpenHashSet(zone.chunks));
+            }
+            Set<String> removed = new HashSet<>(this.removed);
+            this.dirty.clear();
+            this.removed.clear();
+            
+            // Markers from before a restart used other ids, the first build clears all of them
+            String stale = this.cleared ? null : "region-" + this.claimant.getId() + "-";
+            this.cleared = true;
             
-            this.regions.add(region);
+            CompletableFuture<Set<ChunkZone>> future = this.pending.thenApplyAsync((previous) -> {
+                Set<ChunkZone> outlined = new HashSet<>();
+                for (Map.Entry<ChunkZone, LongSet> entry : snapshots.entrySet()) {
+                    ChunkZone zone = entry.getKey();
+                    
+                    // A newer build has changed the zone again (Or removed it), leave it to that build
+                    if (zone.generation != generation)
+                        continue;
+                    
+                    List<Vector2d[]> loops = ChunkZone.trace(entry.getValue());
+                    synchronized (zone) {
+                        zone.outline = loops.isEmpty() ? new Vector2d[0] : loops.get(0);
+                        zone.holes = loops.size() > 1 ? loops.subList(1, loops.size()) : Collections.emptyList();
+                    }
+                    outlined.add(zone);
+                }
+                
+                // Run the bluemap plotter
+                MapUtils.write((api) -> Builder.plot(outlined, removed, stale));
+                
+                return outlined;
+            }, Util.getMainWorkerExecutor());
             
-            return region;
+            // A failed build must not stop the builds after it
+            this.pending = future.exceptionally((exception) -> {
+                CoreMod.logError(exception);
+                return null;
+            });
+            return future;
         }
         
-        @Override
-        public void accept(BlueMapAPI blueMapAPI) {
-            for (ChunkZone region : this.regions) {
-                Vector2d[] points = region.toArray();
-                System.out.println("Region Size -> " + region.size() + " (" + points.length + " corners)");
-                MapUtils.withMarker(region.world, "claims", (map, set) -> {
-                    if (!set.getMarker(region.mapId).isPresent()) {
+        private static void plot(@NotNull Collection<ChunkZone> regions, @NotNull Collection<String> removed, @Nullable String stale) {
+            Map<RegistryKey<World>, List<ChunkZone>> worlds = new HashMap<>();
+            for (ChunkZone region : regions)
+                worlds.computeIfAbsent(region.world, (key) -> new LinkedList<>())
+                    .add(region);
+            
+            boolean changed = false;
+            if (stale != null)
+                changed = MapUtils.queueMarkerSet("claims", (set) -> {
+                    List<String> ids = new ArrayList<>();
+                    for (Marker marker : set.getMarkers()) {
+                        if (marker.getId().startsWith(stale))
+                            ids.add(marker.getId());
+                    }
+                    for (String id : ids)
+                        set.removeMarker(id);
+                    return !ids.isEmpty();
+                });
+            
+            for (Map.Entry<RegistryKey<World>, List<ChunkZone>> entry : worlds.entrySet()) {
+                changed |= MapUtils.queueMarker(entry.getKey(), "claims", (map, set) -> {
+                    for (ChunkZone region : entry.getValue()) {
+                        Vector2d[] points;
+                        synchronized (region) {
+                            points = region.outline;
+                        }
+                        
+                        set.removeMarker(region.mapId);
                         if (points.length >= 3) {
+                            // The BlueMap v1 shape marker can only draw the outer outline, holes are not drawn
                             ShapeMarker shapeMarker = set.createShapeMarker(region.mapId, map, new Shape(points), 64);
-                            shapeMarker.setLabel(region.label);
-                            shapeMarker.setDetail(region.description);
-                            
-                            return true;
+                            shapeMarker.setLabel(region.getLabel());
+                            shapeMarker.setDetail(region.getDescription());
                         }
                     }
-                    return false;
+                    return true;
                 });
             }
+            
+            if (!removed.isEmpty())
+                changed |= MapUtils.queueMarkerSet("claims", (set) -> {
+                    boolean any = false;
+                    for (String id : removed)
+                        any |= set.removeMarker(id);
+                    return any;
+                });
+            
+            // Write all of the changed markers once
+            if (changed)
+                MapUtils.saveBlueMap();
         }
         
-        public static @NotNull Set<ChunkZone> build(@NotNull final Collection<ClaimTag> collection, @NotNull Claimant claimant) {
+        public static @NotNull CompletableFuture<Set<ChunkZone>> build(@NotNull final Collection<ClaimTag> collection, @NotNull Claimant claimant) {
             Builder builder = new Builder(claimant);
             
             builder.add(collection);
@@ -25,6 +25,10 @@
 
 package net.theelm.sewingmachine.utilities;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2BooleanMap;
+import it.unimi.dsi.fastutil.objects.Object2BooleanOpenHashMap;
 import net.theelm.sewingmachine.CoreMod;
 import net.theelm.sewingmachine.config.SewConfig;
 import net.theelm.sewingmachine.enums.ClaimPermissions;
@@ -44,6 +48,8 @@ import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.MutableText;
 import net.minecraft.util.Formatting;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.registry.RegistryKey;
 import net.minecraft.world.HeightLimitView;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldView;
@@ -55,6 +61,7 @@ import org.jetbrains.annotations.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -65,6 +72,9 @@ import java.util.UUID;
 
 public final class ChunkUtils {
     
+    // Pickup decisions for the current tick, keyed by the world and the position of the chunk (Cleared at the end of every tick)
+    private static final @NotNull Map<RegistryKey<World>, Long2ObjectMap<Object2BooleanMap<UUID>>> PICKUP_DECISIONS = new HashMap<>();
+    
     /**
      * Check the database if a user can perform an action within the specified chunk
      */
@@ -147,7 +157,34 @@ public final class ChunkUtils {
      * @return If player can pick up dropped items
      */
     public static boolean canPlayerLootDropsInChunk(@NotNull PlayerEntity player, @NotNull BlockPos blockPos) {
-        return ChunkUtils.canPlayerDoInChunk( ClaimPermissions.PICKUP, player, blockPos );
+        World world = player.getEntityWorld();
+        WorldChunk chunk = world.getWorldChunk(blockPos);
+        
+        // Only the server thread shares decisions, and inner claims (Which are rare) are always checked on their own
+        MinecraftServer server = player.getServer();
+        if (server == null || !server.isOnThread() || chunk == null || ((IClaimedChunk) chunk).getClaim(blockPos) != chunk)
+            return ChunkUtils.canPlayerDoInChunk( ClaimPermissions.PICKUP, player, chunk, blockPos );
+        
+        // Items in the same chunk share the decision, so a pile only gets checked once per tick
+        ChunkPos chunkPos = chunk.getPos();
+        Object2BooleanMap<UUID> decisions = ChunkUtils.PICKUP_DECISIONS.computeIfAbsent(world.getRegistryKey(), (key) -> new Long2ObjectOpenHashMap<>())
+            .computeIfAbsent(ChunkPos.toLong(chunkPos.x, chunkPos.z), (key) -> new Object2BooleanOpenHashMap<>());
+        
+        UUID uuid = player.getUuid();
+        if (decisions.containsKey(uuid))
+            return decisions.getBoolean(uuid);
+        
+        boolean allowed = ChunkUtils.canPlayerDoInChunk( ClaimPermissions.PICKUP, player, chunk, blockPos );
+        decisions.put(uuid, allowed);
+        return allowed;
+    }
+    
+    /**
+     * Forget the pickup decisions of the tick that has ended, must be called from the server thread
+     */
+    public static void clearPickupDecisions() {
+        if (!ChunkUtils.PICKUP_DECISIONS.isEmpty())
+            ChunkUtils.PICKUP_DECISIONS.clear();
     }
     
     /**
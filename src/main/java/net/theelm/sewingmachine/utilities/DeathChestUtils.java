@@ -25,10 +25,13 @@
 
 package net.theelm.sewingmachine.utilities;
 
+import it.unimi.dsi.fastutil.longs.Long2ByteMap;
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
 import net.theelm.sewingmachine.CoreMod;
 import net.theelm.sewingmachine.config.SewConfig;
 import net.theelm.sewingmachine.interfaces.BackpackCarrier;
 import net.theelm.sewingmachine.interfaces.PlayerCorpse;
+import net.theelm.sewingmachine.objects.DeathArchive;
 import net.theelm.sewingmachine.objects.PlayerBackpack;
 import net.theelm.sewingmachine.utilities.text.MessageUtils;
 import net.minecraft.block.Block;
@@ -48,7 +51,9 @@ import net.minecraft.inventory.Inventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
 import net.minecraft.nbt.NbtList;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.LiteralText;
 import net.minecraft.text.Text;
 import net.minecraft.text.TextColor;
@@ -56,9 +61,14 @@ import net.minecraft.util.Formatting;
 import net.minecraft.util.Hand;
 import net.minecraft.util.Util;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.EulerAngle;
+import net.minecraft.world.Heightmap;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
 import net.minecraft.world.dimension.DimensionType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -84,6 +94,7 @@ public final class DeathChestUtils {
         int maxX = SewConfig.get(SewConfig.MAX_DEATH_SCAN);
         int maxI = 1 + ((maxX * maxX) * 4) + (maxX * 4);
         
+        ChestSearch search = new ChestSearch(world);
         for ( int y = deathPoint.getY(); y < upper; y++ ) {
             int x = 0;
             int z = 0;
@@ -92,8 +103,13 @@ public final class DeathChestUtils {
             
             for (int i = 0; i < maxI; i++) {
                 BlockPos check = new BlockPos(x + deathPoint.getX(), y, z + deathPoint.getZ());
-                if ((out = DeathChestUtils.isValid(world, check)) != null)
+                if ((out = search.isValid(check)) != null)
                     return out.down();
+                
+                // If too many blocks have been checked, stop and use the surface
+                if (search.isExhausted())
+                    return DeathChestUtils.getFallbackPosition(world, deathPoint, upper);
+                
                 if ((x == z) || ((x < 0) && (x == -z)) || ((x > 0) && (x == 1 - z))) {
                     maxX = dX;
                     dX = -dZ;
@@ -106,24 +122,102 @@ public final class DeathChestUtils {
         
         return null;
     }
-    private static @Nullable BlockPos isValid(@NotNull final World world, @NotNull final BlockPos blockPos) {
-        Block block = world.getBlockState(blockPos).getBlock();
-        
-        // If AIR, A-O-KAY
-        if (block.equals(Blocks.AIR) || block.equals(Blocks.CAVE_AIR) || (block instanceof SlabBlock && world.getBlockState(blockPos).get(SlabBlock.TYPE) == SlabType.BOTTOM))
-            return blockPos;
-        
-        // If WATER, Sink
-        if (block.equals(Blocks.WATER)) {
-            BlockPos seaFloor = blockPos;
-            do {
-                seaFloor = seaFloor.down();
-            } while ((world.getBlockState(seaFloor).getBlock().equals(Blocks.WATER)) || (world.getFluidState(seaFloor).getFluid() == Fluids.WATER));
-            return seaFloor.up(); // Get the block ABOVE the sea floor
+    private static @Nullable BlockPos getFallbackPosition(@NotNull final World world, @NotNull final BlockPos deathPoint, final int upper) {
+        BlockPos surface = world.getTopPosition(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, deathPoint);
+        if (surface.getY() < upper && !world.getDimension().hasCeiling())
+            return surface.down();
+        
+        // If the surface is too far above (Such as in a cave) or is a ceiling, use where the player died
+        return world.isOutOfHeightLimit(deathPoint) ? null : deathPoint.down();
+    }
+    private static boolean isValid(@NotNull final BlockState state) {
+        Block block = state.getBlock();
+        return block.equals(Blocks.AIR) || block.equals(Blocks.CAVE_AIR) || (block instanceof SlabBlock && state.get(SlabBlock.TYPE) == SlabType.BOTTOM);
+    }
+    private static boolean isWater(@NotNull final BlockState state) {
+        return state.getBlock().equals(Blocks.WATER) || state.getFluidState().getFluid() == Fluids.WATER;
+    }
+    
+    /**
+     * A search for a death chest position, that reads whole chunk sections where it can instead of single blocks
+     */
+    private static final class ChestSearch {
+        // The most blocks that will be read before falling back to the surface
+        private static final int MAX_CANDIDATES = 2048;
+        
+        private static final byte SECTION_EMPTY = 1;
+        private static final byte SECTION_SOLID = 2;
+        private static final byte SECTION_MIXED = 3;
+        
+        private final @NotNull World world;
+        private final @NotNull Long2ByteMap sections = new Long2ByteOpenHashMap();
+        private int candidates = 0;
+        
+        private ChestSearch(@NotNull World world) {
+            this.world = world;
         }
         
-        // Return NULL if no valid position was found
-        return null;
+        private boolean isExhausted() {
+            return this.candidates >= ChestSearch.MAX_CANDIDATES;
+        }
+        
+        private @Nullable BlockPos isValid(@NotNull final BlockPos blockPos) {
+            if (this.world.isOutOfHeightLimit(blockPos))
+                return null;
+            
+            Chunk chunk = this.world.getChunk(ChunkSectionPos.getSectionCoord(blockPos.getX()), ChunkSectionPos.getSectionCoord(blockPos.getZ()));
+            
+            // Everything above the surface is AIR
+            if (blockPos.getY() > chunk.sampleHeightmap(Heightmap.Type.WORLD_SURFACE, blockPos.getX() & 15, blockPos.getZ() & 15))
+                return blockPos;
+            
+            // Skip over sections that are entirely AIR or don't contain anything to place a chest in
+            byte section = this.getSection(chunk, blockPos.getY());
+            if (section == ChestSearch.SECTION_EMPTY)
+                return blockPos;
+            if (section == ChestSearch.SECTION_SOLID)
+                return null;
+            
+            this.candidates++;
+            BlockState state = chunk.getBlockState(blockPos);
+            
+            // If AIR, A-O-KAY
+            if (DeathChestUtils.isValid(state))
+                return blockPos;
+            
+            // If WATER, Sink
+            if (DeathChestUtils.isWater(state)) {
+                BlockPos seaFloor = blockPos;
+                do {
+                    seaFloor = seaFloor.down();
+                    this.candidates++;
+                } while (!this.isExhausted() && !this.world.isOutOfHeightLimit(seaFloor) && DeathChestUtils.isWater(this.world.getBlockState(seaFloor)));
+                
+                // The sea floor wasn't reached, so the search falls back to the surface
+                if (this.isExhausted())
+                    return null;
+                return seaFloor.up(); // Get the block ABOVE the sea floor
+            }
+            
+            // Return NULL if no valid position was found
+            return null;
+        }
+        
+        private byte getSection(@NotNull Chunk chunk, int y) {
+            ChunkPos chunkPos = chunk.getPos();
+            long key = ChunkSectionPos.asLong(chunkPos.x, ChunkSectionPos.getSectionCoord(y), chunkPos.z);
+            byte type = this.sections.get(key);
+            if (type == 0) {
+                ChunkSection section = chunk.getSection(chunk.getSectionIndex(y));
+                if (section.isEmpty())
+                    type = ChestSearch.SECTION_EMPTY;
+                else if (section.hasAny(state -> DeathChestUtils.isValid(state) || DeathChestUtils.isWater(state)))
+                    type = ChestSearch.SECTION_MIXED;
+                else type = ChestSearch.SECTION_SOLID;
+                this.sections.put(key, type);
+            }
+            return type;
+        }
     }
     
     public static boolean createDeathChestFor(@NotNull final PlayerEntity player, @NotNull BlockPos deathPos) {
@@ -176,14 +270,6 @@ public final class DeathChestUtils {
             backpackTag
         );
         
-        // Backup data
-        NbtCompound file = new NbtCompound();
-        file.putLong("xp", player.totalExperience);
-        file.put("inventory", inventoryTag);
-        file.put("backpack", backpackTag);
-        
-        // TODO: Write "file" tag to disk to recover past deaths
-        
         // Print the death chest coordinates
         if (SewConfig.get(SewConfig.PRINT_DEATH_CHEST_LOC))
             player.sendSystemMessage(TranslatableServerSide.text(player, "player.death_chest.location", new LiteralText(chestPos.getX() + ", " + (chestPos.getY() + 1 ) + ", " + chestPos.getZ()).formatted(Formatting.AQUA)), Util.NIL_UUID);
@@ -195,10 +281,45 @@ public final class DeathChestUtils {
             && corpse.addStatusEffect(new StatusEffectInstance(StatusEffects.WITHER, 1000000, 1, false, true )); // Apply a visual appearance to the Armor stand
     }
     public static void createDeathSnapshotFor(@NotNull final PlayerEntity player) {
-        /*final String deathName = player.getEntityName() + System.currentTimeMillis() + "_" + MessageUtils.xyzToString(player.getBlockPos(), "_");
-        MessageUtils.consoleToOps(new LiteralText("Created new Death Chest for player ")
-            .append(player.getDisplayName().shallowCopy())
-            .append(" (" + deathName + ")"));*/
+        if (SewConfig.get(SewConfig.DEATH_ARCHIVE_LIMIT) <= 0)
+            return;
+        
+        // Deaths without any items would push the useful deaths out of the archive
+        PlayerBackpack backpack = ((BackpackCarrier)player).getBackpack();
+        if (InventoryUtils.isInvEmpty(player.getInventory()) && InventoryUtils.isInvEmpty(backpack))
+            return;
+        
+        // Copy the inventory, before the death chest or vanilla take the items out of it
+        NbtCompound snapshot = new NbtCompound();
+        snapshot.putInt("xp", player.totalExperience);
+        snapshot.put("inventory", DeathChestUtils.copyInventoryTags(player.getInventory()));
+        snapshot.put("backpack", DeathChestUtils.copyInventoryTags(backpack));
+        
+        String cause = player.getDamageTracker().getDeathMessage().getString();
+        DeathArchive.archive(player.getUuid(), new DeathArchive.Entry(
+            System.currentTimeMillis(),
+            player.world.getRegistryKey().getValue(),
+            player.getBlockPos(),
+            cause.length() > 256 ? cause.substring(0, 256) : cause
+        ), snapshot);
+    }
+    public static int restoreDeathSnapshot(@NotNull final ServerPlayerEntity player, @NotNull final NbtCompound snapshot) {
+        int restored = 0;
+        
+        // Give back all of the items, dropping whatever doesn't fit
+        for (String key : new String[] { "inventory", "backpack" }) {
+            for (NbtElement element : snapshot.getList(key, NbtElement.COMPOUND_TYPE)) {
+                ItemStack stack = ItemStack.fromNbt((NbtCompound) element);
+                if (stack.isEmpty())
+                    continue;
+                player.getInventory()
+                    .offerOrDrop(stack);
+                restored++;
+            }
+        }
+        
+        player.addExperience(snapshot.getInt("xp"));
+        return restored;
     }
     
     private static @NotNull ArmorStandEntity createFakeCorpse(@NotNull final World world, @NotNull final BlockPos chestPos, @NotNull final LivingEntity copyOf) {
@@ -259,6 +380,18 @@ public final class DeathChestUtils {
         
         return corpse;
     }
+    private static @NotNull NbtList copyInventoryTags(@Nullable Inventory inventory) {
+        NbtList list = new NbtList();
+        if (inventory != null) {
+            for (int i = 0; i < inventory.size(); i++) {
+                ItemStack stack = inventory.getStack(i);
+                if (stack.isEmpty())
+                    continue;
+                list.add(stack.writeNbt(new NbtCompound()));
+            }
+        }
+        return list;
+    }
     private static @NotNull NbtList collectInventoryTags(@Nullable Inventory inventory) {
         NbtList list = new NbtList();
         if (inventory != null) {
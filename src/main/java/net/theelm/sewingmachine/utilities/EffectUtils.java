@@ -28,6 +28,7 @@ package net.theelm.sewingmachine.utilities;
 import net.theelm.sewingmachine.interfaces.LogicalWorld;
 import net.theelm.sewingmachine.interfaces.TickableContext;
 import net.theelm.sewingmachine.interfaces.TickingAction;
+import net.theelm.sewingmachine.objects.TrailPathfinder;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.ai.pathing.Path;
@@ -178,8 +179,9 @@ public final class EffectUtils {
             player.sendMessage(bar, true);
         }
         
-        // Spawn obsidian particles for each node of the path
-        for (int i = 0; i < path.getLength(); i++) {
+        // Spawn obsidian particles for the next nodes of the path
+        int last = Math.min(path.getLength(), path.getCurrentNodeIndex() + TrailPathfinder.VISIBLE_NODES);
+        for (int i = path.getCurrentNodeIndex(); i < last; i++) {
             BlockPos navPos = path.getNodePos(i);
             player.networkHandler.sendPacket(new ParticleS2CPacket(
                 particle,
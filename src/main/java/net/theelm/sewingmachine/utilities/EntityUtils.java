@@ -32,9 +32,11 @@ import net.theelm.sewingmachine.enums.ClaimPermissions;
 import net.theelm.sewingmachine.enums.OpLevels;
 import net.theelm.sewingmachine.enums.Permissions;
 import net.theelm.sewingmachine.interfaces.IClaimedChunk;
+import net.theelm.sewingmachine.interfaces.LogicalWorld;
 import net.theelm.sewingmachine.interfaces.ShopSignData;
 import net.theelm.sewingmachine.interfaces.SpawnerMob;
 import net.theelm.sewingmachine.mixins.Server.ServerWorldAccessor;
+import net.theelm.sewingmachine.objects.ShopRegistry;
 import net.theelm.sewingmachine.protections.claiming.ClaimantTown;
 import net.theelm.sewingmachine.utilities.text.MessageUtils;
 import net.minecraft.block.AnvilBlock;
@@ -66,7 +68,6 @@ import net.minecraft.block.SmokerBlock;
 import net.minecraft.block.StonecutterBlock;
 import net.minecraft.block.entity.BarrelBlockEntity;
 import net.minecraft.block.entity.BedBlockEntity;
-import net.minecraft.block.entity.BeehiveBlockEntity;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.block.entity.ChestBlockEntity;
 import net.minecraft.block.entity.JukeboxBlockEntity;
@@ -175,17 +176,20 @@ public final class EntityUtils {
     /*
      * Get Entity Sounds
      */
-    public static SoundEvent getLockSound(@NotNull Block block) {
+    public static @NotNull SoundEvent getLockSound(@NotNull Block block) {
         return EntityUtils.getLockSound(block, null, null);
     }
-    public static SoundEvent getLockSound(@NotNull Block block, @Nullable BlockState blockState, @Nullable BlockEntity blockEntity) {
-        if (blockEntity != null) {
-            if ( blockEntity instanceof BeehiveBlockEntity hive) {
-                if (!hive.hasNoBees())
-                    return SoundEvents.BLOCK_BEEHIVE_WORK;
-                return (blockState != null && (BeehiveBlockEntity.getHoneyLevel(blockState) > 0) ? SoundEvents.BLOCK_BEEHIVE_DRIP : EntityUtils.getDefaultLockSound());
-            }
-        }
+    public static @NotNull SoundEvent getLockSound(@NotNull Block block, @Nullable BlockState blockState, @Nullable BlockEntity blockEntity) {
+        return SewConfig.get(SewConfig.CLAIM_BLOCK_LOCKS)
+            .getSound(block, blockState, blockEntity);
+    }
+    
+    /**
+     * The built-in lock sound of a block, only used when building the BlockLocks table
+     * @param block The block
+     * @return The sound to play when the block is locked
+     */
+    public static @NotNull SoundEvent getDefaultLockSound(@NotNull Block block) {
         if ( block instanceof BarrelBlock )
             return SoundEvents.BLOCK_FENCE_GATE_CLOSE;
         if ( block instanceof LoomBlock || block instanceof CartographyTableBlock )
@@ -281,7 +285,21 @@ public final class EntityUtils {
     /*
      * Get Lock Permissions
      */
-    public static @Nullable ClaimPermissions getLockPermission(BlockEntity block) {
+    /**
+     * Get the permission that is required to interact with a block
+     * @param block The block
+     * @param blockEntity The block entity of the block, if it has one
+     * @return The permission, or NULL if the block is not locked
+     */
+    public static @Nullable ClaimPermissions getLockPermission(@NotNull Block block, @Nullable BlockEntity blockEntity) {
+        return SewConfig.get(SewConfig.CLAIM_BLOCK_LOCKS)
+            .getPermission(block, blockEntity);
+    }
+    
+    /*
+     * Built-in lock permissions, only used when building the BlockLocks table
+     */
+    public static @Nullable ClaimPermissions getDefaultLockPermission(@NotNull BlockEntity block) {
         if (block instanceof JukeboxBlockEntity)
             return ClaimPermissions.STORAGE;
         if ( block instanceof LockableContainerBlockEntity)
@@ -290,7 +308,7 @@ public final class EntityUtils {
             return ClaimPermissions.BEDS;
         return null;
     }
-    public static @Nullable ClaimPermissions getLockPermission(@NotNull Block block) {
+    public static @Nullable ClaimPermissions getDefaultLockPermission(@NotNull Block block) {
         // Crafting Blocks
         if (block instanceof FletchingTableBlock)
             return ClaimPermissions.CRAFTING;
@@ -349,6 +367,23 @@ public final class EntityUtils {
         return (block instanceof ChestBlockEntity || block instanceof BarrelBlockEntity) || (block instanceof ShulkerBoxBlockEntity);
     }
     public static @Nullable ShopSignData getAttachedShopSign(@NotNull World world, @NotNull BlockPos storagePos) {
+        // Shop signs in server worlds are registered, so only the signs registered to the container need to be checked
+        if (world instanceof LogicalWorld logicalWorld) {
+            BlockEntity storageEntity = world.getBlockEntity(storagePos);
+            if (!EntityUtils.isValidShopContainer(storageEntity))
+                return null;
+            
+            ShopRegistry registry = logicalWorld.getShopRegistry();
+            ShopSignData shopSign = EntityUtils.getRegisteredShopSign(world, registry, storagePos);
+            
+            // Signs may be attached to the other half of a double chest
+            BlockState storageState;
+            if (shopSign == null && storageEntity instanceof ChestBlockEntity && (storageState = world.getBlockState(storagePos)).get(ChestBlock.CHEST_TYPE) != ChestType.SINGLE)
+                shopSign = EntityUtils.getRegisteredShopSign(world, registry, storagePos.offset(ChestBlock.getFacing(storageState)));
+            
+            return shopSign;
+        }
+        
         Set<BlockPos> searchForSigns = new HashSet<>(Collections.singletonList(
             storagePos.up()
         ));
@@ -398,6 +433,18 @@ public final class EntityUtils {
         return null;
     }
     
+    private static @Nullable ShopSignData getRegisteredShopSign(@NotNull World world, @NotNull ShopRegistry registry, @NotNull BlockPos storagePos) {
+        for (long sign : registry.getSigns(storagePos)) {
+            BlockPos signPos = BlockPos.fromLong(sign);
+            if (world.getBlockEntity(signPos) instanceof ShopSignData shopSign && shopSign.getShopType() != null)
+                return shopSign;
+            
+            // Remove signs that are no longer shops
+            registry.remove(signPos);
+        }
+        return null;
+    }
+    
     /*
      * Get Entity Names
      */
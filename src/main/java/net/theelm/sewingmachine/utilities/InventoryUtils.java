@@ -25,7 +25,9 @@
 
 package net.theelm.sewingmachine.utilities;
 
+import net.theelm.sewingmachine.interfaces.LogicalWorld;
 import net.theelm.sewingmachine.interfaces.ShopSignData;
+import net.theelm.sewingmachine.objects.ShopRegistry;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.ChestBlock;
@@ -97,25 +99,31 @@ public final class InventoryUtils {
      */
     
     public static @Nullable LootableContainerBlockEntity getAttachedChest(@NotNull final World world, @NotNull final BlockPos signPos) {
+        // Use the positions from the registry if the sign is a known shop, instead of reading the sign
+        ShopRegistry.Entry shop = world instanceof LogicalWorld logicalWorld ? logicalWorld.getShopRegistry().get(signPos) : null;
+        List<BlockPos> checkPositions = shop != null ? shop.getContainerPositions() : InventoryUtils.getAttachedChestPositions(signPos, world.getBlockState(signPos));
+        
+        for ( BlockPos blockPos : checkPositions ) {
+            BlockEntity chestBlockEntity = world.getBlockEntity(blockPos);
+            if ( chestBlockEntity instanceof LootableContainerBlockEntity && EntityUtils.isValidShopContainer(chestBlockEntity) )
+                return (LootableContainerBlockEntity) chestBlockEntity;
+        }
+        
+        return null;
+    }
+    public static @NotNull List<BlockPos> getAttachedChestPositions(@NotNull final BlockPos signPos, @NotNull final BlockState signBlockState) {
         List<BlockPos> checkPositions = new ArrayList<>();
         
         // Add the blockPos BELOW the sign
         checkPositions.add(signPos.offset(Direction.DOWN, 1));
         
         // Add the blockPos BEHIND the sign
-        BlockState signBlockState = world.getBlockState( signPos );
         if ( signBlockState.getBlock() instanceof WallSignBlock) {
             Direction signFacing = signBlockState.get(HorizontalFacingBlock.FACING).getOpposite();
             checkPositions.add(signPos.offset(signFacing, 1));
         }
         
-        for ( BlockPos blockPos : checkPositions ) {
-            BlockEntity chestBlockEntity = world.getBlockEntity(blockPos);
-            if ( chestBlockEntity instanceof LootableContainerBlockEntity && EntityUtils.isValidShopContainer(chestBlockEntity) )
-                return (LootableContainerBlockEntity) chestBlockEntity;
-        }
-        
-        return null;
+        return checkPositions;
     }
     public static @Nullable LootableContainerBlockEntity getAttachedChest(@NotNull final ShopSignData signBuilder) {
         return InventoryUtils.getAttachedChest(Objects.requireNonNull(signBuilder.getSign().getWorld()), signBuilder.getSign().getPos());
@@ -142,6 +150,28 @@ public final class InventoryUtils {
         return count;
     }
     
+    /*
+     * Get how many of an item can be put into an inventory
+     */
+    public static int getInventoryRoom(@NotNull Inventory inventory, @NotNull ItemStack stack) {
+        // Items are only ever inserted into the main slots of a players inventory
+        List<ItemStack> slots = inventory instanceof PlayerInventory playerInventory ? playerInventory.main : null;
+        int size = slots == null ? inventory.size() : slots.size();
+        int max = Math.min(stack.getMaxCount(), inventory.getMaxCountPerStack());
+        int room = 0;
+        
+        for (int i = 0; i < size; i++) {
+            ItemStack slot = slots == null ? inventory.getStack(i) : slots.get(i);
+            if (slot.isEmpty()) {
+                if (slots != null || inventory.isValid(i, stack))
+                    room += max;
+            } else if (ItemStack.canCombine(slot, stack))
+                room += Math.max(0, max - slot.getCount());
+        }
+        
+        return room;
+    }
+    
     /*
      * Check if stacks are empty or not
      */
@@ -301,12 +331,17 @@ public final class InventoryUtils {
                 while ( stackSize < count ) {
                     // Create the new itemstack
                     ItemStack clone = spawner.create(count - stackSize);
+                    int created = clone.getCount();
+                    if (created <= 0)
+                        break;
                     
-                    // Set amount given
-                    stackSize += clone.getCount();
+                    // Insert items into player inventory, items are never dropped so that the transfer can be undone
+                    playerInventory.insertStack(clone);
                     
-                    // Insert items into player inventory
-                    playerInventory.offerOrDrop(clone);
+                    // Set amount given
+                    stackSize += created - clone.getCount();
+                    if (!clone.isEmpty())
+                        break;
                 }
             }
         } else {
@@ -329,10 +364,14 @@ public final class InventoryUtils {
                         
                         // Get a slot for the item
                         int slot = playerInventory.getOccupiedSlotWithRoomForStack( clone );
+                        boolean full = false;
                         if ( slot == -1 || !strictPredicate.test(chestItem) ) {
                             clone.setCount(collect);
-                            if (!playerInventory.insertStack( clone ))
-                                break;
+                            playerInventory.insertStack( clone );
+                            
+                            // Only count what actually fit into the inventory
+                            full = !clone.isEmpty();
+                            collect -= clone.getCount();
                         } else {
                             final ItemStack inInv = playerInventory.getStack(slot);
                             int invStackSize = inInv.getCount();
@@ -344,6 +383,8 @@ public final class InventoryUtils {
                         
                         // Set the chest item stack size
                         chestItem.setCount(chestItem.getCount() - collect);
+                        if (full)
+                            break;
                     }
                 }
             }
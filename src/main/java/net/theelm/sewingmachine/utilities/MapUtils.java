@@ -38,11 +38,14 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.util.ArrayDeque;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Created on Mar 14 2021 at 3:37 PM.
@@ -53,35 +56,104 @@ public final class MapUtils {
     public static void init() {}
     
     private static @Nullable MarkerAPI MARKERS;
-    public static @NotNull Queue<Consumer<BlueMapAPI>> RUN = new ArrayDeque<>();
+    
+    // Guards publishing the MarkerAPI and queueing actions, so that no action is queued after the queue is drained
+    private static final @NotNull Object LOCK = new Object();
+    public static final @NotNull Queue<Consumer<BlueMapAPI>> RUN = new ConcurrentLinkedQueue<>();
+    
+    // Markers are changed and saved from a single thread, so saves never overlap
+    private static final @NotNull ExecutorService WRITER = Executors.newSingleThreadExecutor((runnable) -> {
+        Thread thread = new Thread(runnable, "BlueMap Marker Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
     
     static {
         // When the API is made available
         BlueMapAPI.onEnable((api) -> {
-            if (MapUtils.MARKERS != null)
+            synchronized (MapUtils.LOCK) {
+                if (MapUtils.MARKERS != null)
+                    return;
+                try {
+                    MapUtils.MARKERS = api.getMarkerAPI();
+                    CoreMod.logInfo("BlueMap Integration detected");
+                    
+                    Consumer<BlueMapAPI> consumer;
+                    while ((consumer = MapUtils.RUN.poll()) != null)
+                        consumer.accept(api);
+                } catch (IOException e) {
+                    CoreMod.logError(e);
+                }
+            }
+        });
+    }
+    
+    public static boolean isEnabled() {
+        return MapUtils.MARKERS != null;
+    }
+    public static boolean isInstalled() {
+        return CoreMod.getFabric().isModLoaded("bluemap");
+    }
+    
+    /**
+     * Run an action against BlueMap, or when BlueMap is enabled if it isn't yet
+     * @param consumer The action to run
+     */
+    public static void run(@NotNull Consumer<BlueMapAPI> consumer) {
+        synchronized (MapUtils.LOCK) {
+            if (MapUtils.MARKERS == null) {
+                MapUtils.RUN.add(consumer);
                 return;
+            }
+        }
+        MapUtils.getBlueMap().ifPresent(consumer);
+    }
+    
+    /**
+     * Run an action against BlueMap on the marker writing thread, or when BlueMap is enabled if it isn't yet
+     *   Anything that changes or saves markers should be run here
+     * @param consumer The action to run
+     */
+    public static void write(@NotNull Consumer<BlueMapAPI> consumer) {
+        MapUtils.run((api) -> MapUtils.WRITER.execute(() -> {
             try {
-                MapUtils.MARKERS = api.getMarkerAPI();
-                CoreMod.logInfo("BlueMap Integration detected");
-                
-                Consumer<BlueMapAPI> consumer;
-                while ((consumer = MapUtils.RUN.poll()) != null)
-                    consumer.accept(api);
-            } catch (IOException e) {
+                consumer.accept(api);
+            } catch (Exception e) {
                 CoreMod.logError(e);
             }
-        });
+        }));
     }
     
     public static void withMarker(@NotNull RegistryKey<World> worldKey, @NotNull String name, @NotNull final BiPredicate<BlueMapMap, MarkerSet> action) {
-        if (MapUtils.MARKERS == null)
-            return;
-        MapUtils.getWorldMap(worldKey).ifPresent(world -> {
-            if (action.test(world, MapUtils.MARKERS.createMarkerSet(name)))
+        MapUtils.write((api) -> {
+            if (MapUtils.queueMarker(worldKey, name, action))
                 MapUtils.saveBlueMap();
         });
     }
     
+    /**
+     * Modify a MarkerSet without saving it, so that many changes can be written with one call to {@link #saveBlueMap()}
+     * @param worldKey The world of the markers
+     * @param name The name of the MarkerSet
+     * @param action The modification, returning if any markers were changed
+     * @return If the markers were changed and need to be saved
+     */
+    public static boolean queueMarker(@NotNull RegistryKey<World> worldKey, @NotNull String name, @NotNull final BiPredicate<BlueMapMap, MarkerSet> action) {
+        if (MapUtils.MARKERS == null)
+            return false;
+        return MapUtils.getWorldMap(worldKey)
+            .map(world -> action.test(world, MapUtils.MARKERS.createMarkerSet(name)))
+            .orElse(false);
+    }
+    public static boolean queueMarkerSet(@NotNull String name, @NotNull final Predicate<MarkerSet> action) {
+        if (MapUtils.MARKERS == null)
+            return false;
+        return action.test(MapUtils.MARKERS.createMarkerSet(name));
+    }
+    
+    /**
+     * Save all of the markers, should only be called from {@link #write(Consumer)}
+     */
     public static void saveBlueMap() {
         try {
             MapUtils.MARKERS.save();
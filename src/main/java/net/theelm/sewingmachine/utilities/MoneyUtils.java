@@ -28,10 +28,9 @@ package net.theelm.sewingmachine.utilities;
 import net.theelm.sewingmachine.exceptions.NbtNotFoundException;
 import net.theelm.sewingmachine.exceptions.NotEnoughMoneyException;
 import net.theelm.sewingmachine.interfaces.MoneyHolder;
-import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
+import net.theelm.sewingmachine.objects.OfflinePlayerData;
 import net.minecraft.entity.data.DataTracker;
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.network.ServerPlayerEntity;
 import org.jetbrains.annotations.NotNull;
 
@@ -50,11 +49,8 @@ public final class MoneyUtils {
         if ((player = EntityUtils.getPlayer( playerId )) != null)
             return MoneyUtils.getPlayerMoney( player );
         
-        // If not online
-        NbtCompound tag = NbtUtils.readOfflinePlayerData( playerId );
-        
-        // Get the balance from the NBT tag
-        return tag.getInt( MoneyHolder.SAVE_KEY );
+        // If not online, get the balance from the NBT tag
+        return OfflinePlayerData.read(playerId, tag -> tag.getInt( MoneyHolder.SAVE_KEY ));
     }
     public static int getPlayerMoney(@NotNull PlayerEntity player) {
         return player.getDataTracker().get(MoneyHolder.MONEY);
@@ -70,19 +66,14 @@ public final class MoneyUtils {
             return MoneyUtils.setPlayerMoney( player, amount );
         
         // If not online
-        NbtCompound nbt = NbtUtils.readOfflinePlayerData( playerId );
-        int balance = nbt.getInt( MoneyHolder.SAVE_KEY );
         if (amount < 0)
             return false;
         
-        // If balance is unchanged, don't attempt saving
-        if (amount == balance)
+        return OfflinePlayerData.modify(playerId, nbt -> {
+            // Change the NBT tag
+            nbt.putInt( MoneyHolder.SAVE_KEY, amount );
             return true;
-        
-        // Change the NBT tag
-        nbt.putInt( MoneyHolder.SAVE_KEY, amount );
-        
-        return NbtUtils.writeOfflinePlayerData( playerId, nbt );
+        });
     }
     public static boolean setPlayerMoney(@NotNull PlayerEntity player, int amount) {
         player.getDataTracker().set(MoneyHolder.MONEY, amount);
@@ -98,22 +89,19 @@ public final class MoneyUtils {
         if ((player = EntityUtils.getPlayer( playerId )) != null)
             return MoneyUtils.givePlayerMoney( player, amount );
         
-        // If not online
-        double updateTo = 0;
-        NbtCompound nbt = NbtUtils.readOfflinePlayerData( playerId );
-        int balance = nbt.getInt( MoneyHolder.SAVE_KEY );
-        if (((updateTo = (double)(balance + amount))) > Integer.MAX_VALUE)
-            return false;
-        
-        // If balance is unchanged, don't attempt saving
-        if (updateTo == balance)
+        // If not online, no change is made
+        if (amount == 0)
             return true;
         
-        // Change the NBT tag
-        nbt.putInt( MoneyHolder.SAVE_KEY, (int)updateTo );
-        
-        // Save the data
-        return NbtUtils.writeOfflinePlayerData( playerId, nbt );
+        return OfflinePlayerData.modify(playerId, nbt -> {
+            double updateTo = (double) nbt.getInt( MoneyHolder.SAVE_KEY ) + amount;
+            if (updateTo > Integer.MAX_VALUE)
+                return false;
+            
+            // Change the NBT tag
+            nbt.putInt( MoneyHolder.SAVE_KEY, (int)updateTo );
+            return true;
+        });
     }
     public static boolean givePlayerMoney(@NotNull PlayerEntity player, int amount) {
         DataTracker playerDataTracker = player.getDataTracker();
@@ -135,22 +123,19 @@ public final class MoneyUtils {
         if ((player = EntityUtils.getPlayer( playerId )) != null)
             return MoneyUtils.takePlayerMoney( player, amount );
         
-        // If not online
-        double updateTo = 0;
-        NbtCompound nbt = NbtUtils.readOfflinePlayerData( playerId );
-        int balance = nbt.getInt( MoneyHolder.SAVE_KEY );
-        if (((updateTo = (double)(balance - amount))) < Integer.MIN_VALUE)
-            return false;
-        
-        // If balance is unchanged, don't attempt saving
-        if (updateTo == balance)
+        // If not online, no change is made
+        if (amount == 0)
             return true;
         
-        // Change the NBT tag
-        nbt.putInt( MoneyHolder.SAVE_KEY, (int)updateTo );
-        
-        // Save the data
-        return NbtUtils.writeOfflinePlayerData( playerId, nbt );
+        return OfflinePlayerData.modify(playerId, nbt -> {
+            double updateTo = (double) nbt.getInt( MoneyHolder.SAVE_KEY ) - amount;
+            if (updateTo < Integer.MIN_VALUE)
+                return false;
+            
+            // Change the NBT tag
+            nbt.putInt( MoneyHolder.SAVE_KEY, (int)updateTo );
+            return true;
+        });
     }
     public static boolean takePlayerMoney(@NotNull PlayerEntity player, int amount) throws NotEnoughMoneyException {
         DataTracker playerDataTracker = player.getDataTracker();
@@ -35,11 +35,10 @@ import net.theelm.sewingmachine.config.SewConfig;
 import net.theelm.sewingmachine.enums.ChatRooms;
 import net.theelm.sewingmachine.exceptions.NbtNotFoundException;
 import net.theelm.sewingmachine.interfaces.Nicknamable;
-import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
+import net.theelm.sewingmachine.objects.OfflinePlayerData;
 import net.theelm.sewingmachine.utilities.text.MessageUtils;
 import net.theelm.sewingmachine.utilities.text.StyleApplicator;
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
@@ -192,9 +191,9 @@ public final class PlayerNameUtils {
     }
     private static @Nullable MutableText getOfflinePlayerNickname(@NotNull UUID uuid) {
         try {
-            NbtCompound tag = NbtUtils.readOfflinePlayerData(uuid);
-            if ((tag != null) && tag.contains("PlayerNickname", NbtElement.STRING_TYPE))
-                return Text.Serializer.fromJson(tag.getString("PlayerNickname"));
+            String nickname = OfflinePlayerData.read(uuid, tag -> tag.contains("PlayerNickname", NbtElement.STRING_TYPE) ? tag.getString("PlayerNickname") : null);
+            if (nickname != null)
+                return Text.Serializer.fromJson(nickname);
         } catch (NbtNotFoundException ignored) {}
         return null;
     }
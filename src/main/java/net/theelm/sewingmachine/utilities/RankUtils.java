@@ -67,6 +67,9 @@ public final class RankUtils {
     private static final ConcurrentHashMap<UUID, PlayerRank[]> PLAYER_RANKS = new ConcurrentHashMap<>();
     private static final String GLOBAL_RANK = "*";
     
+    // Incremented whenever the ranks of players may have changed
+    private static volatile int RANKS_VERSION = 0;
+    
     private RankUtils() {}
     
     public static @NotNull CompletableFuture<Suggestions> getSuggestions(@NotNull SuggestionsBuilder builder) {
@@ -144,6 +147,10 @@ public final class RankUtils {
     
     public static void clearRanks() {
         RankUtils.PLAYER_RANKS.clear();
+        RankUtils.RANKS_VERSION++;
+    }
+    public static int getRanksVersion() {
+        return RankUtils.RANKS_VERSION;
     }
     
     public static boolean hasPermission(@NotNull ServerCommandSource source, @Nullable PermissionNode permission) {
@@ -181,6 +188,7 @@ public final class RankUtils {
         if (!SewConfig.get(SewConfig.HANDLE_PERMISSIONS))
             return false;
         RankUtils.RANKS.clear();
+        RankUtils.RANKS_VERSION++;
         
         CoreMod.logInfo("Loading permissions file.");
         
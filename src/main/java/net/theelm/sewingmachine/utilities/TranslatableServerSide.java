@@ -48,10 +48,15 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.text.NumberFormat;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class TranslatableServerSide {
     
+    // Parsed language files, read from the jar only once per Locale
+    private static final @NotNull Map<Locale, JsonObject> LANGUAGES = new ConcurrentHashMap<>();
+    
     private TranslatableServerSide() {}
     
     public static void send(@NotNull CommandSource source, String key, Object... objects) {
@@ -157,6 +162,9 @@ public final class TranslatableServerSide {
         return element.getAsString();
     }
     private static JsonObject readLanguageFile(Locale language) {
+        return TranslatableServerSide.LANGUAGES.computeIfAbsent(language, TranslatableServerSide::loadLanguageFile);
+    }
+    private static JsonObject loadLanguageFile(Locale language) {
         String filePath;
         InputStream resource = CoreMod.class.getResourceAsStream(
             filePath = TranslatableServerSide.getResourcePath( language )
@@ -164,7 +172,7 @@ public final class TranslatableServerSide {
         if (resource == null) {
             // If not already using English, Fallback to English
             if (language != Locale.US)
-                return TranslatableServerSide.readLanguageFile(Locale.US);
+                return TranslatableServerSide.loadLanguageFile(Locale.US);
             // Throw an exception
             throw new NullPointerException("Could not read language file \"" + filePath + "\"");
         }
@@ -35,6 +35,7 @@ import net.theelm.sewingmachine.interfaces.IClaimedChunk;
 import net.theelm.sewingmachine.interfaces.LogicalWorld;
 import net.theelm.sewingmachine.interfaces.PlayerData;
 import net.theelm.sewingmachine.objects.MaskSet;
+import net.theelm.sewingmachine.objects.OfflinePlayerData;
 import net.theelm.sewingmachine.protections.BlockRange;
 import net.theelm.sewingmachine.protections.claiming.ClaimantTown;
 import net.theelm.sewingmachine.utilities.nbt.NbtUtils;
@@ -429,11 +430,7 @@ public final class WarpUtils {
         
         try {
             // Read from the NBT file
-            NbtCompound playerNBT;
-            if ((playerNBT = NbtUtils.readOfflinePlayerData(uuid)) == null)
-                return Collections.emptyMap();
-            
-            return WarpUtils.fromNBT(playerNBT);
+            return OfflinePlayerData.read(uuid, WarpUtils::fromNBT);
         } catch (NbtNotFoundException ignored) {}
         
         return Collections.emptyMap();
@@ -25,7 +25,6 @@
 
 package net.theelm.sewingmachine.utilities.nbt;
 
-import com.google.gson.JsonObject;
 import com.mojang.serialization.DataResult;
 import net.theelm.sewingmachine.CoreMod;
 import net.theelm.sewingmachine.ServerCore;
@@ -35,7 +34,6 @@ import net.theelm.sewingmachine.protections.claiming.Claimant;
 import net.theelm.sewingmachine.utilities.LegacyConverter;
 import net.minecraft.enchantment.Enchantment;
 import net.minecraft.enchantment.EnchantmentHelper;
-import net.minecraft.entity.EntityType;
 import net.minecraft.nbt.AbstractNbtNumber;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
@@ -44,7 +42,6 @@ import net.minecraft.nbt.NbtIo;
 import net.minecraft.nbt.NbtOps;
 import net.minecraft.nbt.NbtString;
 import net.minecraft.server.world.ServerWorld;
-import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.Util;
 import net.minecraft.util.WorldSavePath;
@@ -71,7 +68,6 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -100,10 +96,7 @@ public final class NbtUtils {
     /*
      * Player Data
      */
-    public static NbtCompound readOfflinePlayerData(@NotNull UUID uuid) throws NbtNotFoundException {
-        return NbtUtils.readOfflinePlayerData(uuid, false);
-    }
-    public static NbtCompound readOfflinePlayerData(@NotNull UUID uuid, boolean locking) throws NbtNotFoundException {
+    public static @NotNull NbtCompound readOfflinePlayerData(@NotNull UUID uuid) throws NbtNotFoundException {
         File file = NbtUtils.playerDataFile(uuid);
         
         if (!file.exists()) {
@@ -112,9 +105,7 @@ public final class NbtUtils {
         }
         
         try (FileInputStream stream = new FileInputStream(file)) {
-            // Lock the file
-            if (locking) stream.getChannel().tryLock();
-            // Read from the file
+            // Read from the file (Access is coordinated by OfflinePlayerData)
             return NbtIo.readCompressed(stream);
         } catch (IOException e) {
             CoreMod.logError( e );
@@ -183,18 +174,29 @@ public final class NbtUtils {
     public static boolean readWorldDat(@NotNull ServerWorld world, @NotNull ServerWorldProperties properties) {
         File file = NbtUtils.worldSaveFile(world.getRegistryKey());
         
-        if (!file.exists())
+        // If the last write was interrupted, the backup still holds the previous save
+        NbtCompound tag = NbtUtils.readWorldDat(file);
+        if (tag == null && (tag = NbtUtils.readWorldDat(new File(file.getParentFile(), file.getName() + "_old"))) != null)
+            CoreMod.logInfo("Restored the properties of " + world.getRegistryKey().getValue() + " from the backup file");
+        
+        if (tag == null)
             return false;
         
+        NbtUtils.applyWorldDatFromTag(world, tag, properties);
+        return true;
+    }
+    private static @Nullable NbtCompound readWorldDat(@NotNull File file) {
+        if (!file.exists())
+            return null;
+        
         try (FileInputStream stream = new FileInputStream(file)) {
-            NbtUtils.applyWorldDatFromTag(world, NbtIo.readCompressed(stream), properties);
-            return true;
+            return NbtIo.readCompressed(stream);
             
         } catch (IOException e) {
             CoreMod.logError( e );
         }
         
-        return false;
+        return null;
     }
     private static void applyWorldDatFromTag(@NotNull ServerWorld world, @NotNull NbtCompound tag, @NotNull ServerWorldProperties properties) {
         NbtCompound data = tag.getCompound("Data");
@@ -229,13 +231,24 @@ public final class NbtUtils {
         border.setWarningBlocks(data.getInt("BorderWarningBlocks"));
         border.setWarningTime(data.getInt("BorderWarningTime"));
     }
-    public static boolean writeWorldDat(@NotNull ServerWorld world, @NotNull WorldProperties properties) {
+    public static boolean writeWorldDat(@NotNull RegistryKey<World> world, @NotNull NbtCompound tag) {
+        NbtCompound out = tag.copy();
+        out.getCompound("Data")
+            .putLong("LastPlayed", Util.getEpochTimeMs());
+        
         return NbtUtils.writeBackupAndMove(
-            NbtUtils.worldSaveFile(world.getRegistryKey()),
-            NbtUtils.writeWorldDatToTag(world, properties)
+            NbtUtils.worldSaveFile(world),
+            out
         );
     }
-    private static @NotNull NbtCompound writeWorldDatToTag(@NotNull ServerWorld world, @NotNull WorldProperties properties) {
+    
+    /**
+     * Create a snapshot of the properties of a world, the snapshot doesn't change unless the properties do
+     * @param world The world
+     * @param properties The properties of the world
+     * @return The snapshot of the properties
+     */
+    public static @NotNull NbtCompound writeWorldDatToTag(@NotNull ServerWorld world, @NotNull WorldProperties properties) {
         NbtCompound data = new NbtCompound();
         
         if (properties instanceof ServerWorldProperties serverProperties) {
@@ -251,7 +264,6 @@ public final class NbtUtils {
         data.putFloat("SpawnAngle", properties.getSpawnAngle());
         
         data.putLong("DayTime", properties.getTimeOfDay());
-        data.putLong("LastPlayed", Util.getEpochTimeMs());
         data.putBoolean("raining", properties.isRaining());
         data.putBoolean("thundering", properties.isThundering());
         
@@ -265,7 +277,7 @@ public final class NbtUtils {
         return out;
     }
     
-    private static boolean writeBackupAndMove(@NotNull File file, @NotNull NbtCompound tag) {
+    public static boolean writeBackupAndMove(@NotNull File file, @NotNull NbtCompound tag) {
         String fileName = file.getName();
         int indexOf = fileName.indexOf('.');
         if (indexOf < 0)
@@ -449,58 +461,6 @@ public final class NbtUtils {
         return false;
     }
     
-    public static void withSpawnerEntities(final @NotNull NbtCompound base, final @NotNull Consumer<NbtString> consumer) {
-        NbtList list = base.getList("SpawnPotentials", NbtElement.COMPOUND_TYPE);
-        
-        // Save to the item (The mob)
-        if (list.isEmpty())
-            NbtUtils.withInnerSpawnerData(base.getCompound("SpawnData"), consumer);
-        else for (NbtElement tag : list)
-            NbtUtils.withInnerSpawnerData(((NbtCompound) tag), consumer);
-    }
-    private static void withInnerSpawnerData(final @NotNull NbtCompound base, final @NotNull Consumer<NbtString> consumer) {
-        NbtCompound data = base.contains("data", NbtElement.COMPOUND_TYPE) ? base.getCompound("data") : base;
-        
-        // Get entity details
-        if (!data.contains("entity", NbtElement.COMPOUND_TYPE))
-            return;
-        NbtCompound entity = data.getCompound("entity");
-        
-        // Get entity Id
-        if (!entity.contains("id", NbtElement.STRING_TYPE))
-            return;
-        String entityId = entity.getString("id");
-        if (entityId != null && !entityId.isEmpty())
-            consumer.accept(NbtString.of(entityId));
-    }
-    
-    /*
-     * Spawner Lore
-     */
-    public static @NotNull NbtCompound getSpawnerDisplay(@NotNull NbtList entityIdTag) {
-        // Create the lore tag
-        NbtList loreTag = new NbtList();
-        for (NbtElement entityTag : entityIdTag) {
-            // Get the mob entity name
-            String mobTag = entityTag.asString();
-            
-            Optional<EntityType<?>> entityType = EntityType.get(mobTag);
-            EntityType<?> entity;
-            if ((entity = entityType.orElse( null )) != null) {
-                // Create the display of mobs
-                JsonObject lore = new JsonObject();
-                lore.addProperty("translate", entity.getTranslationKey());
-                lore.addProperty("color", (entity.getSpawnGroup().isPeaceful() ? Formatting.GOLD : Formatting.RED).getName());
-                loreTag.add(NbtString.of(lore.toString()));
-            }
-        }
-        
-        // Update the lore tag
-        NbtCompound displayTag = new NbtCompound();
-        displayTag.put("Lore", loreTag);
-        return displayTag;
-    }
-    
     /*
      * Enchantment Tags
      */
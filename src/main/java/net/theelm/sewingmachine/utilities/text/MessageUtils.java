@@ -29,8 +29,10 @@ import net.theelm.sewingmachine.CoreMod;
 import net.theelm.sewingmachine.ServerCore;
 import net.theelm.sewingmachine.config.SewConfig;
 import net.theelm.sewingmachine.enums.ChatRooms;
+import net.theelm.sewingmachine.interfaces.LogicalWorld;
 import net.theelm.sewingmachine.interfaces.PlayerChat;
 import net.theelm.sewingmachine.interfaces.PlayerData;
+import net.theelm.sewingmachine.interfaces.PlayerServerLanguage;
 import net.theelm.sewingmachine.objects.ChatFormat;
 import net.theelm.sewingmachine.protections.claiming.ClaimantPlayer;
 import net.theelm.sewingmachine.protections.claiming.ClaimantTown;
@@ -45,6 +47,8 @@ import net.minecraft.enchantment.EnchantmentHelper;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.network.MessageType;
+import net.minecraft.network.Packet;
+import net.minecraft.network.packet.s2c.play.GameMessageS2CPacket;
 import net.minecraft.predicate.entity.EntityPredicates;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.PlayerManager;
@@ -73,11 +77,14 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.awt.Color;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -158,7 +165,8 @@ public final class MessageUtils {
         // Get the players in the area
         BlockPos outerA = new BlockPos(pos.getX() + 800, 0, pos.getZ() + 800);
         BlockPos outerB = new BlockPos(pos.getX() - 800, 800, pos.getZ() - 800);
-        List<ServerPlayerEntity> players = world.getEntitiesByClass(ServerPlayerEntity.class, new Box(outerA, outerB), EntityPredicates.VALID_ENTITY);
+        List<ServerPlayerEntity> players = ((LogicalWorld) world).getPlayerIndex()
+            .getPlayers(new Box(outerA, outerB), EntityPredicates.VALID_ENTITY);
         
         // Send the message to the players
         MessageUtils.sendChat(
@@ -210,10 +218,7 @@ public final class MessageUtils {
     public static void sendToTown(@NotNull final ClaimantTown town, @NotNull Collection<ServerPlayerEntity> tags, @NotNull final String translationKey, final Object... objects) {
         final MinecraftServer server = ServerCore.get();
         MessageUtils.sendSystem(
-            server.getPlayerManager().getPlayerList().stream().filter((player) -> {
-                ClaimantPlayer claimant = ((PlayerData) player).getClaim();
-                return (claimant != null) && (claimant.getTown() != null) && town.getId().equals(claimant.getTown().getId());
-            }),
+            town.getOnlineResidents(server),
             translationKey,
             objects
         );
@@ -226,10 +231,7 @@ public final class MessageUtils {
         
         // Send to the players
         MessageUtils.sendChat(
-            server.getPlayerManager().getPlayerList().stream().filter((player) -> {
-                ClaimantPlayer claimant = ((PlayerData) player).getClaim();
-                return (claimant != null) && (claimant.getTown() != null) && town.getId().equals(claimant.getTown().getId());
-            }),
+            town.getOnlineResidents(server),
             text
         );
         return false;
@@ -270,14 +272,37 @@ public final class MessageUtils {
     
     // Send a translation blob to a stream of players
     private static void sendSystem(@NotNull final Stream<ServerPlayerEntity> players, final String translationKey, final Object... objects) {
-        players.forEach((player) -> player.sendMessage(
-            TranslatableServerSide.text(player, translationKey, objects).formatted(Formatting.YELLOW),
-            MessageType.SYSTEM,
-            Util.NIL_UUID
-        ));
+        // Group the players by their language so that each translation is only built once
+        Map<Locale, List<ServerPlayerEntity>> locales = new HashMap<>();
+        players.forEach((player) -> locales.computeIfAbsent(((PlayerServerLanguage)player).getClientLanguage(), (locale) -> new ArrayList<>())
+            .add(player));
+        
+        for (Map.Entry<Locale, List<ServerPlayerEntity>> entry : locales.entrySet()) {
+            Text text = TranslatableServerSide.text(entry.getKey(), translationKey, objects)
+                .formatted(Formatting.YELLOW);
+            MessageUtils.sendPacket(entry.getValue().stream(), text, MessageType.SYSTEM);
+        }
     }
     private static void sendChat(@NotNull final Stream<ServerPlayerEntity> players, final Text text) {
-        players.forEach((player) -> player.sendMessage( text, MessageType.CHAT, Util.NIL_UUID ));
+        MessageUtils.sendPacket(players, text, MessageType.CHAT);
+    }
+    private static void sendPacket(@NotNull final Stream<ServerPlayerEntity> players, @NotNull final Text text, @NotNull final MessageType type) {
+        // The same packet is shared by every recipient
+        Packet<?> packet = new GameMessageS2CPacket(text, type, Util.NIL_UUID);
+        players.forEach((player) -> {
+            if (MessageUtils.acceptsMessage(player, type))
+                player.networkHandler.sendPacket(packet);
+        });
+    }
+    private static boolean acceptsMessage(@NotNull final ServerPlayerEntity player, @NotNull final MessageType type) {
+        ChatVisibility visibility = player.getClientChatVisibility();
+        if (visibility == null)
+            return true;
+        return switch (visibility) {
+            case HIDDEN -> type == MessageType.GAME_INFO;
+            case SYSTEM -> type == MessageType.SYSTEM || type == MessageType.GAME_INFO;
+            default -> true;
+        };
     }
     
     // Convert a Block Position to a Text component
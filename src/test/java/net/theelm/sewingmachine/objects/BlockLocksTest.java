@@ -0,0 +1,183 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import com.google.gson.JsonObject;
+import net.theelm.sewingmachine.enums.ClaimPermissions;
+import net.theelm.sewingmachine.utilities.EntityUtils;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockEntityProvider;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BeehiveBlockEntity;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.sound.SoundEvent;
+import net.minecraft.sound.SoundEvents;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.registry.Registry;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that the table built by BlockLocks classifies every vanilla block the same as the instanceof chains that it
+ *   replaced, where the permission of the block entity was checked before the permission of the block.
+ */
+public final class BlockLocksTest {
+    @BeforeAll
+    public static void setUp() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+    
+    @Test
+    public void vanillaInteractablesAreLocked() {
+        Map<Block, ClaimPermissions> expected = new LinkedHashMap<>();
+        
+        // Storages
+        expected.put(Blocks.CHEST, ClaimPermissions.STORAGE);
+        expected.put(Blocks.TRAPPED_CHEST, ClaimPermissions.STORAGE);
+        expected.put(Blocks.BARREL, ClaimPermissions.STORAGE);
+        expected.put(Blocks.SHULKER_BOX, ClaimPermissions.STORAGE);
+        expected.put(Blocks.RED_SHULKER_BOX, ClaimPermissions.STORAGE);
+        expected.put(Blocks.FURNACE, ClaimPermissions.STORAGE);
+        expected.put(Blocks.BLAST_FURNACE, ClaimPermissions.STORAGE);
+        expected.put(Blocks.SMOKER, ClaimPermissions.STORAGE);
+        expected.put(Blocks.HOPPER, ClaimPermissions.STORAGE);
+        expected.put(Blocks.DISPENSER, ClaimPermissions.STORAGE);
+        expected.put(Blocks.DROPPER, ClaimPermissions.STORAGE);
+        expected.put(Blocks.BREWING_STAND, ClaimPermissions.STORAGE);
+        expected.put(Blocks.JUKEBOX, ClaimPermissions.STORAGE);
+        expected.put(Blocks.BEEHIVE, ClaimPermissions.STORAGE);
+        expected.put(Blocks.BEE_NEST, ClaimPermissions.STORAGE);
+        expected.put(Blocks.LECTERN, ClaimPermissions.STORAGE);
+        expected.put(Blocks.BEACON, ClaimPermissions.STORAGE);
+        expected.put(Blocks.ANVIL, ClaimPermissions.STORAGE);
+        expected.put(Blocks.BELL, ClaimPermissions.STORAGE);
+        expected.put(Blocks.FLOWER_POT, ClaimPermissions.STORAGE);
+        
+        // Crafting blocks
+        expected.put(Blocks.CRAFTING_TABLE, ClaimPermissions.CRAFTING);
+        expected.put(Blocks.SMITHING_TABLE, ClaimPermissions.CRAFTING);
+        expected.put(Blocks.FLETCHING_TABLE, ClaimPermissions.CRAFTING);
+        expected.put(Blocks.ENCHANTING_TABLE, ClaimPermissions.CRAFTING);
+        expected.put(Blocks.GRINDSTONE, ClaimPermissions.CRAFTING);
+        expected.put(Blocks.LOOM, ClaimPermissions.CRAFTING);
+        expected.put(Blocks.STONECUTTER, ClaimPermissions.CRAFTING);
+        expected.put(Blocks.CARTOGRAPHY_TABLE, ClaimPermissions.CRAFTING);
+        
+        // Beds and activation blocks
+        expected.put(Blocks.RED_BED, ClaimPermissions.BEDS);
+        expected.put(Blocks.WHITE_BED, ClaimPermissions.BEDS);
+        expected.put(Blocks.NOTE_BLOCK, ClaimPermissions.BLOCKS);
+        
+        // Not locked
+        expected.put(Blocks.STONE, null);
+        expected.put(Blocks.OAK_DOOR, null);
+        expected.put(Blocks.LEVER, null);
+        expected.put(Blocks.OAK_SIGN, null);
+        
+        BlockLocks locks = new BlockLocks();
+        for (Map.Entry<Block, ClaimPermissions> entry : expected.entrySet()) {
+            Block block = entry.getKey();
+            assertEquals(entry.getValue(), locks.getPermission(block, BlockLocksTest.createBlockEntity(block)), () -> Registry.BLOCK.getId(block).toString());
+        }
+    }
+    
+    @Test
+    public void everyBlockMatchesTheInstanceofChains() {
+        BlockLocks locks = new BlockLocks();
+        for (Block block : Registry.BLOCK) {
+            BlockState state = block.getDefaultState();
+            BlockEntity blockEntity = BlockLocksTest.createBlockEntity(block);
+            
+            assertEquals(BlockLocksTest.chainPermission(block, blockEntity), locks.getPermission(block, blockEntity), () -> "Permission of " + Registry.BLOCK.getId(block));
+            assertEquals(BlockLocksTest.chainSound(block, state, blockEntity), locks.getSound(block, state, blockEntity), () -> "Sound of " + Registry.BLOCK.getId(block));
+        }
+    }
+    
+    @Test
+    public void blockEntitiesAreOnlyKnownOnceUsed() {
+        BlockLocks locks = new BlockLocks();
+        
+        // A chest is only known to be a storage by its block entity
+        assertNull(locks.getPermission(Blocks.CHEST, null));
+        assertEquals(ClaimPermissions.STORAGE, locks.getPermission(Blocks.CHEST, BlockLocksTest.createBlockEntity(Blocks.CHEST)));
+    }
+    
+    @Test
+    public void configOverridesTheDefaults() {
+        JsonObject json = new JsonObject();
+        json.addProperty("minecraft:chest", "NONE");
+        json.addProperty("minecraft:crafting_table", "storage");
+        json.addProperty("minecraft:stone", "BLOCKS");
+        JsonObject loom = new JsonObject();
+        loom.addProperty("sound", "minecraft:block.chest.locked");
+        json.add("minecraft:loom", loom);
+        
+        BlockLocks locks = BlockLocks.parse(json);
+        assertNull(locks.getPermission(Blocks.CHEST, BlockLocksTest.createBlockEntity(Blocks.CHEST)));
+        assertEquals(ClaimPermissions.STORAGE, locks.getPermission(Blocks.CRAFTING_TABLE, null));
+        assertEquals(ClaimPermissions.BLOCKS, locks.getPermission(Blocks.STONE, null));
+        
+        // Only the sound is changed
+        assertEquals(ClaimPermissions.CRAFTING, locks.getPermission(Blocks.LOOM, null));
+        assertEquals(SoundEvents.BLOCK_CHEST_LOCKED, locks.getSound(Blocks.LOOM, null, null));
+    }
+    
+    /**
+     * The permission from the removed instanceof chains, the block entity was checked first
+     */
+    private static @Nullable ClaimPermissions chainPermission(@NotNull Block block, @Nullable BlockEntity blockEntity) {
+        ClaimPermissions permission = blockEntity == null ? null : EntityUtils.getDefaultLockPermission(blockEntity);
+        return permission != null ? permission : EntityUtils.getDefaultLockPermission(block);
+    }
+    
+    /**
+     * The sound from the removed instanceof chains, beehives sound different depending on what is inside
+     */
+    private static @NotNull SoundEvent chainSound(@NotNull Block block, @NotNull BlockState blockState, @Nullable BlockEntity blockEntity) {
+        if (blockEntity instanceof BeehiveBlockEntity hive) {
+            if (!hive.hasNoBees())
+                return SoundEvents.BLOCK_BEEHIVE_WORK;
+            return BeehiveBlockEntity.getHoneyLevel(blockState) > 0 ? SoundEvents.BLOCK_BEEHIVE_DRIP : EntityUtils.getDefaultLockSound();
+        }
+        return EntityUtils.getDefaultLockSound(block);
+    }
+    
+    private static @Nullable BlockEntity createBlockEntity(@NotNull Block block) {
+        return block instanceof BlockEntityProvider provider ? provider.createBlockEntity(BlockPos.ORIGIN, block.getDefaultState()) : null;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * This software is licensed under the MIT License
+ * https://github.com/GStefanowich/MC-Server-Protection
+ *
+ * Copyright (c) 2019 Gregory Stefanowich
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.theelm.sewingmachine.objects;
+
+import net.theelm.sewingmachine.exceptions.NbtNotFoundException;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that changes to offline players are never lost when made from many threads at once
+ *   The files of players are kept in a temporary folder instead of a world.
+ */
+public final class OfflinePlayerDataTest {
+    private static final @NotNull String KEY = "Value";
+    private static final int THREADS = 8;
+    private static final int CHANGES = 500;
+    
+    @TempDir
+    Path folder;
+    
+    private OfflinePlayerData.Storage original;
+    
+    @BeforeEach
+    public void setUp() {
+        this.original = OfflinePlayerData.STORAGE;
+        OfflinePlayerData.clear();
+        OfflinePlayerData.STORAGE = new OfflinePlayerData.Storage() {
+            @Override
+            public @NotNull NbtCompound read(@NotNull UUID uuid) throws NbtNotFoundException {
+                File file = OfflinePlayerDataTest.this.getFile(uuid);
+                if (!file.exists())
+                    throw new NbtNotFoundException(uuid);
+                try {
+                    return NbtIo.readCompressed(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            @Override
+            public boolean write(@NotNull UUID uuid, @NotNull NbtCompound tag) {
+                try {
+                    NbtIo.writeCompressed(tag, OfflinePlayerDataTest.this.getFile(uuid));
+                    return true;
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+        };
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        OfflinePlayerData.clear();
+        OfflinePlayerData.STORAGE = this.original;
+    }
+    
+    @Test
+    public void concurrentChangesAreAllWritten() throws Exception {
+        // More players than there are locks, so that players also share locks
+        List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            UUID uuid = UUID.randomUUID();
+            this.create(uuid, 0);
+            players.add(uuid);
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(OfflinePlayerDataTest.THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < OfflinePlayerDataTest.THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < OfflinePlayerDataTest.CHANGES; i++) {
+                        UUID uuid = players.get(i % players.size());
+                        assertTrue(OfflinePlayerData.modify(uuid, nbt -> {
+                            nbt.putInt(OfflinePlayerDataTest.KEY, nbt.getInt(OfflinePlayerDataTest.KEY) + 1);
+                            return true;
+                        }));
+                        
+                        // Flush alongside the changes, as the worker threads would
+                        if (i % 50 == 0)
+                            OfflinePlayerData.flush();
+                    }
+                    return null;
+                }));
+            }
+            
+            start.countDown();
+            for (Future<?> future : futures)
+                future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        // Joining waits for any write that is still running, and writes what is left
+        int total = 0;
+        for (UUID uuid : players) {
+            OfflinePlayerData.onJoin(uuid);
+            total += NbtIo.readCompressed(this.getFile(uuid))
+                .getInt(OfflinePlayerDataTest.KEY);
+        }
+        
+        assertEquals(OfflinePlayerDataTest.THREADS * OfflinePlayerDataTest.CHANGES, total);
+    }
+    
+    @Test
+    public void joiningWritesPendingChanges() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        this.create(uuid, 10);
+        
+        OfflinePlayerData.modify(uuid, nbt -> {
+            nbt.putInt(OfflinePlayerDataTest.KEY, 25);
+            return true;
+        });
+        OfflinePlayerData.onJoin(uuid);
+        assertEquals(25, NbtIo.readCompressed(this.getFile(uuid)).getInt(OfflinePlayerDataTest.KEY));
+        
+        // The player owns their file while online, so it is read again once they leave
+        this.create(uuid, 40);
+        OfflinePlayerData.onQuit(uuid);
+        assertEquals(40, (int) OfflinePlayerData.read(uuid, nbt -> nbt.getInt(OfflinePlayerDataTest.KEY)));
+    }
+    
+    @Test
+    public void rejectedChangesAreNotWritten() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        this.create(uuid, 5);
+        
+        boolean changed = OfflinePlayerData.modify(uuid, nbt -> false);
+        OfflinePlayerData.onJoin(uuid);
+        
+        assertFalse(changed);
+        assertEquals(5, NbtIo.readCompressed(this.getFile(uuid)).getInt(OfflinePlayerDataTest.KEY));
+    }
+    
+    @Test
+    public void missingPlayersThrow() {
+        UUID uuid = UUID.randomUUID();
+        assertThrows(NbtNotFoundException.class, () -> OfflinePlayerData.read(uuid, nbt -> nbt.getInt(OfflinePlayerDataTest.KEY)));
+        assertThrows(NbtNotFoundException.class, () -> OfflinePlayerData.modify(uuid, nbt -> true));
+    }
+    
+    private void create(@NotNull UUID uuid, int value) throws IOException {
+        NbtCompound tag = new NbtCompound();
+        tag.putInt(OfflinePlayerDataTest.KEY, value);
+        NbtIo.writeCompressed(tag, this.getFile(uuid));
+    }
+    private @NotNull File getFile(@NotNull UUID uuid) {
+        return this.folder.resolve(uuid + ".dat")
+            .toFile();
+    }
+}